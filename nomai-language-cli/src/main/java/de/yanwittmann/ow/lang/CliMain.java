@@ -17,21 +17,27 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
 import java.util.stream.Collectors;
 
 public class CliMain {
 
+    private static final long DEFAULT_LAYOUT_TIME_MILLIS = 3000;
+
     public static void main(String[] args) throws IOException {
         final String[] allPossibleArgumentNames = new String[]{
                 "-text", "-t", "--text", "--t",
                 "-style", "-s", "--style", "--s",
                 "-output", "-o", "--output", "--o",
+                "-time", "-tm", "--time", "--tm",
                 "-help", "-h", "--help", "--h"
         };
         final String text = getArgumentValue(args, allPossibleArgumentNames, null, "-text", "-t", "--text", "--t");
         final String style = getArgumentValue(args, allPossibleArgumentNames, "wall", "-style", "-s", "--style", "--s");
         final String output = getArgumentValue(args, allPossibleArgumentNames, new File("generated-nomai-lang-" + System.currentTimeMillis() + ".png").getAbsolutePath(), "-output", "-o", "--output", "--o");
+        final Duration layoutTime = parseLayoutTime(getArgumentValue(args, allPossibleArgumentNames, null, "-time", "-tm", "--time", "--tm"));
         final boolean help = text == null || isArgumentPresent(args, "-help", "-h", "--help", "--h");
 
         if (help) {
@@ -40,21 +46,24 @@ public class CliMain {
             System.out.println("  -text, -t, --text, --t <text>     The text to render.");
             System.out.println("  -style, -s, --style, --s <style>  The style of the text. Either a file path or one of: wall 1, wall 2, wall 3, cliff, quantum, space, black, transparent");
             System.out.println("  -output, -o, --output, --o <path> The path to the output file. If not specified, a random file name will be generated.");
+            System.out.println("  -time, -tm, --time, --tm <ms>     The time in milliseconds to search for a layout without intersections. Defaults to " + DEFAULT_LAYOUT_TIME_MILLIS + ".");
             System.out.println("  -help, -h, --help, --h            Show this help message.");
 
             return;
         }
 
         final WrittenNomaiConverter converter = new WrittenNomaiConverter();
-        converter.setTokenizer(new WrittenNomaiTextTokenizer(
+        converter.setTokenizer(WrittenNomaiTextTokenizer.fromSnapshot(
+                new File(System.getProperty("java.io.tmpdir"), "nomai-language/cmudict.snapshot"),
                 WrittenNomaiTextTokenizer.class,
                 "/ow-lang/cmudict.dict",
                 "/ow-lang/cmudict-to-ow.txt"
         ));
         converter.setLineGenerator(new LetterToLineConverter());
         converter.setTransformAlongCurveProvider(WrittenNomaiConverter::lengthDependantUpwardsSpiralBezierCurveProvider);
+        converter.setRepairEvaluations(2000);
 
-        final RenderResult renderResult = renderText(converter, text, style);
+        final RenderResult renderResult = renderText(converter, text, style, layoutTime);
 
         final File outputFile = new File(output).getAbsoluteFile();
         makeParentDirs(outputFile);
@@ -117,6 +126,24 @@ public class CliMain {
         return defaultValue;
     }
 
+    /**
+     * @return The layout time in milliseconds, or the default time if the value is missing or not a positive number.
+     */
+    private static Duration parseLayoutTime(String value) {
+        if (value == null) {
+            return Duration.ofMillis(DEFAULT_LAYOUT_TIME_MILLIS);
+        }
+        try {
+            final long millis = Long.parseLong(value.trim());
+            if (millis > 0) {
+                return Duration.ofMillis(millis);
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        System.out.println("Invalid time [" + value + "], expected a positive number of milliseconds (-time, -tm, --time, --tm <ms>), using default [" + DEFAULT_LAYOUT_TIME_MILLIS + "]");
+        return Duration.ofMillis(DEFAULT_LAYOUT_TIME_MILLIS);
+    }
+
     private static boolean isArgumentPresent(String[] args, String... argumentName) {
         for (int i = 0; i < args.length; i++) {
             for (String name : argumentName) {
@@ -128,7 +155,7 @@ public class CliMain {
         return false;
     }
 
-    private static RenderResult renderText(WrittenNomaiConverter converter, String normalText, String style) {
+    private static RenderResult renderText(WrittenNomaiConverter converter, String normalText, String style, Duration layoutTimeBudget) {
         final Random random = new Random();
 
         if (style == null) {
@@ -199,11 +226,18 @@ public class CliMain {
         final Map<String, List<List<WrittenNomaiTextLetter>>> snippetWordsTrees = new LinkedHashMap<>();
         final Map<String, WrittenNomaiConverter.DrawablesResult> snippetShapes = new LinkedHashMap<>();
 
-        for (String snippet : snippets) {
+        // the time budget is shared equally between the branches
+        final Instant layoutDeadline = Instant.now().plus(layoutTimeBudget);
+        for (int i = 0; i < snippets.size(); i++) {
+            final String snippet = snippets.get(i);
             final List<List<String>> tokens = converter.getTokenizer().tokenizeToStringTokens(snippet);
             final List<List<WrittenNomaiTextLetter>> words = converter.getTokenizer().convertStringTokensToLetters(tokens);
             final WrittenNomaiBranchingLetterNode tree = WrittenNomaiBranchingLetterNode.fromSentence(words);
-            final WrittenNomaiConverter.DrawablesResult shapes = converter.convertNodeTreeToDrawables(random, 10, tree);
+
+            final Duration remainingTime = Duration.between(Instant.now(), layoutDeadline);
+            final Instant snippetDeadline = Instant.now().plus(remainingTime.dividedBy(snippets.size() - i));
+            final WrittenNomaiConverter.LayoutSearchResult layout = converter.convertNodeTreeToDrawables(random, snippetDeadline, tree);
+            final WrittenNomaiConverter.DrawablesResult shapes = layout.getShapes();
 
             snippetTrees.put(snippet, tree);
             snippetShapes.put(snippet, shapes);
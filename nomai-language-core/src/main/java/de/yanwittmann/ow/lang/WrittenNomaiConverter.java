@@ -3,6 +3,7 @@ package de.yanwittmann.ow.lang;
 import de.yanwittmann.ow.lang.renderer.LetterToLineConverter;
 import de.yanwittmann.ow.lang.renderer.shapes.*;
 import de.yanwittmann.ow.lang.tokenizer.WrittenNomaiBranchingLetterNode;
+import de.yanwittmann.ow.lang.tokenizer.WrittenNomaiFlatLetterTree;
 import de.yanwittmann.ow.lang.tokenizer.WrittenNomaiTextLetter;
 import de.yanwittmann.ow.lang.tokenizer.WrittenNomaiTextTokenizer;
 import org.apache.logging.log4j.LogManager;
@@ -12,8 +13,13 @@ import java.awt.*;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 public class WrittenNomaiConverter {
@@ -22,7 +28,8 @@ public class WrittenNomaiConverter {
 
     private WrittenNomaiTextTokenizer tokenizer;
     private LetterToLineConverter lineGenerator;
-    private Function<List<LetterShape>, BezierCurveCoordinateSystem> transformAlongCurveProvider;
+    private Function<List<LetterShape>, ? extends PathCoordinateSystem> transformAlongCurveProvider;
+    private int repairEvaluations = 0;
 
     public void setTokenizer(WrittenNomaiTextTokenizer tokenizer) {
         this.tokenizer = tokenizer;
@@ -32,10 +39,18 @@ public class WrittenNomaiConverter {
         this.lineGenerator = lineGenerator;
     }
 
-    public void setTransformAlongCurveProvider(Function<List<LetterShape>, BezierCurveCoordinateSystem> transformAlongCurveProvider) {
+    public void setTransformAlongCurveProvider(Function<List<LetterShape>, ? extends PathCoordinateSystem> transformAlongCurveProvider) {
         this.transformAlongCurveProvider = transformAlongCurveProvider;
     }
 
+    /**
+     * Sets the maximum amount of changes {@link LetterToLineConverter#repairIntersections} may try on the best layout
+     * of {@link #convertNodeTreeToDrawables} if it still has intersections. <code>0</code> disables the repair.
+     */
+    public void setRepairEvaluations(int repairEvaluations) {
+        this.repairEvaluations = repairEvaluations;
+    }
+
     public WrittenNomaiTextTokenizer getTokenizer() {
         return tokenizer;
     }
@@ -44,10 +59,14 @@ public class WrittenNomaiConverter {
         return lineGenerator;
     }
 
-    public Function<List<LetterShape>, BezierCurveCoordinateSystem> getTransformAlongCurveProvider() {
+    public Function<List<LetterShape>, ? extends PathCoordinateSystem> getTransformAlongCurveProvider() {
         return transformAlongCurveProvider;
     }
 
+    public int getRepairEvaluations() {
+        return repairEvaluations;
+    }
+
     public WrittenNomaiBranchingLetterNode convertTextToNodeTree(String normalText) {
         final List<List<String>> tokens = this.tokenizer.tokenizeToStringTokens(normalText);
         final List<List<WrittenNomaiTextLetter>> words = this.tokenizer.convertStringTokensToLetters(tokens);
@@ -55,41 +74,320 @@ public class WrittenNomaiConverter {
     }
 
     public DrawablesResult convertNodeTreeToDrawables(Random random, int regenerateAttempts, WrittenNomaiBranchingLetterNode rootNode) {
+        return convertNodeTreeToDrawables(random, regenerateAttempts, WrittenNomaiFlatLetterTree.fromNodeTree(rootNode));
+    }
+
+    public DrawablesResult convertNodeTreeToDrawables(Random random, int regenerateAttempts, WrittenNomaiFlatLetterTree rootNode) {
+        return convertNodeTreeToDrawables(random, regenerateAttempts, rootNode, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Lays out the tree using the given random and, if that layout has intersections, runs up to
+     * <code>regenerateAttempts</code> further layouts in parallel on the given pool. Every attempt uses its own
+     * {@link Random} with a seed that is derived from the given random using a {@link SplittableRandom}, so the result
+     * only depends on the state of the given random and never on the amount of threads or their timing:
+     * <ul>
+     *     <li>if any attempt has no intersections, the first such attempt is used and all later attempts are
+     *     cancelled</li>
+     *     <li>otherwise, the first attempt with the least intersections is used</li>
+     * </ul>
+     * If the chosen layout still has intersections and {@link #setRepairEvaluations(int) repair evaluations} are set,
+     * the letter shapes that are part of intersections are moved using
+     * {@link LetterToLineConverter#repairIntersections}, with a random that is derived the same way.
+     * The line generator and the transform along curve provider are used by multiple threads at once.
+     * <pre>
+     * final DrawablesResult result = converter.convertNodeTreeToDrawables(new Random(seed), 10, tree, new ForkJoinPool(4));
+     * </pre>
+     *
+     * @param random             The random to lay out the first attempt with and to derive the seeds of the others from.
+     * @param regenerateAttempts The maximum amount of additional attempts.
+     * @param rootNode           The tree to lay out.
+     * @param pool               The pool to run the additional attempts on.
+     * @return The layout with the least intersections.
+     */
+    public DrawablesResult convertNodeTreeToDrawables(Random random, int regenerateAttempts, WrittenNomaiFlatLetterTree rootNode, ForkJoinPool pool) {
+        if (regenerateAttempts <= 0 && repairEvaluations <= 0) {
+            return lineGenerator.generateShapes(random, rootNode, transformAlongCurveProvider);
+        }
+        return searchLayout(random, Math.max(regenerateAttempts, 0), Long.MAX_VALUE, rootNode, pool).getShapes();
+    }
+
+    public LayoutSearchResult convertNodeTreeToDrawables(Random random, Instant deadline, WrittenNomaiBranchingLetterNode rootNode) {
+        return convertNodeTreeToDrawables(random, deadline, WrittenNomaiFlatLetterTree.fromNodeTree(rootNode));
+    }
+
+    public LayoutSearchResult convertNodeTreeToDrawables(Random random, Instant deadline, WrittenNomaiFlatLetterTree rootNode) {
+        return convertNodeTreeToDrawables(random, deadline, rootNode, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Same as {@link #convertNodeTreeToDrawables(Random, int, WrittenNomaiFlatLetterTree, ForkJoinPool)}, but keeps
+     * starting new attempts until one without intersections is found or the deadline has passed, and then returns the
+     * best layout found so far. If {@link #setRepairEvaluations(int) repair evaluations} are set, the attempts only use
+     * the first half of the remaining time and the repair may use the rest.
+     * <p>
+     * The initial layout is always completed and attempts that are still running when the deadline passes are
+     * discarded once their layout is done, so the call may take up to the duration of one layout longer than the
+     * deadline. Which attempts complete depends on the time they take, but the attempts themselves and the way the best
+     * one is picked are the same as with a fixed amount of attempts.
+     * <pre>
+     * final LayoutSearchResult result = converter.convertNodeTreeToDrawables(random, Instant.now().plusMillis(1500), tree);
+     * LOG.info("Found layout with [{}] intersections after [{}] attempts", result.getIntersectionCount(), result.getAttempts());
+     * </pre>
+     *
+     * @param random   The random to lay out the first attempt with and to derive the seeds of the others from.
+     * @param deadline The time after which no new attempts are started.
+     * @param rootNode The tree to lay out.
+     * @param pool     The pool to run the additional attempts on.
+     * @return The layout with the least intersections and how it has been found.
+     */
+    public LayoutSearchResult convertNodeTreeToDrawables(Random random, Instant deadline, WrittenNomaiFlatLetterTree rootNode, ForkJoinPool pool) {
+        Objects.requireNonNull(deadline, "Deadline cannot be null!");
+        final long remainingNanos = Math.max(0, Duration.between(Instant.now(), deadline).toNanos());
+        return searchLayout(random, Integer.MAX_VALUE, System.nanoTime() + remainingNanos, rootNode, pool);
+    }
+
+    private LayoutSearchResult searchLayout(Random random, int maxAttempts, long deadlineNanoTime, WrittenNomaiFlatLetterTree rootNode, ForkJoinPool pool) {
+        Objects.requireNonNull(pool, "Pool cannot be null!");
+        final long startNanoTime = System.nanoTime();
+
         final DrawablesResult initialShapes = lineGenerator.generateShapes(random, rootNode, transformAlongCurveProvider);
-        if (regenerateAttempts <= 0) {
-            return initialShapes;
+        final int initialIntersectionCount = lineGenerator.intersectionCount(initialShapes.getDrawables());
+        if (initialIntersectionCount == 0) {
+            return new LayoutSearchResult(initialShapes, 1, 0, System.nanoTime() - startNanoTime);
         }
 
-        int bestIntersectionCount = lineGenerator.intersectionCount(initialShapes.getDrawables());
+        final SplittableRandom seedSource = new SplittableRandom(random.nextLong());
+        final long repairSeed = seedSource.nextLong();
+
+        final long attemptsDeadlineNanoTime;
+        if (repairEvaluations > 0 && deadlineNanoTime != Long.MAX_VALUE) {
+            attemptsDeadlineNanoTime = System.nanoTime() + (deadlineNanoTime - System.nanoTime()) / 2;
+        } else {
+            attemptsDeadlineNanoTime = deadlineNanoTime;
+        }
+
+        final RegenerationAttempts attempts = new RegenerationAttempts(rootNode, seedSource, maxAttempts, attemptsDeadlineNanoTime, initialShapes, initialIntersectionCount);
+        final int workerCount = Math.min(pool.getParallelism(), maxAttempts);
+        if (workerCount > 0) {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    final List<RegenerationWorker> workers = new ArrayList<>();
+                    for (int i = 0; i < workerCount; i++) {
+                        workers.add(new RegenerationWorker(attempts));
+                    }
+                    invokeAll(workers);
+                }
+            });
+        }
+
+        final int completedAttempts = attempts.completedAttempts.get();
+        DrawablesResult bestShapes = attempts.bestShapes;
+        int bestIntersectionCount = attempts.bestIntersectionCount;
+
         if (bestIntersectionCount == 0) {
-            return initialShapes;
+            LOG.info("Found valid shape after [{}] attempts", attempts.bestAttempt);
+        } else if (repairEvaluations > 0) {
+            final Instant repairDeadline = deadlineNanoTime == Long.MAX_VALUE ? null : Instant.now().plusNanos(deadlineNanoTime - System.nanoTime());
+            bestIntersectionCount = lineGenerator.repairIntersections(new Random(repairSeed), rootNode, bestShapes, repairEvaluations, repairDeadline);
+            if (bestIntersectionCount == 0) {
+                LOG.info("Found valid shape after [{}] attempts by repairing the best shape", completedAttempts);
+            }
+        }
+
+        if (bestIntersectionCount != 0) {
+            LOG.warn("Could not find valid shape after [{}] attempts, using best shape with [{}] intersections", completedAttempts, bestIntersectionCount);
+        }
+        return new LayoutSearchResult(bestShapes, completedAttempts + 1, bestIntersectionCount, System.nanoTime() - startNanoTime);
+    }
+
+    /**
+     * The shared state of the regeneration attempts of a single tree. Attempts are claimed in order of their index, so
+     * once an attempt without intersections is found, every attempt before it has already been claimed and will be
+     * completed, while every attempt after it can be skipped.
+     * <p>
+     * The best attempt so far is the one with the least intersections and, among these, the lowest index, where the
+     * initial layout has the index <code>-1</code>. An attempt only needs its exact count if it can beat the best
+     * attempt, so it stops counting at {@link #limitFor(int)}. The attempt that ends up best is never stopped, which
+     * keeps the result independent of the order in which attempts finish.
+     */
+    private static class RegenerationAttempts {
+        private final WrittenNomaiFlatLetterTree rootNode;
+        private final SplittableRandom seedSource;
+        private long[] seeds = new long[16];
+        private int seedCount;
+        private final int maxAttempts;
+        private final long deadlineNanoTime;
+        private final AtomicInteger nextAttempt = new AtomicInteger();
+        private final AtomicInteger completedAttempts = new AtomicInteger();
+
+        private DrawablesResult bestShapes;
+        private int bestIntersectionCount;
+        private int bestAttempt = -1;
+
+        private RegenerationAttempts(WrittenNomaiFlatLetterTree rootNode, SplittableRandom seedSource, int maxAttempts, long deadlineNanoTime, DrawablesResult initialShapes, int initialIntersectionCount) {
+            this.rootNode = rootNode;
+            this.seedSource = seedSource;
+            this.maxAttempts = maxAttempts;
+            this.deadlineNanoTime = deadlineNanoTime;
+            this.bestShapes = initialShapes;
+            this.bestIntersectionCount = initialIntersectionCount;
+        }
+
+        /**
+         * @return The seed of the attempt, which only depends on its index.
+         */
+        private synchronized long seedFor(int attempt) {
+            while (seedCount <= attempt) {
+                if (seedCount == seeds.length) {
+                    seeds = Arrays.copyOf(seeds, seeds.length * 2);
+                }
+                seeds[seedCount++] = seedSource.nextLong();
+            }
+            return seeds[attempt];
+        }
+
+        private boolean isExpired() {
+            return deadlineNanoTime != Long.MAX_VALUE && System.nanoTime() - deadlineNanoTime >= 0;
         }
 
-        DrawablesResult bestShapes = initialShapes;
+        private synchronized boolean isCancelled(int attempt) {
+            return bestIntersectionCount == 0 && attempt > bestAttempt;
+        }
 
-        for (int i = 0; i < regenerateAttempts; i++) {
-            final DrawablesResult shapes = lineGenerator.generateShapes(new Random(), rootNode, transformAlongCurveProvider);
-            final int intersectionCount = lineGenerator.intersectionCount(shapes.getDrawables());
-            if (intersectionCount == 0) {
-                LOG.info("Found valid shape after [{}] attempts", i);
-                return shapes;
-            } else if (intersectionCount < bestIntersectionCount) {
-                LOG.info("Found better shape after [{}] attempts: [{}]", i, intersectionCount);
+        /**
+         * @return The count the attempt has to stay below to beat the best attempt so far.
+         */
+        private synchronized int limitFor(int attempt) {
+            return attempt < bestAttempt ? bestIntersectionCount + 1 : bestIntersectionCount;
+        }
+
+        private synchronized void offer(int attempt, int intersectionCount, DrawablesResult shapes) {
+            if (intersectionCount < bestIntersectionCount || (intersectionCount == bestIntersectionCount && attempt < bestAttempt)) {
                 bestIntersectionCount = intersectionCount;
+                bestAttempt = attempt;
                 bestShapes = shapes;
             }
         }
+    }
+
+    /**
+     * Claims and runs attempts until there are none left, the deadline has passed or an earlier attempt without
+     * intersections has been found.
+     */
+    private class RegenerationWorker extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
 
-        LOG.warn("Could not find valid shape after [{}] attempts, using best shape with [{}] intersections", regenerateAttempts, bestIntersectionCount);
-        return bestShapes;
+        private final RegenerationAttempts attempts;
+
+        private RegenerationWorker(RegenerationAttempts attempts) {
+            this.attempts = attempts;
+        }
+
+        @Override
+        protected void compute() {
+            while (!attempts.isExpired()) {
+                final int attempt = attempts.nextAttempt.getAndIncrement();
+                if (attempt >= attempts.maxAttempts || attempt < 0 || attempts.isCancelled(attempt)) {
+                    return;
+                }
+
+                final DrawablesResult shapes = lineGenerator.generateShapes(new Random(attempts.seedFor(attempt)), attempts.rootNode, transformAlongCurveProvider);
+                if (attempts.isCancelled(attempt) || attempts.isExpired()) {
+                    return;
+                }
+
+                final int limit = attempts.limitFor(attempt);
+                final int intersectionCount = lineGenerator.intersectionCount(shapes.getDrawables(), limit);
+                attempts.completedAttempts.incrementAndGet();
+                if (intersectionCount < limit) {
+                    attempts.offer(attempt, intersectionCount, shapes);
+                }
+            }
+        }
     }
 
-    public static BezierCurve overrideBezierCurve = null;
+    /**
+     * The curves of {@link #lengthDependantUpwardsSpiralBezierCurveProvider(List)}. The concept behind the different
+     * curves is that they become longer and more detailed the more letters there are.
+     */
+    public static final BezierCurveTemplateRegistry UPWARDS_SPIRAL_TEMPLATES = new BezierCurveTemplateRegistry(
+            new double[]{500, 950, 1300, 1700, 2300, 3000, 4000, 5000, 6000, Double.POSITIVE_INFINITY},
+            new BezierCurveTemplate[]{
+                    // {{161, 505}, {137, 356}, {211, 174}, {338, 112}}
+                    BezierCurveTemplate.fromControlPoints(new Point2D.Double(161, 505), new Point2D.Double(30, 335), new Point2D.Double(198, 125), new Point2D.Double(337, 235)),
+                    // {{212, 495}, {26, 224}, {317, 47}, {434, 228}}
+                    BezierCurveTemplate.fromControlPoints(new Point2D.Double(284, 493), new Point2D.Double(78, 230), new Point2D.Double(389, 38), new Point2D.Double(404, 263)),
+                    // {{199, 391}, {56, 121}, {359, 194}, {251, 298}}
+                    BezierCurveTemplate.fromControlPoints(new Point2D.Double(199, 391), new Point2D.Double(28, 177), new Point2D.Double(351, 210), new Point2D.Double(237, 318)),
+                    // {{365, 1012}, {43, 440}, {369, 45}, {821, 172}, {961, 593}, {606, 741}}
+                    BezierCurveTemplate.fromControlPoints(new Point2D.Double(402, 782), new Point2D.Double(41, 316), new Point2D.Double(542, 100), new Point2D.Double(800, 260), new Point2D.Double(729, 633), new Point2D.Double(385, 455)),
+                    // {{774, 950}, {545, 126}, {1257, 330}, {1267, 711}, {884, 693}}
+                    BezierCurveTemplate.fromControlPoints(new Point2D.Double(432, 690), new Point2D.Double(146, 343), new Point2D.Double(507, 128), new Point2D.Double(870, 496), new Point2D.Double(450, 695), new Point2D.Double(462, 478)),
+                    // {{943, 934}, {458, 274}, {1417, 95}, {1460, 788}, {1070, 802}, {950, 592}}
+                    BezierCurveTemplate.fromControlPoints(new Point2D.Double(432, 690), new Point2D.Double(144, 538), new Point2D.Double(294, 214), new Point2D.Double(737, 370), new Point2D.Double(450, 695), new Point2D.Double(340, 499)),
+                    // {{970, 892}, {449, 241}, {1452, 116}, {1397, 761}, {880, 953}, {826, 534}, {1019, 509}}
+                    BezierCurveTemplate.fromControlPoints(new Point2D.Double(286, 508), new Point2D.Double(105, 324), new Point2D.Double(390, 173), new Point2D.Double(473, 479), new Point2D.Double(196, 493), new Point2D.Double(228, 341), new Point2D.Double(299, 367)),
+                    // {{934, 927}, {269, 106}, {1578, 54}, {1508, 887}, {818, 993}, {460, 545}, {1059, 276}, {1026, 552}}
+                    BezierCurveTemplate.fromControlPoints(new Point2D.Double(318, 558), new Point2D.Double(116, 300), new Point2D.Double(420, 129), new Point2D.Double(692, 554), new Point2D.Double(124, 640), new Point2D.Double(223, 293), new Point2D.Double(387, 350), new Point2D.Double(343, 413)),
+                    // {{834, 921}, {358, 294}, {1639, 113}, {1136, 1149}, {740, 1070}, {451, 356}, {1143, 453}, {935, 673}}
+                    BezierCurveTemplate.fromControlPoints(new Point2D.Double(322, 530), new Point2D.Double(108, 291), new Point2D.Double(427, 108), new Point2D.Double(717, 603), new Point2D.Double(111, 680), new Point2D.Double(64, 223), new Point2D.Double(481, 255), new Point2D.Double(368, 472), new Point2D.Double(315, 400)),
+                    // {{882, 913}, {239, 133}, {1698, 53}, {1233, 1137}, {611, 1146}, {363, 254}, {1112, 168}, {1054, 734}, {894, 593}}
+                    BezierCurveTemplate.fromControlPoints(new Point2D.Double(322, 530), new Point2D.Double(104, 284), new Point2D.Double(427, 108), new Point2D.Double(699, 595), new Point2D.Double(111, 680), new Point2D.Double(44, 204), new Point2D.Double(475, 244), new Point2D.Double(375, 483), new Point2D.Double(302, 389))
+            });
 
     public static BezierCurveCoordinateSystem lengthDependantUpwardsSpiralBezierCurveProvider(List<LetterShape> letterShapes) {
+        return lengthDependantUpwardsSpiralBezierCurveProvider(letterShapes, null);
+    }
+
+    /**
+     * Creates a curve that is as long as the letter shapes need, using the given template or the template of
+     * {@link #UPWARDS_SPIRAL_TEMPLATES} for that length. Use a lambda to pass a template to
+     * {@link #setTransformAlongCurveProvider(Function)}:
+     * <pre>
+     * converter.setTransformAlongCurveProvider(letterShapes -&gt; lengthDependantUpwardsSpiralBezierCurveProvider(letterShapes, template));
+     * </pre>
+     *
+     * @param template The template to use instead of the spiral templates, may be <code>null</code>.
+     */
+    public static BezierCurveCoordinateSystem lengthDependantUpwardsSpiralBezierCurveProvider(List<LetterShape> letterShapes, BezierCurveTemplate template) {
         if (letterShapes.isEmpty()) {
             return new BezierCurve(new Point2D.Double(0, 0), new Point2D.Double(1, 1)).getCoordinateSystem();
         }
+        final double largestX = findLargestX(letterShapes);
+
+        final BezierCurveTemplate curveTemplate = template != null ? template : UPWARDS_SPIRAL_TEMPLATES.getTemplate(largestX);
+        // the length is proportional to the scale, so the template only needs to be scaled to fit the text exactly
+        final BezierCurve curve = curveTemplate.createCurve(largestX);
+
+        LOG.info("Picked scale [{}] for x [{}]", curve.getTransformation().getScale(), largestX);
+
+        return curve.getCoordinateSystem();
+    }
+
+    /**
+     * The distance between two turns of the spiral of {@link #lengthDependantArchimedeanSpiralProvider(List)}, which
+     * is also the radius at which the text ends. This leaves enough room for the letters and their branches between the
+     * turns.
+     */
+    public static final double SPIRAL_TURN_SPACING = 450;
+
+    /**
+     * Creates an {@link ArchimedeanSpiralCoordinateSystem} that is as long as the letter shapes need. Unlike the spiral
+     * templates of {@link #lengthDependantUpwardsSpiralBezierCurveProvider(List)}, the spacing between the turns stays
+     * the same for every length: longer texts wind around the center more often instead of being scaled up, so texts
+     * of any length can be written.
+     * <pre>
+     * converter.setTransformAlongCurveProvider(WrittenNomaiConverter::lengthDependantArchimedeanSpiralProvider);
+     * </pre>
+     */
+    public static ArchimedeanSpiralCoordinateSystem lengthDependantArchimedeanSpiralProvider(List<LetterShape> letterShapes) {
+        final double largestX = letterShapes.isEmpty() ? 0 : findLargestX(letterShapes);
+        return new ArchimedeanSpiralCoordinateSystem(Math.max(1, largestX), SPIRAL_TURN_SPACING, SPIRAL_TURN_SPACING);
+    }
+
+    private static double findLargestX(List<LetterShape> letterShapes) {
         final double largestX = letterShapes.stream().mapToDouble(shape -> {
             if (shape.isLetterConsonantOrRoot()) {
                 return shape.getTransformation().getOffsetPosition().getX();
@@ -98,69 +396,7 @@ public class WrittenNomaiConverter {
             }
         }).max().orElse(0);
         LOG.info("Largest x is [{}]", largestX);
-
-        final BezierCurve curve;
-
-        if (overrideBezierCurve != null) {
-            curve = overrideBezierCurve.clone();
-        } else {
-            curve = new BezierCurve();
-
-
-            // the concept behind the different curves is that they become longer and more detailed the more letters there are
-            if (largestX < 500) {
-                // {{161, 505}, {137, 356}, {211, 174}, {338, 112}}
-                curve.addControlPoint(new Point2D.Double(161, 505), new Point2D.Double(30, 335), new Point2D.Double(198, 125), new Point2D.Double(337, 235));
-            } else if (largestX >= 500 && largestX < 950) {
-                // {{212, 495}, {26, 224}, {317, 47}, {434, 228}}
-                curve.addControlPoint(new Point2D.Double(284, 493), new Point2D.Double(78, 230), new Point2D.Double(389, 38), new Point2D.Double(404, 263));
-            } else if (largestX >= 950 && largestX < 1300) {
-                // {{199, 391}, {56, 121}, {359, 194}, {251, 298}}
-                curve.addControlPoint(new Point2D.Double(199, 391), new Point2D.Double(28, 177), new Point2D.Double(351, 210), new Point2D.Double(237, 318));
-            } else if (largestX >= 1300 && largestX < 1700) {
-                // {{365, 1012}, {43, 440}, {369, 45}, {821, 172}, {961, 593}, {606, 741}}
-                curve.addControlPoint(new Point2D.Double(402, 782), new Point2D.Double(41, 316), new Point2D.Double(542, 100), new Point2D.Double(800, 260), new Point2D.Double(729, 633), new Point2D.Double(385, 455));
-            } else if (largestX >= 1700 && largestX < 2300) {
-                // {{774, 950}, {545, 126}, {1257, 330}, {1267, 711}, {884, 693}}
-                curve.addControlPoint(new Point2D.Double(432, 690), new Point2D.Double(146, 343), new Point2D.Double(507, 128), new Point2D.Double(870, 496), new Point2D.Double(450, 695), new Point2D.Double(462, 478));
-            } else if (largestX >= 2300 && largestX < 3000) {
-                // {{943, 934}, {458, 274}, {1417, 95}, {1460, 788}, {1070, 802}, {950, 592}}
-                curve.addControlPoint(new Point2D.Double(432, 690), new Point2D.Double(144, 538), new Point2D.Double(294, 214), new Point2D.Double(737, 370), new Point2D.Double(450, 695), new Point2D.Double(340, 499));
-            } else if (largestX >= 3000 && largestX < 4000) {
-                // {{970, 892}, {449, 241}, {1452, 116}, {1397, 761}, {880, 953}, {826, 534}, {1019, 509}}
-                curve.addControlPoint(new Point2D.Double(286, 508), new Point2D.Double(105, 324), new Point2D.Double(390, 173), new Point2D.Double(473, 479), new Point2D.Double(196, 493), new Point2D.Double(228, 341), new Point2D.Double(299, 367));
-            } else if (largestX >= 4000 && largestX < 5000) {
-                // {{934, 927}, {269, 106}, {1578, 54}, {1508, 887}, {818, 993}, {460, 545}, {1059, 276}, {1026, 552}}
-                curve.addControlPoint(new Point2D.Double(318, 558), new Point2D.Double(116, 300), new Point2D.Double(420, 129), new Point2D.Double(692, 554), new Point2D.Double(124, 640), new Point2D.Double(223, 293), new Point2D.Double(387, 350), new Point2D.Double(343, 413));
-            } else if (largestX >= 5000 && largestX < 6000) {
-                // {{834, 921}, {358, 294}, {1639, 113}, {1136, 1149}, {740, 1070}, {451, 356}, {1143, 453}, {935, 673}}
-                curve.addControlPoint(new Point2D.Double(322, 530), new Point2D.Double(108, 291), new Point2D.Double(427, 108), new Point2D.Double(717, 603), new Point2D.Double(111, 680), new Point2D.Double(64, 223), new Point2D.Double(481, 255), new Point2D.Double(368, 472), new Point2D.Double(315, 400));
-            } else {
-                // {{882, 913}, {239, 133}, {1698, 53}, {1233, 1137}, {611, 1146}, {363, 254}, {1112, 168}, {1054, 734}, {894, 593}}
-                curve.addControlPoint(new Point2D.Double(322, 530), new Point2D.Double(104, 284), new Point2D.Double(427, 108), new Point2D.Double(699, 595), new Point2D.Double(111, 680), new Point2D.Double(44, 204), new Point2D.Double(475, 244), new Point2D.Double(375, 483), new Point2D.Double(302, 389));
-            }
-        }
-
-        curve.setFirstControlPointAsOrigin();
-
-        curve.getTransformation().setScale(0.5);
-        curve.recalculateAbsoluteControlPoints();
-
-        final BezierCurveCoordinateSystem coordinateSystem = curve.getCoordinateSystem();
-
-        // while the largestX does not fit, increase the scale by 0.1
-        while (curve.calculateLengthOfCurveAt(1) > largestX) {
-            curve.getTransformation().setScale(curve.getTransformation().getScale() - 0.1);
-            curve.recalculateAbsoluteControlPoints();
-        }
-        while (curve.calculateLengthOfCurveAt(1) < largestX) {
-            curve.getTransformation().setScale(curve.getTransformation().getScale() + 0.1);
-            curve.recalculateAbsoluteControlPoints();
-        }
-
-        LOG.info("Picked scale [{}] for x [{}]", curve.getTransformation().getScale(), largestX);
-
-        return coordinateSystem;
+        return largestX;
     }
 
     public List<Object> combineMultipleDrawableBranches(Collection<DrawablesResult> drawableBranches) {
@@ -183,8 +419,7 @@ public class WrittenNomaiConverter {
                 continue;
             }
 
-            final BezierCurveCoordinateSystem firstCoordinateSystem = drawablesResults.get(0).getCoordinateSystems();
-            final BezierCurve firstCurve = firstCoordinateSystem.getCurve();
+            final PathCoordinateSystem firstCoordinateSystem = drawablesResults.get(0).getCoordinateSystems();
 
 
             final double curveOffsetFactor;
@@ -225,8 +460,8 @@ public class WrittenNomaiConverter {
             LOG.info("Offset [{}] and angle [{}] with curve offset [{}]", pointOnCurveOffset, angle, curveOffset);
 
 
-            final Point2D toPointBase = firstCurve.getPointOnCurve(pointOnCurveOffset);
-            final Point2D normalAtToPoint = firstCurve.getNormalAt(pointOnCurveOffset);
+            final Point2D toPointBase = firstCoordinateSystem.getPointOnPath(pointOnCurveOffset);
+            final Point2D normalAtToPoint = firstCoordinateSystem.getNormalOnPath(pointOnCurveOffset);
             final Point2D toPoint = new Point2D.Double(toPointBase.getX() + normalAtToPoint.getX() * -curveOffset, toPointBase.getY() + normalAtToPoint.getY() * -curveOffset);
 
             final List<Object> translated = transformShapes(transformShapes(drawables, 0, 0, Math.toRadians(angle)), toPoint.getX(), toPoint.getY(), Math.toRadians(0));
@@ -300,12 +535,50 @@ public class WrittenNomaiConverter {
         return translatedDrawables;
     }
 
+    /**
+     * The best layout found by {@link #convertNodeTreeToDrawables(Random, Instant, WrittenNomaiFlatLetterTree, ForkJoinPool)}
+     * and how it has been found.
+     */
+    public static class LayoutSearchResult {
+
+        private final DrawablesResult shapes;
+        private final int attempts;
+        private final int intersectionCount;
+        private final long elapsedNanos;
+
+        public LayoutSearchResult(DrawablesResult shapes, int attempts, int intersectionCount, long elapsedNanos) {
+            this.shapes = shapes;
+            this.attempts = attempts;
+            this.intersectionCount = intersectionCount;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public DrawablesResult getShapes() {
+            return shapes;
+        }
+
+        /**
+         * @return The amount of layouts that have been completed, including the initial one.
+         */
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public int getIntersectionCount() {
+            return intersectionCount;
+        }
+
+        public Duration getElapsed() {
+            return Duration.ofNanos(elapsedNanos);
+        }
+    }
+
     public static class DrawablesResult {
 
         private final List<Object> drawables;
-        private final BezierCurveCoordinateSystem coordinateSystems;
+        private final PathCoordinateSystem coordinateSystems;
 
-        public DrawablesResult(List<Object> drawables, BezierCurveCoordinateSystem coordinateSystems) {
+        public DrawablesResult(List<Object> drawables, PathCoordinateSystem coordinateSystems) {
             this.drawables = drawables;
             this.coordinateSystems = coordinateSystems;
         }
@@ -314,7 +587,7 @@ public class WrittenNomaiConverter {
             return drawables;
         }
 
-        public BezierCurveCoordinateSystem getCoordinateSystems() {
+        public PathCoordinateSystem getCoordinateSystems() {
             return coordinateSystems;
         }
     }
@@ -0,0 +1,133 @@
+package de.yanwittmann.ow.lang.other;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A size-bounded cache that can be shared between threads. The entries are spread over several independently locked
+ * {@link LruLinkedHashMap} stripes by their hash, so threads only contend if they access the same stripe at the same
+ * time. Every stripe evicts its own least recently used entry once it exceeds its share of the capacity, which makes
+ * the eviction order approximately LRU across the whole cache.
+ *
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+public class ConcurrentLruCache<K, V> {
+
+    private static final int MAX_STRIPES = 16;
+
+    private final int capacity;
+    private final List<LruLinkedHashMap<K, V>> stripes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param capacity The maximum amount of entries in the cache. A capacity of <code>0</code> disables the cache.
+     */
+    public ConcurrentLruCache(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative: " + capacity);
+        }
+        this.capacity = capacity;
+
+        final int stripeCount = capacity == 0 ? 1 : Math.min(MAX_STRIPES, Integer.highestOneBit(capacity));
+        this.stripes = new ArrayList<>(stripeCount);
+        for (int i = 0; i < stripeCount; i++) {
+            stripes.add(new LruLinkedHashMap<>(capacity / stripeCount + (i < capacity % stripeCount ? 1 : 0)));
+        }
+    }
+
+    /**
+     * @param key The key to look up.
+     * @return The cached value or <code>null</code> if the key is not cached.
+     */
+    public V get(K key) {
+        Objects.requireNonNull(key, "Key cannot be null!");
+
+        final LruLinkedHashMap<K, V> stripe = stripeFor(key);
+        final V value;
+        synchronized (stripe) {
+            value = stripe.get(key);
+        }
+
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    public void put(K key, V value) {
+        Objects.requireNonNull(key, "Key cannot be null!");
+        Objects.requireNonNull(value, "Value cannot be null!");
+        if (capacity == 0) {
+            return;
+        }
+
+        final LruLinkedHashMap<K, V> stripe = stripeFor(key);
+        synchronized (stripe) {
+            stripe.put(key, value);
+        }
+    }
+
+    /**
+     * Returns the cached value for the key or computes and caches it. The value is computed without holding a lock,
+     * so concurrent misses on the same key may compute it more than once.
+     *
+     * @param key             The key to look up.
+     * @param mappingFunction Computes the value if the key is not cached, may return <code>null</code> to not cache
+     *                        anything.
+     * @return The cached or computed value.
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        final V cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        final V value = mappingFunction.apply(key);
+        if (value != null) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    public void clear() {
+        for (LruLinkedHashMap<K, V> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (LruLinkedHashMap<K, V> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private LruLinkedHashMap<K, V> stripeFor(K key) {
+        final int hash = key.hashCode();
+        return stripes.get((hash ^ (hash >>> 16)) & (stripes.size() - 1));
+    }
+}
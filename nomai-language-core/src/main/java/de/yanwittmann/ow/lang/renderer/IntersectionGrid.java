@@ -0,0 +1,359 @@
+package de.yanwittmann.ow.lang.renderer;
+
+import de.yanwittmann.ow.lang.renderer.shapes.LetterShape;
+import de.yanwittmann.ow.lang.renderer.shapes.PackedGeometry;
+
+import java.awt.geom.Line2D;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Uniform grid over the bounding boxes of all line segments of a list of drawables, used to count intersections
+ * between drawables without testing every pair of segments.
+ * <p>
+ * Segments are tested using {@link PackedGeometry#segmentsIntersect}, which only reports an intersection if their
+ * padded bounding boxes overlap, and two overlapping boxes always share at least one cell, so testing the segments
+ * that share a cell finds every intersection. A pair of segments that shares multiple cells is only tested in the cell
+ * that contains the lower corner of the overlap of their boxes. The only exception are two segments of length zero,
+ * which intersect no matter where they are, so these are tested separately.
+ * <p>
+ * The result is exactly the same as testing every pair of drawables using
+ * {@link LetterToLineConverter#intersectionCountPairwise(List)}, including which segments are used for connecting
+ * lines: a connecting line is shortened on both ends, unless it is tested against a letter shape that comes after it.
+ * <p>
+ * Grids with at least {@link #PARALLEL_SEGMENT_THRESHOLD} segments are counted in parallel: the cells are split into
+ * blocks that are counted by {@link CellBlockCount} tasks in the current or common {@link java.util.concurrent.ForkJoinPool}.
+ * Every pair of segments is only tested in a single cell, so the sum of the blocks is the same as the serial count.
+ */
+final class IntersectionGrid {
+
+    private static final double BOX_PADDING = PackedGeometry.BOX_PADDING;
+    /**
+     * The grid never has more cells than this factor times the amount of segments.
+     */
+    private static final int MAX_CELLS_PER_SEGMENT = 4;
+    /**
+     * Below this amount of segments, splitting the count into tasks costs more than it saves.
+     */
+    static final int PARALLEL_SEGMENT_THRESHOLD = 20_000;
+    /**
+     * A block of cells is not split further if its cells contain at most this many segments in total.
+     */
+    private static final int BLOCK_SEGMENTS = 4096;
+
+    private static final byte SHAPE_SEGMENT = 0;
+    private static final byte LINE_SEGMENT = 1;
+    private static final byte SHORTENED_LINE_SEGMENT = 2;
+
+    private int segmentCount;
+    /**
+     * <code>x1, y1, x2, y2</code> of every segment.
+     */
+    private double[] coordinates;
+    /**
+     * <code>minX, minY, maxX, maxY</code> of the padded bounding box of every segment.
+     */
+    private double[] boxes;
+    /**
+     * The index of the drawable every segment belongs to.
+     */
+    private int[] owners;
+    private byte[] kinds;
+    private boolean[] degenerate;
+    private int[] degenerateSegments = new int[0];
+    private int degenerateCount;
+
+    private double originX;
+    private double originY;
+    private double cellSize;
+    private int columns;
+    private int rows;
+    /**
+     * The segments of every cell are stored in <code>cellSegments[cellStarts[cell] .. cellStarts[cell + 1]]</code>,
+     * sorted by segment index.
+     */
+    private int[] cellStarts;
+    private int[] cellSegments;
+
+    private IntersectionGrid(int capacity) {
+        capacity = Math.max(capacity, 1);
+        this.coordinates = new double[capacity * 4];
+        this.boxes = new double[capacity * 4];
+        this.owners = new int[capacity];
+        this.kinds = new byte[capacity];
+        this.degenerate = new boolean[capacity];
+    }
+
+    static IntersectionGrid fromDrawables(List<Object> drawables) {
+        final IntersectionGrid grid = new IntersectionGrid(drawables.size() * 4);
+        final double[] shortenedLine = new double[4];
+
+        for (int i = 0; i < drawables.size(); i++) {
+            final Object drawable = drawables.get(i);
+
+            if (drawable instanceof LetterShape) {
+                final double[] polyline = ((LetterShape) drawable).getAbsoluteLineCoordinates();
+                for (int p = 0; p + 3 < polyline.length; p += 2) {
+                    grid.addSegment(i, SHAPE_SEGMENT, polyline[p], polyline[p + 1], polyline[p + 2], polyline[p + 3]);
+                }
+
+            } else if (drawable instanceof Line2D) {
+                final Line2D line = (Line2D) drawable;
+                LetterToLineConverter.shortenLineFromBothSides(line, 2, shortenedLine);
+                grid.addSegment(i, LINE_SEGMENT, line.getX1(), line.getY1(), line.getX2(), line.getY2());
+                grid.addSegment(i, SHORTENED_LINE_SEGMENT, shortenedLine[0], shortenedLine[1], shortenedLine[2], shortenedLine[3]);
+            }
+        }
+
+        grid.buildCells();
+        return grid;
+    }
+
+    private void addSegment(int owner, byte kind, double x1, double y1, double x2, double y2) {
+        if (segmentCount == owners.length) {
+            final int capacity = owners.length * 2;
+            coordinates = Arrays.copyOf(coordinates, capacity * 4);
+            boxes = Arrays.copyOf(boxes, capacity * 4);
+            owners = Arrays.copyOf(owners, capacity);
+            kinds = Arrays.copyOf(kinds, capacity);
+            degenerate = Arrays.copyOf(degenerate, capacity);
+        }
+
+        final int segment = segmentCount++;
+        final int offset = segment * 4;
+        coordinates[offset] = x1;
+        coordinates[offset + 1] = y1;
+        coordinates[offset + 2] = x2;
+        coordinates[offset + 3] = y2;
+        boxes[offset] = Math.min(x1, x2) - BOX_PADDING;
+        boxes[offset + 1] = Math.min(y1, y2) - BOX_PADDING;
+        boxes[offset + 2] = Math.max(x1, x2) + BOX_PADDING;
+        boxes[offset + 3] = Math.max(y1, y2) + BOX_PADDING;
+        owners[segment] = owner;
+        kinds[segment] = kind;
+
+        if (x1 == x2 && y1 == y2) {
+            degenerate[segment] = true;
+            if (degenerateCount == degenerateSegments.length) {
+                degenerateSegments = Arrays.copyOf(degenerateSegments, Math.max(8, degenerateCount * 2));
+            }
+            degenerateSegments[degenerateCount++] = segment;
+        }
+    }
+
+    private void buildCells() {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        double extentSum = 0;
+        for (int segment = 0; segment < segmentCount; segment++) {
+            final int offset = segment * 4;
+            minX = Math.min(minX, boxes[offset]);
+            minY = Math.min(minY, boxes[offset + 1]);
+            maxX = Math.max(maxX, boxes[offset + 2]);
+            maxY = Math.max(maxY, boxes[offset + 3]);
+            extentSum += Math.max(boxes[offset + 2] - boxes[offset], boxes[offset + 3] - boxes[offset + 1]);
+        }
+
+        if (segmentCount == 0 || !Double.isFinite(maxX - minX) || !Double.isFinite(maxY - minY)) {
+            // a single cell containing every segment tests every pair
+            originX = 0;
+            originY = 0;
+            cellSize = Double.POSITIVE_INFINITY;
+            columns = 1;
+            rows = 1;
+        } else {
+            // cells about the size of an average segment, but not so small that the grid becomes sparse
+            originX = minX;
+            originY = minY;
+            cellSize = Math.max(extentSum / segmentCount, BOX_PADDING);
+            final long maxCells = (long) segmentCount * MAX_CELLS_PER_SEGMENT;
+            while (((long) ((maxX - minX) / cellSize) + 1) * ((long) ((maxY - minY) / cellSize) + 1) > maxCells) {
+                cellSize *= 2;
+            }
+            columns = (int) ((maxX - minX) / cellSize) + 1;
+            rows = (int) ((maxY - minY) / cellSize) + 1;
+        }
+
+        // counting sort of the segments into the cells their boxes overlap
+        cellStarts = new int[columns * rows + 1];
+        for (int segment = 0; segment < segmentCount; segment++) {
+            final int offset = segment * 4;
+            final int fromColumn = column(boxes[offset]), toColumn = column(boxes[offset + 2]);
+            final int fromRow = row(boxes[offset + 1]), toRow = row(boxes[offset + 3]);
+            for (int row = fromRow; row <= toRow; row++) {
+                for (int column = fromColumn; column <= toColumn; column++) {
+                    cellStarts[row * columns + column + 1]++;
+                }
+            }
+        }
+        for (int cell = 0; cell < columns * rows; cell++) {
+            cellStarts[cell + 1] += cellStarts[cell];
+        }
+
+        cellSegments = new int[cellStarts[columns * rows]];
+        final int[] cellFill = Arrays.copyOf(cellStarts, columns * rows);
+        for (int segment = 0; segment < segmentCount; segment++) {
+            final int offset = segment * 4;
+            final int fromColumn = column(boxes[offset]), toColumn = column(boxes[offset + 2]);
+            final int fromRow = row(boxes[offset + 1]), toRow = row(boxes[offset + 3]);
+            for (int row = fromRow; row <= toRow; row++) {
+                for (int column = fromColumn; column <= toColumn; column++) {
+                    cellSegments[cellFill[row * columns + column]++] = segment;
+                }
+            }
+        }
+    }
+
+    private int column(double x) {
+        return Math.min(columns - 1, Math.max(0, (int) Math.floor((x - originX) / cellSize)));
+    }
+
+    private int row(double y) {
+        return Math.min(rows - 1, Math.max(0, (int) Math.floor((y - originY) / cellSize)));
+    }
+
+    int countIntersections() {
+        return countIntersections(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Counts the intersections, but stops as soon as the count reaches the limit.
+     *
+     * @return The amount of intersections, or the limit if there are at least as many intersections.
+     */
+    int countIntersections(int limit) {
+        return countIntersections(limit, segmentCount >= PARALLEL_SEGMENT_THRESHOLD);
+    }
+
+    /**
+     * @param parallel Whether to count the blocks of cells in parallel, independent of the amount of segments.
+     */
+    int countIntersections(int limit, boolean parallel) {
+        if (limit <= 0) {
+            return limit;
+        }
+
+        int count = parallel
+                ? new CellBlockCount(0, columns * rows, limit).invoke()
+                : countCells(0, columns * rows, limit);
+
+        for (int i = 0; i < degenerateCount && count < limit; i++) {
+            for (int j = i + 1; j < degenerateCount; j++) {
+                if (intersectsDegenerate(degenerateSegments[i], degenerateSegments[j]) && ++count >= limit) {
+                    return count;
+                }
+            }
+        }
+
+        return Math.min(count, limit);
+    }
+
+    private int countCells(int fromCell, int toCell, int limit) {
+        int count = 0;
+
+        for (int cell = fromCell; cell < toCell; cell++) {
+            final int cellEnd = cellStarts[cell + 1];
+            for (int i = cellStarts[cell]; i < cellEnd; i++) {
+                final int segmentA = cellSegments[i];
+                for (int j = i + 1; j < cellEnd; j++) {
+                    if (intersects(cell, segmentA, cellSegments[j]) && ++count >= limit) {
+                        return count;
+                    }
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Counts the intersections in the cells <code>fromCell .. toCell</code> by splitting them in halves until the
+     * blocks contain at most {@link #BLOCK_SEGMENTS} segments. Every block stops at the limit on its own and the sum is
+     * capped at the limit, so a result below the limit is always exact.
+     */
+    private final class CellBlockCount extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final int fromCell;
+        private final int toCell;
+        private final int limit;
+
+        private CellBlockCount(int fromCell, int toCell, int limit) {
+            this.fromCell = fromCell;
+            this.toCell = toCell;
+            this.limit = limit;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (toCell - fromCell <= 1 || cellStarts[toCell] - cellStarts[fromCell] <= BLOCK_SEGMENTS) {
+                return countCells(fromCell, toCell, limit);
+            }
+
+            final int middleCell = (fromCell + toCell) >>> 1;
+            final CellBlockCount lower = new CellBlockCount(fromCell, middleCell, limit);
+            final CellBlockCount upper = new CellBlockCount(middleCell, toCell, limit);
+            upper.fork();
+            final int lowerCount = lower.compute();
+            return (int) Math.min(limit, (long) lowerCount + upper.join());
+        }
+    }
+
+    private boolean intersects(int cell, int segmentA, int segmentB) {
+        final int ownerA = owners[segmentA];
+        final int ownerB = owners[segmentB];
+        if (ownerA == ownerB || !isTestedAgainst(kinds[segmentA], kinds[segmentB], ownerA < ownerB)) {
+            return false;
+        }
+        if (degenerate[segmentA] && degenerate[segmentB]) {
+            return false;
+        }
+
+        final int offsetA = segmentA * 4;
+        final int offsetB = segmentB * 4;
+        final double overlapMinX = Math.max(boxes[offsetA], boxes[offsetB]);
+        final double overlapMinY = Math.max(boxes[offsetA + 1], boxes[offsetB + 1]);
+        if (overlapMinX > Math.min(boxes[offsetA + 2], boxes[offsetB + 2]) || overlapMinY > Math.min(boxes[offsetA + 3], boxes[offsetB + 3])) {
+            return false;
+        }
+        if (row(overlapMinY) * columns + column(overlapMinX) != cell) {
+            return false;
+        }
+
+        return PackedGeometry.segmentsIntersect(
+                coordinates[offsetA], coordinates[offsetA + 1], coordinates[offsetA + 2], coordinates[offsetA + 3],
+                coordinates[offsetB], coordinates[offsetB + 1], coordinates[offsetB + 2], coordinates[offsetB + 3]);
+    }
+
+    private boolean intersectsDegenerate(int segmentA, int segmentB) {
+        final int ownerA = owners[segmentA];
+        final int ownerB = owners[segmentB];
+        if (ownerA == ownerB || !isTestedAgainst(kinds[segmentA], kinds[segmentB], ownerA < ownerB)) {
+            return false;
+        }
+
+        final int offsetA = segmentA * 4;
+        final int offsetB = segmentB * 4;
+        return PackedGeometry.segmentsIntersect(
+                coordinates[offsetA], coordinates[offsetA + 1], coordinates[offsetA + 2], coordinates[offsetA + 3],
+                coordinates[offsetB], coordinates[offsetB + 1], coordinates[offsetB + 2], coordinates[offsetB + 3]);
+    }
+
+    /**
+     * Mirrors which segments {@link LetterToLineConverter} uses when testing a pair of drawables: connecting lines are
+     * shortened, unless a line is tested against a letter shape that comes after it.
+     */
+    private static boolean isTestedAgainst(byte kindA, byte kindB, boolean aIsFirst) {
+        final byte first = aIsFirst ? kindA : kindB;
+        final byte second = aIsFirst ? kindB : kindA;
+
+        if (first == SHAPE_SEGMENT) {
+            return second != LINE_SEGMENT;
+        } else if (first == LINE_SEGMENT) {
+            return second == SHAPE_SEGMENT;
+        } else {
+            return second == SHORTENED_LINE_SEGMENT;
+        }
+    }
+}
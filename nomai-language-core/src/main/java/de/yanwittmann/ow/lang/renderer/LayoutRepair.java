@@ -0,0 +1,166 @@
+package de.yanwittmann.ow.lang.renderer;
+
+import de.yanwittmann.ow.lang.renderer.shapes.LetterShape;
+import de.yanwittmann.ow.lang.renderer.shapes.ShapeTransformation;
+import de.yanwittmann.ow.lang.tokenizer.WrittenNomaiFlatLetterTree;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.awt.geom.Line2D;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Removes intersections from a layout by hill climbing: a letter shape that is part of an intersection is given a new
+ * random transformation near its original position, its connecting lines are regenerated and the change is kept if the
+ * amount of intersections does not increase.
+ * <p>
+ * The intersections are kept up to date in a {@link LayoutWorkspace}: a change only affects the pairs of drawables that
+ * contain the moved letter shape or one of its connecting lines, so only these are tested again.
+ * <p>
+ * The layout is expected to consist of the letter shapes, followed by one connecting line for every pair of
+ * {@link LetterToLineConverter#findConnectedLetterShapes(WrittenNomaiFlatLetterTree, List)}, as created by
+ * {@link LetterToLineConverter#generateShapes(Random, WrittenNomaiFlatLetterTree, java.util.function.Function)}.
+ */
+final class LayoutRepair {
+
+    private static final Logger LOG = LogManager.getLogger(LayoutRepair.class);
+
+    private final LetterToLineConverter lineGenerator;
+    private final List<Object> drawables;
+
+    private final LetterShape[] letterShapes;
+    private final Point2D[] originalPositions;
+    /**
+     * The drawable indices of the connecting lines of every letter shape.
+     */
+    private final int[][] connectingLines;
+    /**
+     * The indices of the two letter shapes every connecting line connects, indexed by drawable index.
+     */
+    private final int[] lineStarts;
+    private final int[] lineEnds;
+
+    private final LayoutWorkspace workspace;
+
+    LayoutRepair(LetterToLineConverter lineGenerator, WrittenNomaiFlatLetterTree nodeTree, List<Object> drawables) {
+        this.lineGenerator = lineGenerator;
+        this.drawables = drawables;
+
+        int letterShapeCount = 0;
+        while (letterShapeCount < drawables.size() && drawables.get(letterShapeCount) instanceof LetterShape) {
+            letterShapeCount++;
+        }
+        this.letterShapes = new LetterShape[letterShapeCount];
+        this.originalPositions = new Point2D[letterShapeCount];
+        final Map<LetterShape, Integer> letterShapeIndices = new IdentityHashMap<>();
+        for (int i = 0; i < letterShapeCount; i++) {
+            letterShapes[i] = (LetterShape) drawables.get(i);
+            originalPositions[i] = letterShapes[i].getTransformation().getOffsetPosition();
+            letterShapeIndices.put(letterShapes[i], i);
+        }
+
+        final List<LetterShape[]> connectedLetterShapes = LetterToLineConverter.findConnectedLetterShapes(nodeTree, Arrays.asList(letterShapes));
+        if (letterShapeCount + connectedLetterShapes.size() != drawables.size()) {
+            throw new IllegalArgumentException("Drawables have not been generated from the tree, expected [" + (letterShapeCount + connectedLetterShapes.size()) + "] drawables, got [" + drawables.size() + "]");
+        }
+
+        this.lineStarts = new int[drawables.size()];
+        this.lineEnds = new int[drawables.size()];
+        final List<List<Integer>> linesPerLetterShape = new ArrayList<>();
+        for (int i = 0; i < letterShapeCount; i++) {
+            linesPerLetterShape.add(new ArrayList<>());
+        }
+        for (int i = 0; i < connectedLetterShapes.size(); i++) {
+            final int line = letterShapeCount + i;
+            if (!(drawables.get(line) instanceof Line2D)) {
+                throw new IllegalArgumentException("Expected a connecting line at [" + line + "], got " + drawables.get(line));
+            }
+            lineStarts[line] = letterShapeIndices.get(connectedLetterShapes.get(i)[0]);
+            lineEnds[line] = letterShapeIndices.get(connectedLetterShapes.get(i)[1]);
+            linesPerLetterShape.get(lineStarts[line]).add(line);
+            linesPerLetterShape.get(lineEnds[line]).add(line);
+        }
+        this.connectingLines = new int[letterShapeCount][];
+        for (int i = 0; i < letterShapeCount; i++) {
+            connectingLines[i] = linesPerLetterShape.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        this.workspace = new LayoutWorkspace(drawables);
+    }
+
+    /**
+     * @return The amount of intersections after the repair.
+     * @param deadlineNanoTime The {@link System#nanoTime()} after which no more changes are tried, or
+     *                         {@link Long#MAX_VALUE} for no deadline.
+     */
+    int repair(Random random, int maxEvaluations, long deadlineNanoTime) {
+        final int initialIntersectionCount = workspace.getIntersectionCount();
+        int evaluations = 0;
+
+        while (workspace.getIntersectionCount() > 0 && evaluations < maxEvaluations) {
+            if (deadlineNanoTime != Long.MAX_VALUE && System.nanoTime() - deadlineNanoTime >= 0) {
+                break;
+            }
+            final int letterShape = pickIntersectingLetterShape(random);
+            if (letterShape < 0) {
+                break;
+            }
+            tryMove(random, letterShape);
+            evaluations++;
+        }
+
+        LOG.info("Repaired layout from [{}] to [{}] intersections in [{}] evaluations", initialIntersectionCount, workspace.getIntersectionCount(), evaluations);
+        return workspace.getIntersectionCount();
+    }
+
+    private int pickIntersectingLetterShape(Random random) {
+        final int intersectingCount = workspace.getIntersectingDrawableCount();
+        if (intersectingCount == 0) {
+            return -1;
+        }
+        final int drawable = workspace.getIntersectingDrawable(random.nextInt(intersectingCount));
+        if (drawable < letterShapes.length) {
+            return drawable;
+        }
+        // a connecting line can only be moved by moving one of the letter shapes it connects
+        return random.nextBoolean() ? lineStarts[drawable] : lineEnds[drawable];
+    }
+
+    private void tryMove(Random random, int letterShape) {
+        final int[] lines = connectingLines[letterShape];
+        final int intersectionsBefore = workspace.getIntersectionCount();
+
+        final LetterShape shape = letterShapes[letterShape];
+        final ShapeTransformation previousTransformation = shape.getTransformation();
+        final Object[] previousLines = new Object[lines.length];
+
+        shape.setTransformation(new ShapeTransformation(previousTransformation));
+        lineGenerator.randomizeTransformation(random, shape, originalPositions[letterShape]);
+        for (int i = 0; i < lines.length; i++) {
+            previousLines[i] = drawables.get(lines[i]);
+            drawables.set(lines[i], lineGenerator.findClosestBranchingPointsConnectingLine(letterShapes[lineStarts[lines[i]]], letterShapes[lineEnds[lines[i]]]));
+        }
+        updateWorkspace(letterShape, lines);
+
+        if (workspace.getIntersectionCount() > intersectionsBefore) {
+            shape.setTransformation(previousTransformation);
+            for (int i = 0; i < lines.length; i++) {
+                drawables.set(lines[i], previousLines[i]);
+            }
+            updateWorkspace(letterShape, lines);
+        }
+    }
+
+    private void updateWorkspace(int letterShape, int[] lines) {
+        workspace.update(letterShape);
+        for (int line : lines) {
+            workspace.update(line);
+        }
+    }
+}
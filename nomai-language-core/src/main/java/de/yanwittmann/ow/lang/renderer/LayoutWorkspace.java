@@ -0,0 +1,403 @@
+package de.yanwittmann.ow.lang.renderer;
+
+import de.yanwittmann.ow.lang.renderer.shapes.LetterShape;
+import de.yanwittmann.ow.lang.renderer.shapes.PackedGeometry;
+
+import java.awt.geom.Line2D;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps track of which drawables of a layout intersect each other while the layout is being changed. For every
+ * drawable, the workspace stores the other drawables it intersects and how often, along with the total amount of
+ * intersections, which is the same as {@link LetterToLineConverter#intersectionCountPairwise(List)} would return.
+ * <p>
+ * The drawables are stored in a uniform grid by their bounding boxes. When a drawable changes, only the pairs that
+ * contain it are removed and tested again, against the drawables that share a cell with it. Building the workspace and
+ * updating a drawable therefore only depend on the amount of drawables close to each other, not on the size of the
+ * layout. Drawables that contain segments of length zero are additionally tested against each other, since
+ * {@link Line2D#linesIntersect} reports these as intersecting no matter where they are.
+ * <pre>
+ * final LayoutWorkspace workspace = new LayoutWorkspace(drawables);
+ * letterShape.getTransformation().setOffsetPosition(newPosition);
+ * workspace.update(drawables.indexOf(letterShape));
+ * final int intersections = workspace.getIntersectionCount();
+ * </pre>
+ */
+final class LayoutWorkspace {
+
+    private static final double BOX_PADDING = PackedGeometry.BOX_PADDING;
+    /**
+     * The grid never has more cells than this factor times the amount of drawables.
+     */
+    private static final int MAX_CELLS_PER_DRAWABLE = 4;
+
+    private final List<Object> drawables;
+
+    /**
+     * <code>minX, minY, maxX, maxY</code> of the padded bounding box of every drawable.
+     */
+    private final double[] boxes;
+    private final boolean[] active;
+    private final boolean[] degenerate;
+    private final IntList degenerateDrawables = new IntList();
+
+    private double originX;
+    private double originY;
+    private double cellSize;
+    private int columns;
+    private int rows;
+    private final IntList[] cells;
+    /**
+     * <code>fromColumn, fromRow, toColumn, toRow</code> of the cells every drawable is stored in.
+     */
+    private final int[] cellRanges;
+
+    /**
+     * <code>other, count</code> for every drawable the drawable intersects with.
+     */
+    private final IntList[] partners;
+    private final int[] intersectionsPerDrawable;
+    private int intersectionCount;
+
+    /**
+     * The drawables that are part of at least one intersection, in no particular order.
+     */
+    private final IntList intersecting = new IntList();
+    private final int[] intersectingPositions;
+
+    private final int[] visited;
+    private int visitStamp;
+    private final double[] shortenedLineA = new double[4];
+    private final double[] shortenedLineB = new double[4];
+
+    /**
+     * @param drawables The drawables, other objects than {@link LetterShape}s and {@link Line2D}s are ignored. The list
+     *                  is not copied, changed drawables have to be passed to {@link #update(int)}.
+     */
+    LayoutWorkspace(List<Object> drawables) {
+        this.drawables = drawables;
+        final int size = drawables.size();
+
+        this.boxes = new double[size * 4];
+        this.active = new boolean[size];
+        this.degenerate = new boolean[size];
+        this.cellRanges = new int[size * 4];
+        this.partners = new IntList[size];
+        this.intersectionsPerDrawable = new int[size];
+        this.intersectingPositions = new int[size];
+        this.visited = new int[size];
+        Arrays.fill(intersectingPositions, -1);
+
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        double extentSum = 0;
+        int activeCount = 0;
+        for (int drawable = 0; drawable < size; drawable++) {
+            partners[drawable] = new IntList();
+            measure(drawable);
+            if (!active[drawable]) {
+                continue;
+            }
+            final int offset = drawable * 4;
+            minX = Math.min(minX, boxes[offset]);
+            minY = Math.min(minY, boxes[offset + 1]);
+            maxX = Math.max(maxX, boxes[offset + 2]);
+            maxY = Math.max(maxY, boxes[offset + 3]);
+            extentSum += Math.max(boxes[offset + 2] - boxes[offset], boxes[offset + 3] - boxes[offset + 1]);
+            activeCount++;
+        }
+
+        if (activeCount == 0 || !Double.isFinite(maxX - minX) || !Double.isFinite(maxY - minY)) {
+            // a single cell containing every drawable tests every pair
+            originX = 0;
+            originY = 0;
+            cellSize = Double.POSITIVE_INFINITY;
+            columns = 1;
+            rows = 1;
+        } else {
+            // drawables that move outside of the initial area end up in the cells at its border
+            originX = minX;
+            originY = minY;
+            cellSize = Math.max(extentSum / activeCount, BOX_PADDING);
+            final long maxCells = (long) activeCount * MAX_CELLS_PER_DRAWABLE;
+            while (((long) ((maxX - minX) / cellSize) + 1) * ((long) ((maxY - minY) / cellSize) + 1) > maxCells) {
+                cellSize *= 2;
+            }
+            columns = (int) ((maxX - minX) / cellSize) + 1;
+            rows = (int) ((maxY - minY) / cellSize) + 1;
+        }
+
+        cells = new IntList[columns * rows];
+        for (int drawable = 0; drawable < size; drawable++) {
+            insert(drawable);
+        }
+        for (int drawable = 0; drawable < size; drawable++) {
+            addPairs(drawable, true);
+        }
+    }
+
+    /**
+     * Tests the drawable at the given index again. Has to be called after the drawable has been moved or replaced in
+     * the list of drawables.
+     */
+    void update(int drawable) {
+        removePairs(drawable);
+        remove(drawable);
+        measure(drawable);
+        insert(drawable);
+        addPairs(drawable, false);
+    }
+
+    int getIntersectionCount() {
+        return intersectionCount;
+    }
+
+    int getIntersectionCount(int drawable) {
+        return intersectionsPerDrawable[drawable];
+    }
+
+    /**
+     * @return The lowest index of the drawables the drawable intersects with, or <code>-1</code> if there is none.
+     */
+    int findFirstIntersecting(int drawable) {
+        final IntList drawablePartners = partners[drawable];
+        int first = -1;
+        for (int i = 0; i < drawablePartners.size; i += 2) {
+            if (first < 0 || drawablePartners.values[i] < first) {
+                first = drawablePartners.values[i];
+            }
+        }
+        return first;
+    }
+
+    int getIntersectingDrawableCount() {
+        return intersecting.size;
+    }
+
+    /**
+     * @return The index of one of the drawables that are part of an intersection.
+     */
+    int getIntersectingDrawable(int index) {
+        return intersecting.values[index];
+    }
+
+    private void addPairs(int drawable, boolean onlyLaterDrawables) {
+        if (!active[drawable]) {
+            return;
+        }
+        if (++visitStamp == 0) {
+            Arrays.fill(visited, 0);
+            visitStamp = 1;
+        }
+        visited[drawable] = visitStamp;
+
+        final int rangeOffset = drawable * 4;
+        for (int row = cellRanges[rangeOffset + 1]; row <= cellRanges[rangeOffset + 3]; row++) {
+            for (int column = cellRanges[rangeOffset]; column <= cellRanges[rangeOffset + 2]; column++) {
+                final IntList cell = cells[row * columns + column];
+                for (int i = 0; i < cell.size; i++) {
+                    testPair(drawable, cell.values[i], onlyLaterDrawables, true);
+                }
+            }
+        }
+
+        if (degenerate[drawable]) {
+            for (int i = 0; i < degenerateDrawables.size; i++) {
+                testPair(drawable, degenerateDrawables.values[i], onlyLaterDrawables, false);
+            }
+        }
+    }
+
+    private void testPair(int drawable, int other, boolean onlyLaterDrawables, boolean checkBoxes) {
+        if (visited[other] == visitStamp || (onlyLaterDrawables && other < drawable)) {
+            return;
+        }
+        visited[other] = visitStamp;
+
+        if (checkBoxes) {
+            final int offset = drawable * 4;
+            final int otherOffset = other * 4;
+            if (boxes[offset] > boxes[otherOffset + 2] || boxes[otherOffset] > boxes[offset + 2]
+                || boxes[offset + 1] > boxes[otherOffset + 3] || boxes[otherOffset + 1] > boxes[offset + 3]) {
+                return;
+            }
+        }
+
+        final int first = Math.min(drawable, other);
+        final int second = Math.max(drawable, other);
+        final int count = LetterToLineConverter.intersectionCount(drawables.get(first), drawables.get(second), shortenedLineA, shortenedLineB);
+        if (count > 0) {
+            partners[drawable].add(other, count);
+            partners[other].add(drawable, count);
+            changeIntersections(drawable, count);
+            changeIntersections(other, count);
+            intersectionCount += count;
+        }
+    }
+
+    private void removePairs(int drawable) {
+        final IntList drawablePartners = partners[drawable];
+        for (int i = 0; i < drawablePartners.size; i += 2) {
+            final int other = drawablePartners.values[i];
+            final int count = drawablePartners.values[i + 1];
+            partners[other].removePair(drawable);
+            changeIntersections(drawable, -count);
+            changeIntersections(other, -count);
+            intersectionCount -= count;
+        }
+        drawablePartners.size = 0;
+    }
+
+    private void changeIntersections(int drawable, int change) {
+        final boolean wasIntersecting = intersectionsPerDrawable[drawable] > 0;
+        intersectionsPerDrawable[drawable] += change;
+        final boolean isIntersecting = intersectionsPerDrawable[drawable] > 0;
+
+        if (!wasIntersecting && isIntersecting) {
+            intersectingPositions[drawable] = intersecting.size;
+            intersecting.add(drawable);
+        } else if (wasIntersecting && !isIntersecting) {
+            final int position = intersectingPositions[drawable];
+            final int last = intersecting.values[--intersecting.size];
+            intersecting.values[position] = last;
+            intersectingPositions[last] = position;
+            intersectingPositions[drawable] = -1;
+        }
+    }
+
+    private void insert(int drawable) {
+        if (!active[drawable]) {
+            return;
+        }
+        final int offset = drawable * 4;
+        final int fromColumn = column(boxes[offset]), toColumn = column(boxes[offset + 2]);
+        final int fromRow = row(boxes[offset + 1]), toRow = row(boxes[offset + 3]);
+        cellRanges[offset] = fromColumn;
+        cellRanges[offset + 1] = fromRow;
+        cellRanges[offset + 2] = toColumn;
+        cellRanges[offset + 3] = toRow;
+
+        for (int row = fromRow; row <= toRow; row++) {
+            for (int column = fromColumn; column <= toColumn; column++) {
+                final int cell = row * columns + column;
+                if (cells[cell] == null) {
+                    cells[cell] = new IntList();
+                }
+                cells[cell].add(drawable);
+            }
+        }
+        if (degenerate[drawable]) {
+            degenerateDrawables.add(drawable);
+        }
+    }
+
+    private void remove(int drawable) {
+        if (!active[drawable]) {
+            return;
+        }
+        final int offset = drawable * 4;
+        for (int row = cellRanges[offset + 1]; row <= cellRanges[offset + 3]; row++) {
+            for (int column = cellRanges[offset]; column <= cellRanges[offset + 2]; column++) {
+                cells[row * columns + column].removeValue(drawable);
+            }
+        }
+        if (degenerate[drawable]) {
+            degenerateDrawables.removeValue(drawable);
+        }
+    }
+
+    /**
+     * Computes the box of the drawable and whether any of the segments that are tested for it have a length of zero.
+     */
+    private void measure(int drawable) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        boolean hasDegenerateSegment = false;
+
+        final Object object = drawables.get(drawable);
+        if (object instanceof LetterShape) {
+            final double[] coordinates = ((LetterShape) object).getAbsoluteLineCoordinates();
+            for (int i = 0; i + 1 < coordinates.length; i += 2) {
+                minX = Math.min(minX, coordinates[i]);
+                minY = Math.min(minY, coordinates[i + 1]);
+                maxX = Math.max(maxX, coordinates[i]);
+                maxY = Math.max(maxY, coordinates[i + 1]);
+                if (i + 3 < coordinates.length && coordinates[i] == coordinates[i + 2] && coordinates[i + 1] == coordinates[i + 3]) {
+                    hasDegenerateSegment = true;
+                }
+            }
+            active[drawable] = coordinates.length >= 4;
+
+        } else if (object instanceof Line2D) {
+            // lines shorter than the amount they are shortened by end up reversed and can leave their own box
+            final Line2D line = (Line2D) object;
+            LetterToLineConverter.shortenLineFromBothSides(line, 2, shortenedLineA);
+            minX = Math.min(Math.min(line.getX1(), line.getX2()), Math.min(shortenedLineA[0], shortenedLineA[2]));
+            minY = Math.min(Math.min(line.getY1(), line.getY2()), Math.min(shortenedLineA[1], shortenedLineA[3]));
+            maxX = Math.max(Math.max(line.getX1(), line.getX2()), Math.max(shortenedLineA[0], shortenedLineA[2]));
+            maxY = Math.max(Math.max(line.getY1(), line.getY2()), Math.max(shortenedLineA[1], shortenedLineA[3]));
+            hasDegenerateSegment = (line.getX1() == line.getX2() && line.getY1() == line.getY2())
+                                   || (shortenedLineA[0] == shortenedLineA[2] && shortenedLineA[1] == shortenedLineA[3]);
+            active[drawable] = true;
+
+        } else {
+            active[drawable] = false;
+        }
+
+        final int offset = drawable * 4;
+        boxes[offset] = minX - BOX_PADDING;
+        boxes[offset + 1] = minY - BOX_PADDING;
+        boxes[offset + 2] = maxX + BOX_PADDING;
+        boxes[offset + 3] = maxY + BOX_PADDING;
+        degenerate[drawable] = hasDegenerateSegment;
+    }
+
+    private int column(double x) {
+        return Math.min(columns - 1, Math.max(0, (int) Math.floor((x - originX) / cellSize)));
+    }
+
+    private int row(double y) {
+        return Math.min(rows - 1, Math.max(0, (int) Math.floor((y - originY) / cellSize)));
+    }
+
+    private static class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private void add(int first, int second) {
+            add(first);
+            add(second);
+        }
+
+        private void removeValue(int value) {
+            for (int i = 0; i < size; i++) {
+                if (values[i] == value) {
+                    values[i] = values[--size];
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Removes the pair <code>value, count</code> that starts with the value from a list of pairs.
+         */
+        private void removePair(int value) {
+            for (int i = 0; i < size; i += 2) {
+                if (values[i] == value) {
+                    values[i] = values[size - 2];
+                    values[i + 1] = values[size - 1];
+                    size -= 2;
+                    return;
+                }
+            }
+        }
+    }
+}
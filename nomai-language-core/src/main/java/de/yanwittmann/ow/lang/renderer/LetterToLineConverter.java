@@ -3,16 +3,22 @@ package de.yanwittmann.ow.lang.renderer;
 import de.yanwittmann.ow.lang.WrittenNomaiConverter;
 import de.yanwittmann.ow.lang.other.RandomBetweenDouble;
 import de.yanwittmann.ow.lang.other.RandomBetweenInteger;
-import de.yanwittmann.ow.lang.renderer.shapes.BezierCurveCoordinateSystem;
 import de.yanwittmann.ow.lang.renderer.shapes.LetterShape;
+import de.yanwittmann.ow.lang.renderer.shapes.PackedGeometry;
+import de.yanwittmann.ow.lang.renderer.shapes.PathCoordinateSystem;
+import de.yanwittmann.ow.lang.renderer.shapes.ShapeTransformation;
 import de.yanwittmann.ow.lang.tokenizer.WrittenNomaiBranchingLetterNode;
+import de.yanwittmann.ow.lang.tokenizer.WrittenNomaiFlatLetterTree;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Random;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -37,13 +43,21 @@ public class LetterToLineConverter {
     private RandomBetweenInteger randomOuterElementsStartPointHorizontalOffset = new RandomBetweenInteger(-10, 20);
 
 
-    public WrittenNomaiConverter.DrawablesResult generateShapes(Random random, WrittenNomaiBranchingLetterNode nodeTree, Function<List<LetterShape>, BezierCurveCoordinateSystem> transformAlongCurveProvider) {
+    public WrittenNomaiConverter.DrawablesResult generateShapes(Random random, WrittenNomaiBranchingLetterNode nodeTree, Function<List<LetterShape>, ? extends PathCoordinateSystem> transformAlongCurveProvider) {
+        return generateShapes(random, WrittenNomaiFlatLetterTree.fromNodeTree(nodeTree), transformAlongCurveProvider);
+    }
+
+    /**
+     * Lays out the letters of the tree. The resulting letter shapes reference the nodes of the tree by their index
+     * using {@link LetterShape#getSourceIndex()}.
+     */
+    public WrittenNomaiConverter.DrawablesResult generateShapes(Random random, WrittenNomaiFlatLetterTree nodeTree, Function<List<LetterShape>, ? extends PathCoordinateSystem> transformAlongCurveProvider) {
         LOG.info("Generating shapes for node tree with depth [{}]", nodeTree.getDepth());
 
         final List<LetterShape> letterShapes = distributeLetterShapes(random, nodeTree);
         LOG.info("Distributed [{}] letter shapes", letterShapes.size());
 
-        final BezierCurveCoordinateSystem curve;
+        final PathCoordinateSystem curve;
 
         if (transformAlongCurveProvider != null) {
             curve = transformAlongCurveProvider.apply(letterShapes);
@@ -54,12 +68,12 @@ public class LetterToLineConverter {
 
         if (curve != null) {
             transformLetterShapesAlongCurve(letterShapes, curve);
-            LOG.info("Transformed letter shapes along curve [{}]", curve.getCurve().getControlPoints().stream().map(p -> "{" + p.getX() + "," + p.getY() + "}").reduce((a, b) -> a + "," + b).orElse("null"));
+            LOG.info("Transformed letter shapes along curve [{}]", curve);
         } else {
             LOG.warn("Transform along curve provider returned null, skipping transform.");
         }
 
-        final List<Line2D> connectingLines = generateConnectingLines(random, letterShapes);
+        final List<Line2D> connectingLines = generateConnectingLines(random, nodeTree, letterShapes);
         LOG.info("Generated [{}] connecting lines", connectingLines.size());
 
         final ArrayList<Object> combinedShapes = new ArrayList<>();
@@ -69,7 +83,7 @@ public class LetterToLineConverter {
         return new WrittenNomaiConverter.DrawablesResult(combinedShapes, curve);
     }
 
-    private void transformLetterShapesAlongCurve(List<LetterShape> letterShapes, BezierCurveCoordinateSystem coordinateSystem) {
+    private void transformLetterShapesAlongCurve(List<LetterShape> letterShapes, PathCoordinateSystem coordinateSystem) {
         if (coordinateSystem == null) {
             LOG.warn("No transform along curve provided, skipping transform.");
             return;
@@ -77,30 +91,30 @@ public class LetterToLineConverter {
 
         for (LetterShape letterShape : letterShapes) {
             final Point2D letterShapePosition = letterShape.getTransformation().getOffsetPosition();
-            final Point2D transformedPosition = coordinateSystem.worldToBezier(letterShapePosition, 50);
+            final Point2D transformedPosition = coordinateSystem.worldToBezier(letterShapePosition);
             letterShape.getTransformation().setOffsetPosition(transformedPosition);
         }
     }
 
-    private List<LetterShape> distributeLetterShapes(Random random, WrittenNomaiBranchingLetterNode nodeTree) {
+    private List<LetterShape> distributeLetterShapes(Random random, WrittenNomaiFlatLetterTree nodeTree) {
         final List<LetterShape> letterShapes = new ArrayList<>();
 
         int centerConsonantBranchX = 0;
         int upperBranchX = 0;
         int lowerBranchX = 0;
 
-        WrittenNomaiBranchingLetterNode lastCenterBranchNode = nodeTree;
+        int lastCenterBranchNode = nodeTree.getRoot();
         boolean previousWasRoot = false;
 
-        while (lastCenterBranchNode != null) {
-            if (lastCenterBranchNode.isRoot()) {
+        while (lastCenterBranchNode != WrittenNomaiFlatLetterTree.NONE) {
+            if (nodeTree.isRoot(lastCenterBranchNode)) {
                 if (previousWasRoot) {
                     centerConsonantBranchX += wordLineWidth;
                 } else {
                     centerConsonantBranchX += (int) (wordLineWidth * 1.5);
                 }
 
-                final LetterShape rootShape = LetterShape.fromWrittenNomaiBranchingLetterNode(lastCenterBranchNode);
+                final LetterShape rootShape = LetterShape.fromFlatLetterTreeNode(nodeTree, lastCenterBranchNode);
                 rootShape.getTransformation().setOffsetPosition(new Point2D.Double(centerConsonantBranchX, 0));
                 letterShapes.add(rootShape);
                 previousWasRoot = true;
@@ -112,16 +126,16 @@ public class LetterToLineConverter {
                     centerConsonantBranchX += generalLetterWidth + wordLineWidth;
                 }
 
-                final LetterShape consonantShape = LetterShape.fromWrittenNomaiBranchingLetterNode(lastCenterBranchNode);
+                final LetterShape consonantShape = LetterShape.fromFlatLetterTreeNode(nodeTree, lastCenterBranchNode);
                 consonantShape.getTransformation().setOffsetPosition(new Point2D.Double(centerConsonantBranchX, 0));
                 letterShapes.add(consonantShape);
                 previousWasRoot = false;
             }
 
 
-            if (lastCenterBranchNode.hasNumber()) {
-                WrittenNomaiBranchingLetterNode numberNode = null;
-                final boolean hasMultipleNumbers = lastCenterBranchNode.getNumber().hasNumber();
+            if (nodeTree.hasNumber(lastCenterBranchNode)) {
+                int numberNode = WrittenNomaiFlatLetterTree.NONE;
+                final boolean hasMultipleNumbers = nodeTree.hasNumber(nodeTree.getNumber(lastCenterBranchNode));
 
                 final boolean appendToUpperBranch = upperBranchX < lowerBranchX;
                 if (appendToUpperBranch) {
@@ -131,9 +145,9 @@ public class LetterToLineConverter {
                 }
 
                 do {
-                    numberNode = numberNode == null ? lastCenterBranchNode.getNumber() : numberNode.getNumber();
+                    numberNode = nodeTree.getNumber(numberNode == WrittenNomaiFlatLetterTree.NONE ? lastCenterBranchNode : numberNode);
 
-                    final LetterShape numberShape = LetterShape.fromWrittenNomaiBranchingLetterNode(numberNode);
+                    final LetterShape numberShape = LetterShape.fromFlatLetterTreeNode(nodeTree, numberNode);
                     numberShape.getTransformation().setOffsetPosition(new Point2D.Double(
                             appendToUpperBranch ? upperBranchX : lowerBranchX,
                             (appendToUpperBranch ? -1 : 1) * (hasMultipleNumbers ? gapBetweenCenterLineAndOuterLinesMultiple : gapBetweenCenterLineAndOuterLinesSingle)
@@ -145,12 +159,12 @@ public class LetterToLineConverter {
                     } else {
                         lowerBranchX += generalLetterWidth + wordLineWidth;
                     }
-                } while (numberNode.hasNumber());
+                } while (nodeTree.hasNumber(numberNode));
             }
 
-            if (lastCenterBranchNode.hasVowel()) {
-                WrittenNomaiBranchingLetterNode vowelNode = null;
-                final boolean hasMultipleVowels = lastCenterBranchNode.getVowel().hasVowel();
+            if (nodeTree.hasVowel(lastCenterBranchNode)) {
+                int vowelNode = WrittenNomaiFlatLetterTree.NONE;
+                final boolean hasMultipleVowels = nodeTree.hasVowel(nodeTree.getVowel(lastCenterBranchNode));
 
                 final boolean appendToUpperBranch = upperBranchX < lowerBranchX;
                 if (appendToUpperBranch) {
@@ -160,9 +174,9 @@ public class LetterToLineConverter {
                 }
 
                 do {
-                    vowelNode = vowelNode == null ? lastCenterBranchNode.getVowel() : vowelNode.getVowel();
+                    vowelNode = nodeTree.getVowel(vowelNode == WrittenNomaiFlatLetterTree.NONE ? lastCenterBranchNode : vowelNode);
 
-                    final LetterShape vowelShape = LetterShape.fromWrittenNomaiBranchingLetterNode(vowelNode);
+                    final LetterShape vowelShape = LetterShape.fromFlatLetterTreeNode(nodeTree, vowelNode);
                     vowelShape.getTransformation().setOffsetPosition(new Point2D.Double(
                             appendToUpperBranch ? upperBranchX : lowerBranchX,
                             (appendToUpperBranch ? -1 : 1) * (hasMultipleVowels ? gapBetweenCenterLineAndOuterLinesMultiple : gapBetweenCenterLineAndOuterLinesSingle)
@@ -174,20 +188,20 @@ public class LetterToLineConverter {
                     } else {
                         lowerBranchX += generalLetterWidth + wordLineWidth;
                     }
-                } while (vowelNode.hasVowel());
+                } while (nodeTree.hasVowel(vowelNode));
             }
 
-            if (lastCenterBranchNode.hasConsonant()) {
-                if (lastCenterBranchNode.hasNextWord()) {
-                    throw new RuntimeException("Consonant has next word:" + lastCenterBranchNode);
+            if (nodeTree.hasConsonant(lastCenterBranchNode)) {
+                if (nodeTree.hasNextWord(lastCenterBranchNode)) {
+                    throw new RuntimeException("Consonant has next word:" + nodeTree.getLetter(lastCenterBranchNode));
                 }
-                lastCenterBranchNode = lastCenterBranchNode.getConsonant();
+                lastCenterBranchNode = nodeTree.getConsonant(lastCenterBranchNode);
 
-            } else if (lastCenterBranchNode.hasNextWord()) {
-                lastCenterBranchNode = lastCenterBranchNode.getNextWord();
+            } else if (nodeTree.hasNextWord(lastCenterBranchNode)) {
+                lastCenterBranchNode = nodeTree.getNextWord(lastCenterBranchNode);
 
             } else {
-                lastCenterBranchNode = null;
+                lastCenterBranchNode = WrittenNomaiFlatLetterTree.NONE;
             }
         }
 
@@ -213,82 +227,96 @@ public class LetterToLineConverter {
         }
 
         // detect collisions on outer lines and move them further out if necessary
-        final List<LetterShape> outerLines = letterShapes.stream().filter(l -> !l.isLetterConsonantOrRoot()).collect(Collectors.toList());
-        for (LetterShape letterShape : outerLines) {
-            outerLines.stream()
-                    .filter(otherLetterShape -> otherLetterShape != letterShape)
-                    .filter(otherLetterShape -> intersectionCount(letterShape, otherLetterShape) > 0)
-                    .findFirst()
-                    .ifPresent(otherLetterShape -> {
-                        final boolean isLetterShapeAboveOtherLetterShape = letterShape.getTransformation().getOffsetPosition().getY() < otherLetterShape.getTransformation().getOffsetPosition().getY();
-                        final double offset = (isLetterShapeAboveOtherLetterShape ? -1 : 1) * generalLetterWidth;
-                        letterShape.getTransformation().setOffsetPosition(new Point2D.Double(letterShape.getTransformation().getOffsetPosition().getX(), letterShape.getTransformation().getOffsetPosition().getY() + offset));
-                    });
+        // every outer line is moved away from the first other outer line it intersects, if there is one
+        final List<Object> outerLines = letterShapes.stream().filter(l -> !l.isLetterConsonantOrRoot()).collect(Collectors.toList());
+        final LayoutWorkspace outerLinesWorkspace = new LayoutWorkspace(outerLines);
+        for (int i = 0; i < outerLines.size(); i++) {
+            final int other = outerLinesWorkspace.findFirstIntersecting(i);
+            if (other < 0) {
+                continue;
+            }
+
+            final LetterShape letterShape = (LetterShape) outerLines.get(i);
+            final LetterShape otherLetterShape = (LetterShape) outerLines.get(other);
+            final boolean isLetterShapeAboveOtherLetterShape = letterShape.getTransformation().getOffsetPosition().getY() < otherLetterShape.getTransformation().getOffsetPosition().getY();
+            final double offset = (isLetterShapeAboveOtherLetterShape ? -1 : 1) * generalLetterWidth;
+            letterShape.getTransformation().setOffsetPosition(new Point2D.Double(letterShape.getTransformation().getOffsetPosition().getX(), letterShape.getTransformation().getOffsetPosition().getY() + offset));
+            outerLinesWorkspace.update(i);
         }
 
         return letterShapes;
     }
 
-    private LetterShape findLetterShapeFromNode(List<LetterShape> letterShapes, WrittenNomaiBranchingLetterNode node) {
+    /**
+     * Indexes the letter shapes by the tree node they have been created from, so that the shape of a node can be looked
+     * up in constant time. If multiple shapes share a node, the first one is used.
+     *
+     * @return The letter shape of every node of the tree, or <code>null</code> for nodes without a shape.
+     */
+    static LetterShape[] indexLetterShapesBySourceNode(WrittenNomaiFlatLetterTree nodeTree, List<LetterShape> letterShapes) {
+        final LetterShape[] letterShapesByNode = new LetterShape[nodeTree.getNodeCount()];
         for (LetterShape letterShape : letterShapes) {
-            if (letterShape.getSourceNode() == node) {
-                return letterShape;
+            final int sourceIndex = letterShape.getSourceIndex();
+            if (sourceIndex != WrittenNomaiFlatLetterTree.NONE && letterShapesByNode[sourceIndex] == null) {
+                letterShapesByNode[sourceIndex] = letterShape;
             }
         }
-        return null;
+        return letterShapesByNode;
     }
 
-    private boolean doesLineIntersectWithAnyOtherLine(Line2D line, double buffer, Line2D... otherLines) {
-        Line2D bufferedLine = new Line2D.Double(
-                new Point2D.Double(line.getX1() + buffer, line.getY1() + buffer),
-                new Point2D.Double(line.getX2() - buffer, line.getY2() - buffer));
-
-        for (Line2D otherLine : otherLines) {
-            if (bufferedLine.intersectsLine(otherLine)) {
-                return true;
-            }
-        }
-        return false;
+    private static LetterShape findLetterShapeFromNode(LetterShape[] letterShapesByNode, int node) {
+        return node == WrittenNomaiFlatLetterTree.NONE ? null : letterShapesByNode[node];
     }
 
-    private Line2D findClosestBranchingPointsConnectingLine(LetterShape a, LetterShape b) {
-        final Point2D[] posA = a.getAbsoluteBranchPositions();
-        final Point2D[] posB = b.getAbsoluteBranchPositions();
+    Line2D findClosestBranchingPointsConnectingLine(LetterShape a, LetterShape b) {
+        final double[] posA = a.getAbsoluteBranchCoordinates();
+        final double[] posB = b.getAbsoluteBranchCoordinates();
 
-        final Line2D[] linesA = a.getAbsoluteLines();
-        final Line2D[] linesB = b.getAbsoluteLines();
+        final double[] linesA = a.getAbsoluteLineCoordinates();
+        final double[] linesB = b.getAbsoluteLineCoordinates();
 
-        double bestDistance = Double.MAX_VALUE;
-        final Line2D bestLine = findClosestBranchingPointsConnectingLine(posA, posB, linesA, linesB, bestDistance, true);
+        int bestLine = findClosestBranchingPointsConnectingLine(posA, posB, linesA, linesB, true);
 
-        if (bestLine == null) {
-            final Line2D bestLineWithoutIntersectionCheck = findClosestBranchingPointsConnectingLine(posA, posB, linesA, linesB, bestDistance, false);
-            if (bestLineWithoutIntersectionCheck == null) {
+        if (bestLine < 0) {
+            bestLine = findClosestBranchingPointsConnectingLine(posA, posB, linesA, linesB, false);
+            if (bestLine < 0) {
                 throw new RuntimeException("Could not find a connecting line between " + a + " and " + b);
             }
-            return bestLineWithoutIntersectionCheck;
         }
 
-        return bestLine;
+        final int i = bestLine / (posB.length / 2) * 2;
+        final int j = bestLine % (posB.length / 2) * 2;
+        return new Line2D.Double(posA[i], posA[i + 1], posB[j], posB[j + 1]);
     }
 
-    private Line2D findClosestBranchingPointsConnectingLine(Point2D[] posA, Point2D[] posB, Line2D[] linesA, Line2D[] linesB, double bestDistance, boolean checkForIntersection) {
-        Line2D bestLine = null;
+    /**
+     * @return The index <code>i * (branch positions of b) + j</code> of the shortest line between the branch positions
+     * <code>i</code> of a and <code>j</code> of b, or <code>-1</code> if there is none.
+     */
+    private int findClosestBranchingPointsConnectingLine(double[] posA, double[] posB, double[] linesA, double[] linesB, boolean checkForIntersection) {
+        final double buffer = 0.01;
+        double bestDistance = Double.MAX_VALUE;
+        int bestLine = -1;
 
-        for (int i = 0; i < posA.length; i++) {
-            for (int j = 0; j < posB.length; j++) {
-                final Line2D line = new Line2D.Double(posA[i], posB[j]);
+        for (int i = 0; i < posA.length; i += 2) {
+            for (int j = 0; j < posB.length; j += 2) {
+                final double x1 = posA[i], y1 = posA[i + 1];
+                final double x2 = posB[j], y2 = posB[j + 1];
 
                 if (checkForIntersection) {
-                    final boolean intersects = doesLineIntersectWithAnyOtherLine(line, 0.01, linesA) || doesLineIntersectWithAnyOtherLine(line, 0.01, linesB);
+                    // the line is moved slightly so that it does not intersect the shapes at the branch positions it starts from
+                    final boolean intersects = PackedGeometry.intersects(linesA, x1 + buffer, y1 + buffer, x2 - buffer, y2 - buffer)
+                                               || PackedGeometry.intersects(linesB, x1 + buffer, y1 + buffer, x2 - buffer, y2 - buffer);
                     if (intersects) {
                         continue;
                     }
                 }
 
-                final double distance = line.getP1().distance(line.getP2());
+                final double dx = x2 - x1;
+                final double dy = y2 - y1;
+                final double distance = Math.sqrt(dx * dx + dy * dy);
                 if (distance < bestDistance) {
-                    bestLine = line;
+                    bestLine = (i / 2) * (posB.length / 2) + j / 2;
                     bestDistance = distance;
                 }
             }
@@ -296,83 +324,124 @@ public class LetterToLineConverter {
         return bestLine;
     }
 
-    private List<Line2D> generateConnectingLines(Random random, List<LetterShape> letterShapes) {
+    private List<Line2D> generateConnectingLines(Random random, WrittenNomaiFlatLetterTree nodeTree, List<LetterShape> letterShapes) {
         final List<Line2D> connectingLines = new ArrayList<>();
+        for (LetterShape[] connectedLetterShapes : findConnectedLetterShapes(nodeTree, letterShapes)) {
+            connectingLines.add(findClosestBranchingPointsConnectingLine(connectedLetterShapes[0], connectedLetterShapes[1]));
+        }
+        return connectingLines;
+    }
+
+    /**
+     * @return The pairs of letter shapes that are connected by a line, in the order in which the lines are generated.
+     */
+    static List<LetterShape[]> findConnectedLetterShapes(WrittenNomaiFlatLetterTree nodeTree, List<LetterShape> letterShapes) {
+        final List<LetterShape[]> connectedLetterShapes = new ArrayList<>();
+        final LetterShape[] letterShapesByNode = indexLetterShapesBySourceNode(nodeTree, letterShapes);
 
         for (LetterShape letterShape : letterShapes) {
-            final WrittenNomaiBranchingLetterNode sourceNode = letterShape.getSourceNode();
+            final int sourceNode = letterShape.getSourceIndex();
 
-            final LetterShape consonantNode = findLetterShapeFromNode(letterShapes, sourceNode.getConsonant());
-            final LetterShape vowelNode = findLetterShapeFromNode(letterShapes, sourceNode.getVowel());
-            final LetterShape numberNode = findLetterShapeFromNode(letterShapes, sourceNode.getNumber());
-            final LetterShape nextWordNode = findLetterShapeFromNode(letterShapes, sourceNode.getNextWord());
+            final LetterShape consonantNode = findLetterShapeFromNode(letterShapesByNode, nodeTree.getConsonant(sourceNode));
+            final LetterShape vowelNode = findLetterShapeFromNode(letterShapesByNode, nodeTree.getVowel(sourceNode));
+            final LetterShape numberNode = findLetterShapeFromNode(letterShapesByNode, nodeTree.getNumber(sourceNode));
+            final LetterShape nextWordNode = findLetterShapeFromNode(letterShapesByNode, nodeTree.getNextWord(sourceNode));
 
             if (consonantNode != null) {
-                connectingLines.add(findClosestBranchingPointsConnectingLine(letterShape, consonantNode));
+                connectedLetterShapes.add(new LetterShape[]{letterShape, consonantNode});
             }
             if (vowelNode != null) {
-                connectingLines.add(findClosestBranchingPointsConnectingLine(letterShape, vowelNode));
+                connectedLetterShapes.add(new LetterShape[]{letterShape, vowelNode});
             }
             if (numberNode != null) {
-                connectingLines.add(findClosestBranchingPointsConnectingLine(letterShape, numberNode));
+                connectedLetterShapes.add(new LetterShape[]{letterShape, numberNode});
             }
             if (nextWordNode != null) {
-                connectingLines.add(findClosestBranchingPointsConnectingLine(letterShape, nextWordNode));
+                connectedLetterShapes.add(new LetterShape[]{letterShape, nextWordNode});
             }
         }
 
-        return connectingLines;
+        return connectedLetterShapes;
     }
 
-    private Line2D shortenLineFromBothSides(Line2D line, double amount) {
-        if (line == null) {
-            return null;
-        }
-        final double angle = Math.atan2(line.getY2() - line.getY1(), line.getX2() - line.getX1());
-        final double x1 = line.getX1() + Math.cos(angle) * amount;
-        final double y1 = line.getY1() + Math.sin(angle) * amount;
-        final double x2 = line.getX2() - Math.cos(angle) * amount;
-        final double y2 = line.getY2() - Math.sin(angle) * amount;
-        return new Line2D.Double(x1, y1, x2, y2);
+    /**
+     * Gives the letter shape a new random rotation and scale and moves it by a random amount from the given position,
+     * using the same ranges as the initial distribution of the letters.
+     */
+    void randomizeTransformation(Random random, LetterShape letterShape, Point2D position) {
+        final ShapeTransformation transformation = letterShape.getTransformation();
+        transformation.setScale(randomScale.next(random) * (random.nextBoolean() ? 1 : -1));
+        transformation.setRotationAngle(randomRotation.next(random));
+        transformation.setOffsetPosition(new Point2D.Double(
+                position.getX() + randomVerticalOffsetCenter.next(random),
+                position.getY() + randomVerticalOffsetCenter.next(random)));
     }
 
-    private int intersectionCount(Object shapeA, Object shapeB) {
-        final LetterShape letterShapeA = shapeA instanceof LetterShape ? (LetterShape) shapeA : null;
-        final LetterShape letterShapeB = shapeB instanceof LetterShape ? (LetterShape) shapeB : null;
-        final Line2D lineA = shapeA instanceof Line2D ? (Line2D) shapeA : null;
-        final Line2D lineB = shapeB instanceof Line2D ? (Line2D) shapeB : null;
-
-        final Line2D[] linesA;
-        final Line2D[] linesB;
-
-        if (letterShapeA != null && letterShapeB != null) {
-            linesA = letterShapeA.getAbsoluteLines();
-            linesB = letterShapeB.getAbsoluteLines();
-        } else if (letterShapeA != null) {
-            linesA = letterShapeA.getAbsoluteLines();
-            linesB = new Line2D[]{shortenLineFromBothSides(lineB, 2)};
-        } else if (letterShapeB != null) {
-            linesA = new Line2D[]{lineA};
-            linesB = letterShapeB.getAbsoluteLines();
-        } else {
-            linesA = new Line2D[]{shortenLineFromBothSides(lineA, 2)};
-            linesB = new Line2D[]{shortenLineFromBothSides(lineB, 2)};
-        }
+    static void shortenLineFromBothSides(Line2D line, double amount, double[] target) {
+        PackedGeometry.shortenSegment(line.getX1(), line.getY1(), line.getX2(), line.getY2(), amount, target);
+    }
 
-        int count = 0;
+    /**
+     * Counts the intersections of a pair of drawables, where <code>shapeA</code> comes before <code>shapeB</code> in
+     * the list of drawables. The arrays are used to store the shortened lines.
+     */
+    static int intersectionCount(Object shapeA, Object shapeB, double[] shortenedLineA, double[] shortenedLineB) {
+        if (shapeA instanceof LetterShape && shapeB instanceof LetterShape) {
+            return PackedGeometry.countIntersections(((LetterShape) shapeA).getAbsoluteLineCoordinates(), ((LetterShape) shapeB).getAbsoluteLineCoordinates());
 
-        for (Line2D line1 : linesA) {
-            for (Line2D line2 : linesB) {
-                if (line1.intersectsLine(line2)) {
-                    count++;
-                }
-            }
-        }
+        } else if (shapeA instanceof LetterShape) {
+            shortenLineFromBothSides((Line2D) shapeB, 2, shortenedLineB);
+            return PackedGeometry.countIntersections(((LetterShape) shapeA).getAbsoluteLineCoordinates(), shortenedLineB[0], shortenedLineB[1], shortenedLineB[2], shortenedLineB[3]);
 
-        return count;
+        } else if (shapeB instanceof LetterShape) {
+            final Line2D lineA = (Line2D) shapeA;
+            return PackedGeometry.countIntersections(((LetterShape) shapeB).getAbsoluteLineCoordinates(), lineA.getX1(), lineA.getY1(), lineA.getX2(), lineA.getY2());
+
+        } else {
+            shortenLineFromBothSides((Line2D) shapeA, 2, shortenedLineA);
+            shortenLineFromBothSides((Line2D) shapeB, 2, shortenedLineB);
+            return PackedGeometry.segmentsIntersect(shortenedLineA[0], shortenedLineA[1], shortenedLineA[2], shortenedLineA[3],
+                    shortenedLineB[0], shortenedLineB[1], shortenedLineB[2], shortenedLineB[3]) ? 1 : 0;
+        }
     }
 
+    /**
+     * Counts the intersections between the letter shapes and connecting lines of the drawables. Every pair of drawables
+     * is counted once, but only segments that are close to each other are tested for an intersection, see
+     * {@link IntersectionGrid}. Very large drawings are counted in parallel on the current or common
+     * {@link java.util.concurrent.ForkJoinPool}, with the same result.
+     *
+     * @param shapes The drawables, other objects than {@link LetterShape}s and {@link Line2D}s are ignored.
+     * @return The amount of intersecting pairs of segments of different drawables.
+     */
     public int intersectionCount(List<Object> shapes) {
+        return IntersectionGrid.fromDrawables(shapes).countIntersections();
+    }
+
+    /**
+     * Same as {@link #intersectionCount(List)}, but stops testing segments as soon as the count reaches the limit. Use
+     * this when only layouts with fewer intersections than a known layout are of interest:
+     * <pre>
+     * final int count = lineGenerator.intersectionCount(drawables, bestCount);
+     * if (count &lt; bestCount) {
+     *     // count is exact and the layout is better
+     * }
+     * </pre>
+     *
+     * @param shapes The drawables, other objects than {@link LetterShape}s and {@link Line2D}s are ignored.
+     * @param limit  The count at which to stop.
+     * @return The amount of intersecting pairs of segments if it is less than the limit, otherwise the limit.
+     */
+    public int intersectionCount(List<Object> shapes, int limit) {
+        return IntersectionGrid.fromDrawables(shapes).countIntersections(limit);
+    }
+
+    /**
+     * Same as {@link #intersectionCount(List)}, but tests every pair of drawables.
+     */
+    int intersectionCountPairwise(List<Object> shapes) {
+        final double[] shortenedLineA = new double[4];
+        final double[] shortenedLineB = new double[4];
         int count = 0;
 
         for (int i = 0; i < shapes.size(); i++) {
@@ -387,13 +456,43 @@ public class LetterToLineConverter {
                     continue;
                 }
 
-                count += intersectionCount(shapeA, shapeB);
+                count += intersectionCount(shapeA, shapeB, shortenedLineA, shortenedLineB);
             }
         }
 
         return count;
     }
 
+    /**
+     * Tries to remove the intersections of a layout created by {@link #generateShapes(Random, WrittenNomaiFlatLetterTree, Function)}
+     * by giving single letter shapes that are part of an intersection a new random rotation, scale and offset and
+     * regenerating only their connecting lines, instead of laying out the whole tree again. A change is kept if it
+     * does not increase the amount of intersections. See {@link LayoutRepair}.
+     * <p>
+     * The drawables of the layout are modified in place.
+     *
+     * @param random         The random to pick the letter shapes and their transformations with.
+     * @param nodeTree       The tree the layout has been generated from.
+     * @param shapes         The layout to repair.
+     * @param maxEvaluations The maximum amount of changes to try.
+     * @return The amount of intersections of the repaired layout.
+     */
+    public int repairIntersections(Random random, WrittenNomaiFlatLetterTree nodeTree, WrittenNomaiConverter.DrawablesResult shapes, int maxEvaluations) {
+        return repairIntersections(random, nodeTree, shapes, maxEvaluations, null);
+    }
+
+    /**
+     * Same as {@link #repairIntersections(Random, WrittenNomaiFlatLetterTree, WrittenNomaiConverter.DrawablesResult, int)},
+     * but stops trying changes once the deadline has passed.
+     *
+     * @param deadline The time after which no more changes are tried, or <code>null</code> for no deadline.
+     */
+    public int repairIntersections(Random random, WrittenNomaiFlatLetterTree nodeTree, WrittenNomaiConverter.DrawablesResult shapes, int maxEvaluations, Instant deadline) {
+        Objects.requireNonNull(shapes, "Shapes cannot be null!");
+        final long deadlineNanoTime = deadline == null ? Long.MAX_VALUE : System.nanoTime() + Math.max(0, Duration.between(Instant.now(), deadline).toNanos());
+        return new LayoutRepair(this, nodeTree, shapes.getDrawables()).repair(random, maxEvaluations, deadlineNanoTime);
+    }
+
     public void setGapBetweenCenterLineAndOuterLinesSingle(int gapBetweenCenterLineAndOuterLinesSingle) {
         this.gapBetweenCenterLineAndOuterLinesSingle = gapBetweenCenterLineAndOuterLinesSingle;
     }
@@ -0,0 +1,161 @@
+package de.yanwittmann.ow.lang.renderer.shapes;
+
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+
+/**
+ * Maps an arc length along a {@link BezierCurve} to the curve parameter <code>t</code> using the accumulated lengths of
+ * the chords between points sampled at uniform steps of <code>t</code>. A lookup is a binary search over the samples and
+ * a linear interpolation inside the found chord.
+ * <p>
+ * The amount of samples is doubled until the table is accurate enough: the lengths of a table with half the samples
+ * are compared to the lengths of the final table at every sample, including the interpolated lengths at the samples
+ * between its own. Since both the chords and the interpolation converge quadratically, the largest difference is an
+ * upper bound for the error of the final table, which is about four times smaller. This means that the arc length from
+ * the start of the curve to {@link BezierCurve#getPointOnCurve(double)} at the returned <code>t</code> differs from the
+ * requested length by at most {@link #getMaxError()}, which is at most {@link #TARGET_MAX_ERROR} unless the curve needs
+ * more than {@link #MAX_SEGMENTS} chords for that.
+ * <p>
+ * Tables are immutable. Scaling a curve uniformly scales all of its lengths, so {@link #scaled(double)} creates the
+ * table of a scaled curve without sampling it again, sharing the lengths of this table. Its error grows by the same
+ * factor.
+ */
+final class ArcLengthTable {
+
+    /**
+     * The error at which to stop adding samples, in the units of the curve.
+     */
+    static final double TARGET_MAX_ERROR = 0.01;
+    private static final int MIN_SEGMENTS = 64;
+    static final int MAX_SEGMENTS = 1 << 16;
+
+    /**
+     * <code>lengths[i]</code> is the length of the chords from <code>t = 0</code> to <code>t = i / segments</code>.
+     */
+    private final double[] lengths;
+    private final int segments;
+    private final double maxError;
+    /**
+     * The factor from the lengths in {@link #lengths} to the lengths of the curve.
+     */
+    private final double scale;
+
+    private ArcLengthTable(double[] lengths, double maxError, double scale) {
+        this.lengths = lengths;
+        this.segments = lengths.length - 1;
+        this.maxError = maxError;
+        this.scale = scale;
+    }
+
+    static ArcLengthTable fromCurve(BezierCurve curve) {
+        return fromCurve(curve, TARGET_MAX_ERROR);
+    }
+
+    /**
+     * @param targetMaxError The error at which to stop adding samples, in the units of the curve.
+     */
+    static ArcLengthTable fromCurve(BezierCurve curve, double targetMaxError) {
+        int segments = MIN_SEGMENTS;
+        double[] points = samplePoints(curve, segments);
+        double[] lengths = accumulateLengths(points);
+        final Point2D point = new Point2D.Double();
+
+        while (true) {
+            // sample the points between the current ones and compare the lengths of both tables
+            final double[] finerPoints = new double[(segments * 2 + 1) * 2];
+            for (int i = 0; i <= segments; i++) {
+                finerPoints[i * 4] = points[i * 2];
+                finerPoints[i * 4 + 1] = points[i * 2 + 1];
+                if (i < segments) {
+                    curve.getPointOnCurve((i * 2 + 1) / (segments * 2.0), point);
+                    finerPoints[i * 4 + 2] = point.getX();
+                    finerPoints[i * 4 + 3] = point.getY();
+                }
+            }
+            final double[] finerLengths = accumulateLengths(finerPoints);
+
+            double maxError = 0;
+            for (int i = 0; i <= segments; i++) {
+                maxError = Math.max(maxError, Math.abs(finerLengths[i * 2] - lengths[i]));
+                if (i < segments) {
+                    maxError = Math.max(maxError, Math.abs(finerLengths[i * 2 + 1] - (lengths[i] + lengths[i + 1]) / 2));
+                }
+            }
+
+            segments *= 2;
+            points = finerPoints;
+            lengths = finerLengths;
+            if (maxError <= targetMaxError || segments >= MAX_SEGMENTS) {
+                return new ArcLengthTable(lengths, maxError, 1);
+            }
+        }
+    }
+
+    private static double[] samplePoints(BezierCurve curve, int segments) {
+        final double[] points = new double[(segments + 1) * 2];
+        final Point2D point = new Point2D.Double();
+        for (int i = 0; i <= segments; i++) {
+            curve.getPointOnCurve((double) i / segments, point);
+            points[i * 2] = point.getX();
+            points[i * 2 + 1] = point.getY();
+        }
+        return points;
+    }
+
+    private static double[] accumulateLengths(double[] points) {
+        final double[] lengths = new double[points.length / 2];
+        for (int i = 1; i < lengths.length; i++) {
+            final double dx = points[i * 2] - points[i * 2 - 2];
+            final double dy = points[i * 2 + 1] - points[i * 2 - 1];
+            lengths[i] = lengths[i - 1] + Math.sqrt(dx * dx + dy * dy);
+        }
+        return lengths;
+    }
+
+    /**
+     * @return The table of the curve scaled by the factor, the sign of the factor is ignored.
+     */
+    ArcLengthTable scaled(double factor) {
+        return new ArcLengthTable(lengths, maxError, scale * Math.abs(factor));
+    }
+
+    /**
+     * @return <code>t</code> at the given arc length, <code>0</code> for lengths up to zero and <code>1</code> for
+     * lengths of at least {@link #getLength()}.
+     */
+    double findTForLength(double length) {
+        if (!(length > 0)) {
+            return 0;
+        } else if (length >= getLength()) {
+            return 1;
+        }
+        final double unscaledLength = length / scale;
+
+        // the last sample with a length of at most the requested one
+        int index = Arrays.binarySearch(lengths, unscaledLength);
+        if (index < 0) {
+            index = -index - 2;
+        }
+        while (index < segments && lengths[index + 1] <= unscaledLength) {
+            index++;
+        }
+        // dividing by the scale may round the length up to the end of the table
+        index = Math.min(index, segments - 1);
+
+        final double chordLength = lengths[index + 1] - lengths[index];
+        final double fraction = chordLength > 0 ? (unscaledLength - lengths[index]) / chordLength : 0;
+        return Math.min(1, (index + fraction) / segments);
+    }
+
+    double getLength() {
+        return lengths[segments] * scale;
+    }
+
+    double getMaxError() {
+        return maxError * scale;
+    }
+
+    int getSegments() {
+        return segments;
+    }
+}
@@ -0,0 +1,168 @@
+package de.yanwittmann.ow.lang.renderer.shapes;
+
+import java.awt.geom.Point2D;
+
+/**
+ * Maps points onto an Archimedean spiral <code>r = b * theta</code> instead of a {@link BezierCurve}, for texts of any
+ * length. The spiral starts at the origin heading upwards and winds inwards with a constant distance between its turns,
+ * so a longer text gets more turns around the center instead of being squeezed onto a curve of a fixed shape. The
+ * text ends at the inner radius, which keeps the last letters out of the tight center of the spiral.
+ * <p>
+ * The arc length of the spiral from its center has the closed form
+ * <pre>
+ * s(theta) = b / 2 * (theta * sqrt(1 + theta^2) + asinh(theta))
+ * </pre>
+ * which is inverted using Newton's method. Since <code>s(theta) &gt;= b theta^2 / 2</code> and <code>s</code> is
+ * convex, the initial guess <code>sqrt(2 s / b)</code> is never left of the solution and the iteration converges in a
+ * handful of steps from there, so mapping a point costs the same for any length of the spiral.
+ */
+public class ArchimedeanSpiralCoordinateSystem implements PathCoordinateSystem {
+
+    private static final int MAX_NEWTON_ITERATIONS = 50;
+
+    private final double length;
+    private final double turnSpacing;
+    private final double innerRadius;
+
+    /**
+     * The growth of the radius per radian.
+     */
+    private final double b;
+    /**
+     * The arc length from the center of the spiral to the end of the text at the inner radius.
+     */
+    private final double innerArcLength;
+    private final double startX;
+    private final double startY;
+    /**
+     * The rotation that turns the direction at the start of the spiral upwards.
+     */
+    private final double rotationCos;
+    private final double rotationSin;
+
+    /**
+     * @param length      The length of the path, the distance along the spiral from the start to the inner radius.
+     * @param turnSpacing The distance between two turns of the spiral.
+     * @param innerRadius The radius at which the path ends.
+     */
+    public ArchimedeanSpiralCoordinateSystem(double length, double turnSpacing, double innerRadius) {
+        if (!(length >= 0) || !(turnSpacing > 0) || !(innerRadius >= 0)) {
+            throw new IllegalArgumentException("Invalid spiral, length [" + length + "], turn spacing [" + turnSpacing + "] and inner radius [" + innerRadius + "]");
+        }
+        this.length = length;
+        this.turnSpacing = turnSpacing;
+        this.innerRadius = innerRadius;
+        this.b = turnSpacing / (2 * Math.PI);
+        this.innerArcLength = arcLength(innerRadius / b);
+
+        final double startTheta = thetaForArcLength(innerArcLength + length);
+        this.startX = spiralX(startTheta);
+        this.startY = spiralY(startTheta);
+        final double angle = -Math.PI / 2 - Math.atan2(directionY(startTheta), directionX(startTheta));
+        this.rotationCos = Math.cos(angle);
+        this.rotationSin = Math.sin(angle);
+    }
+
+    /**
+     * Maps a point to the spiral: the x coordinate is the distance along the spiral from its start, clamped to the
+     * length of the path, and the y coordinate the distance along the normal of the spiral at that point.
+     */
+    @Override
+    public Point2D worldToBezier(Point2D point) {
+        final double theta = thetaForPosition(point.getX());
+        final double normalX = -directionY(theta);
+        final double normalY = directionX(theta);
+        return toWorld(spiralX(theta) + normalX * point.getY(), spiralY(theta) + normalY * point.getY(), true);
+    }
+
+    /**
+     * @param t The fraction of the length of the path.
+     */
+    @Override
+    public Point2D getPointOnPath(double t) {
+        return worldToBezier(new Point2D.Double(t * length, 0));
+    }
+
+    /**
+     * @param t The fraction of the length of the path.
+     */
+    @Override
+    public Point2D getNormalOnPath(double t) {
+        final double theta = thetaForPosition(t * length);
+        return toWorld(-directionY(theta), directionX(theta), false);
+    }
+
+    @Override
+    public double getPathLength() {
+        return length;
+    }
+
+    public double getTurnSpacing() {
+        return turnSpacing;
+    }
+
+    public double getInnerRadius() {
+        return innerRadius;
+    }
+
+    private double thetaForPosition(double x) {
+        final double clamped = Math.min(length, Math.max(0, x));
+        return thetaForArcLength(innerArcLength + length - clamped);
+    }
+
+    double thetaForArcLength(double arcLength) {
+        if (!(arcLength > 0)) {
+            return 0;
+        }
+
+        double theta = Math.sqrt(2 * arcLength / b);
+        for (int i = 0; i < MAX_NEWTON_ITERATIONS; i++) {
+            final double step = (arcLength(theta) - arcLength) / (b * Math.sqrt(1 + theta * theta));
+            theta -= step;
+            if (Math.abs(step) <= 1e-12 * Math.max(1, theta)) {
+                break;
+            }
+        }
+        return theta;
+    }
+
+    double arcLength(double theta) {
+        final double root = Math.sqrt(1 + theta * theta);
+        return b / 2 * (theta * root + Math.log(theta + root));
+    }
+
+    /*
+     * The spiral is mirrored on the y axis, which makes it wind clockwise on the screen, like the spiral templates.
+     */
+
+    private double spiralX(double theta) {
+        return b * theta * Math.cos(theta);
+    }
+
+    private double spiralY(double theta) {
+        return -b * theta * Math.sin(theta);
+    }
+
+    /**
+     * The x component of the normalized direction of travel from the start towards the center, which is the negative
+     * derivative by <code>theta</code>.
+     */
+    private double directionX(double theta) {
+        return (theta * Math.sin(theta) - Math.cos(theta)) / Math.sqrt(1 + theta * theta);
+    }
+
+    private double directionY(double theta) {
+        return (Math.sin(theta) + theta * Math.cos(theta)) / Math.sqrt(1 + theta * theta);
+    }
+
+    private Point2D toWorld(double x, double y, boolean isPosition) {
+        final double relativeX = isPosition ? x - startX : x;
+        final double relativeY = isPosition ? y - startY : y;
+        return new Point2D.Double(relativeX * rotationCos - relativeY * rotationSin, relativeX * rotationSin + relativeY * rotationCos);
+    }
+
+    @Override
+    public String toString() {
+        return "ArchimedeanSpiral{length=" + length + ", turnSpacing=" + turnSpacing + ", innerRadius=" + innerRadius + "}";
+    }
+}
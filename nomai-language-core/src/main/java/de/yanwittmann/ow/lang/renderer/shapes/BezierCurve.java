@@ -9,8 +9,18 @@ public class BezierCurve {
 
     private List<Point2D> controlPoints;
     private List<Point2D> absoluteControlPoints;
+    /**
+     * <code>derivativeCoordinates[k]</code> contains the packed <code>x, y</code> control points of the k-th derivative
+     * of the curve, which is a curve of a degree that is k lower. <code>derivativeCoordinates[0]</code> contains the
+     * absolute control points themselves.
+     */
+    private double[][] derivativeCoordinates;
 
     private ShapeTransformation transformation = new ShapeTransformation();
+    /**
+     * Built on the first lookup and dropped whenever the absolute control points change.
+     */
+    private volatile ArcLengthTable arcLengthTable;
 
     public BezierCurve() {
         this.controlPoints = new ArrayList<>();
@@ -41,6 +51,8 @@ public class BezierCurve {
 
     public void recalculateAbsoluteControlPoints() {
         absoluteControlPoints = transformation.absolutePositions(controlPoints);
+        derivativeCoordinates = derivativeCoordinates(PackedGeometry.pack(absoluteControlPoints.toArray(new Point2D[0])));
+        arcLengthTable = null;
     }
 
     public void addControlPoint(Point2D... point) {
@@ -62,22 +74,67 @@ public class BezierCurve {
     }
 
     public Point2D getPointOnCurve(double t) {
-        return calculateBezierPoint(t, absoluteControlPoints);
-    }
-
-    private Point2D calculateBezierPoint(double t, List<Point2D> controlPoints) {
-        final int n = controlPoints.size() - 1;
-        if (n == 0) {
-            return controlPoints.get(0);
-        } else {
-            final List<Point2D> newControlPoints = new ArrayList<>();
-            for (int i = 0; i < n; i++) {
-                final double x = (1 - t) * controlPoints.get(i).getX() + t * controlPoints.get(i + 1).getX();
-                final double y = (1 - t) * controlPoints.get(i).getY() + t * controlPoints.get(i + 1).getY();
-                newControlPoints.add(new Point2D.Double(x, y));
+        return getPointOnCurve(t, new Point2D.Double());
+    }
+
+    /**
+     * Same as {@link #getPointOnCurve(double)}, but writes the point into the target instead of allocating a new one.
+     *
+     * @return The target.
+     */
+    public Point2D getPointOnCurve(double t, Point2D target) {
+        final double[] coordinates = derivativeCoordinates[0];
+        if (coordinates.length == 0) {
+            throw new IllegalStateException("Curve has no control points");
+        }
+        evaluate(coordinates, t, target);
+        return target;
+    }
+
+    private static double[][] derivativeCoordinates(double[] coordinates) {
+        final int degree = coordinates.length / 2 - 1;
+        final double[][] derivatives = new double[Math.max(1, degree + 1)][];
+        derivatives[0] = coordinates;
+        // the control points of the derivative of a curve of degree n are n * (P[i + 1] - P[i])
+        for (int order = 1; order <= degree; order++) {
+            final double[] previous = derivatives[order - 1];
+            final double[] derivative = new double[previous.length - 2];
+            final int factor = degree - order + 1;
+            for (int i = 0; i < derivative.length; i++) {
+                derivative[i] = factor * (previous[i + 2] - previous[i]);
             }
-            return calculateBezierPoint(t, newControlPoints);
+            derivatives[order] = derivative;
         }
+        return derivatives;
+    }
+
+    /**
+     * Evaluates the Bernstein form of the curve with a Horner like scheme, where <code>s = 1 - t</code>:
+     * <pre>
+     * (((P0 s + n P1 t) s + (n choose 2) P2 t^2) s + ...) s + Pn t^n
+     * </pre>
+     * Both ends are exact, since either <code>s</code> or <code>t</code> is zero there.
+     */
+    private static void evaluate(double[] coordinates, double t, Point2D target) {
+        final int degree = coordinates.length / 2 - 1;
+        if (degree == 0) {
+            target.setLocation(coordinates[0], coordinates[1]);
+            return;
+        }
+
+        final double s = 1 - t;
+        double tPower = 1;
+        double binomial = 1;
+        double x = coordinates[0] * s;
+        double y = coordinates[1] * s;
+        for (int i = 1; i < degree; i++) {
+            tPower *= t;
+            binomial = binomial * (degree - i + 1) / i;
+            x = (x + tPower * binomial * coordinates[i * 2]) * s;
+            y = (y + tPower * binomial * coordinates[i * 2 + 1]) * s;
+        }
+        tPower *= t;
+        target.setLocation(x + tPower * coordinates[degree * 2], y + tPower * coordinates[degree * 2 + 1]);
     }
 
     public double calculateLengthOfCurveAt(double t) {
@@ -88,12 +145,15 @@ public class BezierCurve {
         final int steps = Math.max(1, (int) (detail * t));
         double length = 0;
         Point2D previousPoint = getPointOnCurve(0);
+        Point2D currentPoint = new Point2D.Double();
 
         for (int i = 1; i <= steps * t; i++) {
             double currentT = (double) i / steps;
-            Point2D currentPoint = getPointOnCurve(currentT);
+            getPointOnCurve(currentT, currentPoint);
             length += previousPoint.distance(currentPoint);
+            final Point2D swap = previousPoint;
             previousPoint = currentPoint;
+            currentPoint = swap;
         }
 
         return length;
@@ -109,12 +169,15 @@ public class BezierCurve {
         final int steps = Math.max(1, (int) (detail * x));
         double length = 0;
         Point2D previousPoint = getPointOnCurve(0);
+        Point2D currentPoint = new Point2D.Double();
 
         for (int i = 1; i <= steps; i++) {
             double currentT = (double) i / steps;
-            Point2D currentPoint = getPointOnCurve(currentT);
+            getPointOnCurve(currentT, currentPoint);
             length += previousPoint.distance(currentPoint);
+            final Point2D swap = previousPoint;
             previousPoint = currentPoint;
+            currentPoint = swap;
             if (length >= x) {
                 return currentT;
             }
@@ -123,18 +186,84 @@ public class BezierCurve {
         return 1;
     }
 
+    /**
+     * Finds <code>t</code> at the given distance along the curve using an {@link ArcLengthTable} that is built once for
+     * the current control points. The arc length from the start of the curve to the point at the returned
+     * <code>t</code> differs from the requested length by at most {@link ArcLengthTable#TARGET_MAX_ERROR} units for
+     * any curve that can be sampled accurately with {@link ArcLengthTable#MAX_SEGMENTS} chords. Curves created by a
+     * {@link BezierCurveTemplate} share the table of the template, which keeps this bound up to scale 10.
+     *
+     * @return <code>t</code> at the length, <code>0</code> for lengths up to zero and <code>1</code> for lengths
+     * beyond the end of the curve.
+     */
+    public double findTForLength(double length) {
+        return getArcLengthTable().findTForLength(length);
+    }
+
+    /**
+     * @return The length of the curve, taken from the same table as {@link #findTForLength(double)}.
+     */
+    public double getLength() {
+        return getArcLengthTable().getLength();
+    }
+
+    /**
+     * Uses the table for lookups until the absolute control points change. The table must describe the current
+     * absolute control points.
+     */
+    void setArcLengthTable(ArcLengthTable arcLengthTable) {
+        this.arcLengthTable = arcLengthTable;
+    }
+
+    ArcLengthTable getArcLengthTable() {
+        ArcLengthTable table = arcLengthTable;
+        if (table == null) {
+            table = ArcLengthTable.fromCurve(this);
+            arcLengthTable = table;
+        }
+        return table;
+    }
+
     public Point2D getTangentAt(double t) {
-        Point2D pointBefore = getPointOnCurve(Math.max(0, t - 0.01));
-        Point2D pointAfter = getPointOnCurve(Math.min(1, t + 0.01));
-        double dx = pointAfter.getX() - pointBefore.getX();
-        double dy = pointAfter.getY() - pointBefore.getY();
-        double length = Math.sqrt(dx * dx + dy * dy);
-        return new Point2D.Double(dx / length, dy / length);
+        return getTangentAt(t, new Point2D.Double());
+    }
+
+    /**
+     * Calculates the normalized direction of the curve at <code>t</code> from its derivative. Where the derivative
+     * vanishes, for example at an end of the curve that has two equal control points, the first derivative of a
+     * higher order that does not vanish gives the direction. A curve that is a single point has the tangent
+     * <code>(0, 0)</code>.
+     *
+     * @return The target.
+     */
+    public Point2D getTangentAt(double t, Point2D target) {
+        for (int order = 1; order < derivativeCoordinates.length; order++) {
+            evaluate(derivativeCoordinates[order], t, target);
+            final double length = Math.sqrt(target.getX() * target.getX() + target.getY() * target.getY());
+            if (length > 0) {
+                // at the end of the curve, the curve arrives against the derivative if its order is even
+                final double direction = t >= 1 && order % 2 == 0 ? -length : length;
+                target.setLocation(target.getX() / direction, target.getY() / direction);
+                return target;
+            }
+        }
+        target.setLocation(0, 0);
+        return target;
     }
 
     public Point2D getNormalAt(double t) {
-        Point2D tangent = getTangentAt(t);
-        return new Point2D.Double(-tangent.getY(), tangent.getX());
+        return getNormalAt(t, new Point2D.Double());
+    }
+
+    /**
+     * Same as {@link #getNormalAt(double)}, but writes the normal into the target instead of allocating a new one.
+     *
+     * @return The target.
+     */
+    public Point2D getNormalAt(double t, Point2D target) {
+        getTangentAt(t, target);
+        target.setLocation(-target.getY(), target.getX());
+        return target;
     }
 
     public void setFirstControlPointAsOrigin() {
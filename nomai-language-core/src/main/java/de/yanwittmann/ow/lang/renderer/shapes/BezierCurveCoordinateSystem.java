@@ -2,7 +2,7 @@ package de.yanwittmann.ow.lang.renderer.shapes;
 
 import java.awt.geom.Point2D;
 
-public class BezierCurveCoordinateSystem {
+public class BezierCurveCoordinateSystem implements PathCoordinateSystem {
 
     private BezierCurve curve;
 
@@ -10,14 +10,47 @@ public class BezierCurveCoordinateSystem {
         this.curve = curve;
     }
 
-    public Point2D worldToBezier(Point2D point, int detail) {
-        final double t = curve.findTForX(point.getX(), detail);
-        final Point2D pointOnCurve = curve.getPointOnCurve(t);
+    /**
+     * Maps a point to the curve: the x coordinate is the distance along the curve and the y coordinate the distance
+     * along the normal of the curve at that point. The distance along the curve is looked up in an arc length table,
+     * see {@link BezierCurve#findTForLength(double)}.
+     */
+    @Override
+    public Point2D worldToBezier(Point2D point) {
+        final double t = curve.findTForLength(point.getX());
         final Point2D normal = curve.getNormalAt(t);
-        return new Point2D.Double(pointOnCurve.getX() + normal.getX() * point.getY(), pointOnCurve.getY() + normal.getY() * point.getY());
+        final Point2D pointOnCurve = curve.getPointOnCurve(t, new Point2D.Double());
+        pointOnCurve.setLocation(pointOnCurve.getX() + normal.getX() * point.getY(), pointOnCurve.getY() + normal.getY() * point.getY());
+        return pointOnCurve;
+    }
+
+    /**
+     * @param t The curve parameter, see {@link BezierCurve#getPointOnCurve(double)}.
+     */
+    @Override
+    public Point2D getPointOnPath(double t) {
+        return curve.getPointOnCurve(t);
+    }
+
+    /**
+     * @param t The curve parameter, see {@link BezierCurve#getNormalAt(double)}.
+     */
+    @Override
+    public Point2D getNormalOnPath(double t) {
+        return curve.getNormalAt(t);
+    }
+
+    @Override
+    public double getPathLength() {
+        return curve.getLength();
     }
 
     public BezierCurve getCurve() {
         return curve;
     }
+
+    @Override
+    public String toString() {
+        return curve.getControlPoints().stream().map(p -> "{" + p.getX() + "," + p.getY() + "}").reduce((a, b) -> a + "," + b).orElse("null");
+    }
 }
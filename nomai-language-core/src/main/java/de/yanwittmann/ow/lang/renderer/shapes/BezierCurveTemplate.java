@@ -0,0 +1,92 @@
+package de.yanwittmann.ow.lang.renderer.shapes;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An immutable curve shape that creates curves of any length. The control points are moved so that the first one is
+ * the origin and the {@link ArcLengthTable} and length at scale 1 are computed once when the template is created.
+ * Curves created by {@link #createCurve(double)} share the table, scaled to their length, so creating a curve does not
+ * sample it again. Templates can be shared between threads.
+ * <p>
+ * Since the error of a shared table grows with the scale, the table of a template is built ten times more accurate
+ * than the table of a single curve: up to scale 10, lookups on the created curves are as accurate as on any other curve.
+ */
+public final class BezierCurveTemplate {
+
+    static final double TARGET_MAX_ERROR = ArcLengthTable.TARGET_MAX_ERROR / 10;
+
+    private final Point2D[] controlPoints;
+    private final ArcLengthTable arcLengthTable;
+
+    private BezierCurveTemplate(Point2D[] controlPoints) {
+        this.controlPoints = controlPoints;
+        this.arcLengthTable = ArcLengthTable.fromCurve(new BezierCurve(copyControlPoints()), TARGET_MAX_ERROR);
+    }
+
+    /**
+     * @param controlPoints The control points, at least one. The first one becomes the start of every created curve.
+     */
+    public static BezierCurveTemplate fromControlPoints(Point2D... controlPoints) {
+        Objects.requireNonNull(controlPoints, "Control points cannot be null!");
+        if (controlPoints.length == 0) {
+            throw new IllegalArgumentException("A curve template needs at least one control point");
+        }
+
+        final Point2D origin = controlPoints[0];
+        final Point2D[] normalized = new Point2D[controlPoints.length];
+        for (int i = 0; i < controlPoints.length; i++) {
+            normalized[i] = new Point2D.Double(controlPoints[i].getX() - origin.getX(), controlPoints[i].getY() - origin.getY());
+        }
+        return new BezierCurveTemplate(normalized);
+    }
+
+    /**
+     * Creates a template from the untransformed control points of the curve, its transformation is not part of the
+     * template.
+     */
+    public static BezierCurveTemplate fromCurve(BezierCurve curve) {
+        Objects.requireNonNull(curve, "Curve cannot be null!");
+        return fromControlPoints(curve.getUnTransformedControlPoints().toArray(new Point2D[0]));
+    }
+
+    /**
+     * @return A new curve with the control points of this template, scaled to the given length. The curve can be
+     * modified without affecting the template.
+     */
+    public BezierCurve createCurve(double length) {
+        final BezierCurve curve = new BezierCurve(copyControlPoints());
+        final double unitLength = getUnitLength();
+        final double scale = unitLength > 0 ? length / unitLength : 1;
+
+        curve.getTransformation().setScale(scale);
+        curve.recalculateAbsoluteControlPoints();
+        curve.setArcLengthTable(arcLengthTable.scaled(scale));
+        return curve;
+    }
+
+    public BezierCurveCoordinateSystem createCoordinateSystem(double length) {
+        return createCurve(length).getCoordinateSystem();
+    }
+
+    /**
+     * @return The length of the curve at scale 1.
+     */
+    public double getUnitLength() {
+        return arcLengthTable.getLength();
+    }
+
+    public List<Point2D> getControlPoints() {
+        final List<Point2D> copy = new ArrayList<>();
+        for (Point2D controlPoint : controlPoints) {
+            copy.add((Point2D) controlPoint.clone());
+        }
+        return copy;
+    }
+
+    private Point2D[] copyControlPoints() {
+        return getControlPoints().toArray(new Point2D[0]);
+    }
+}
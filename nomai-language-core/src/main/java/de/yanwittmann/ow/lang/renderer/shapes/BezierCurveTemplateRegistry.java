@@ -0,0 +1,65 @@
+package de.yanwittmann.ow.lang.renderer.shapes;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An immutable selection of {@link BezierCurveTemplate}s by the length of the curve that is needed, so that longer
+ * texts can use longer and more detailed curves. Registries can be shared between threads.
+ * <pre>
+ * final BezierCurveTemplateRegistry registry = new BezierCurveTemplateRegistry(
+ *         new double[]{500, Double.POSITIVE_INFINITY},
+ *         new BezierCurveTemplate[]{shortTemplate, longTemplate});
+ * final BezierCurveCoordinateSystem coordinateSystem = registry.createCoordinateSystem(largestX);
+ * </pre>
+ */
+public final class BezierCurveTemplateRegistry {
+
+    private final double[] maxLengths;
+    private final BezierCurveTemplate[] templates;
+
+    /**
+     * @param maxLengths The exclusive upper bound of the lengths every template is used for, in ascending order. The
+     *                   last bound should be {@link Double#POSITIVE_INFINITY}, longer lengths use the last template.
+     * @param templates  The templates, one for every bound.
+     */
+    public BezierCurveTemplateRegistry(double[] maxLengths, BezierCurveTemplate[] templates) {
+        Objects.requireNonNull(maxLengths, "Max lengths cannot be null!");
+        Objects.requireNonNull(templates, "Templates cannot be null!");
+        if (templates.length == 0 || maxLengths.length != templates.length) {
+            throw new IllegalArgumentException("Expected one max length for every template, got [" + maxLengths.length + "] max lengths and [" + templates.length + "] templates");
+        }
+        for (int i = 0; i < templates.length; i++) {
+            Objects.requireNonNull(templates[i], "Template cannot be null!");
+            if (i > 0 && !(maxLengths[i] > maxLengths[i - 1])) {
+                throw new IllegalArgumentException("Max lengths must be ascending, got " + Arrays.toString(maxLengths));
+            }
+        }
+
+        this.maxLengths = maxLengths.clone();
+        this.templates = templates.clone();
+    }
+
+    /**
+     * @return The first template with a max length that is larger than the length, or the last template.
+     */
+    public BezierCurveTemplate getTemplate(double length) {
+        int template = 0;
+        while (template < templates.length - 1 && length >= maxLengths[template]) {
+            template++;
+        }
+        return templates[template];
+    }
+
+    /**
+     * @return A coordinate system along a new curve of exactly the given length, see
+     * {@link BezierCurveTemplate#createCurve(double)}.
+     */
+    public BezierCurveCoordinateSystem createCoordinateSystem(double length) {
+        return getTemplate(length).createCoordinateSystem(length);
+    }
+
+    public int size() {
+        return templates.length;
+    }
+}
@@ -1,6 +1,7 @@
 package de.yanwittmann.ow.lang.renderer.shapes;
 
 import de.yanwittmann.ow.lang.tokenizer.WrittenNomaiBranchingLetterNode;
+import de.yanwittmann.ow.lang.tokenizer.WrittenNomaiFlatLetterTree;
 import de.yanwittmann.ow.lang.tokenizer.WrittenNomaiTextLetter;
 
 import java.awt.geom.Line2D;
@@ -8,14 +9,44 @@ import java.awt.geom.Point2D;
 
 public class LetterShape {
 
+    private static final Point2D[] ROOT_LINE_POSITIONS = new Point2D[0];
+    private static final double[] ROOT_LINE_COORDINATES = new double[0];
+    private static final Point2D[] ROOT_BRANCH_POSITIONS = new Point2D[]{new Point2D.Double(0, 0)};
+    private static final double[] ROOT_BRANCH_COORDINATES = PackedGeometry.pack(ROOT_BRANCH_POSITIONS);
+
     private final WrittenNomaiBranchingLetterNode sourceNode;
     private final WrittenNomaiTextLetter sourceLetter;
     private final ShapeDefinitions sourceShapeDefinition;
+    /**
+     * The index of the node in the {@link WrittenNomaiFlatLetterTree} the shape has been created from or
+     * {@link WrittenNomaiFlatLetterTree#NONE}.
+     */
+    private int sourceIndex = WrittenNomaiFlatLetterTree.NONE;
 
     private ShapeTransformation transformation = new ShapeTransformation();
 
     private Point2D[] linePositions;
     private Point2D[] branchPositions;
+    /**
+     * The relative positions packed as <code>x0, y0, x1, y1, ...</code>, see {@link PackedGeometry}.
+     */
+    private double[] lineCoordinates = new double[0];
+    private double[] branchCoordinates = new double[0];
+
+    /**
+     * The absolute geometry is computed on first access and reused until the positions, the transformation or any of
+     * its values change. The packed coordinates are recomputed into the same arrays, the point and line objects are
+     * only created when they are requested.
+     */
+    private double[] absoluteLineCoordinates;
+    private double[] absoluteBranchCoordinates;
+    private boolean absoluteLineCoordinatesValid;
+    private boolean absoluteBranchCoordinatesValid;
+    private Point2D[] absoluteLinePositions;
+    private Point2D[] absoluteBranchPositions;
+    private Line2D[] absoluteLines;
+    private ShapeTransformation cachedTransformation;
+    private int cachedModificationCount;
 
     public LetterShape(WrittenNomaiBranchingLetterNode sourceNode, WrittenNomaiTextLetter sourceLetter, ShapeDefinitions sourceShapeDefinition) {
         this.sourceNode = sourceNode;
@@ -45,6 +76,10 @@ public class LetterShape {
         return sourceNode;
     }
 
+    public int getSourceIndex() {
+        return sourceIndex;
+    }
+
     public ShapeDefinitions getSourceShapeDefinition() {
         return sourceShapeDefinition;
     }
@@ -54,46 +89,123 @@ public class LetterShape {
     }
 
     public void setLinePositions(Point2D[] linePositions) {
-        this.linePositions = linePositions;
+        setLinePositions(linePositions, PackedGeometry.pack(linePositions));
     }
 
     public void setBranchPositions(Point2D[] branchPositions) {
+        setBranchPositions(branchPositions, PackedGeometry.pack(branchPositions));
+    }
+
+    private void setLinePositions(Point2D[] linePositions, double[] lineCoordinates) {
+        this.linePositions = linePositions;
+        this.lineCoordinates = lineCoordinates;
+        invalidateAbsoluteGeometry();
+    }
+
+    private void setBranchPositions(Point2D[] branchPositions, double[] branchCoordinates) {
         this.branchPositions = branchPositions;
+        this.branchCoordinates = branchCoordinates;
+        invalidateAbsoluteGeometry();
+    }
+
+    /**
+     * Roots have no lines and a single branch position at their origin, these arrays are shared between all roots.
+     */
+    private void setRootPositions() {
+        setLinePositions(ROOT_LINE_POSITIONS, ROOT_LINE_COORDINATES);
+        setBranchPositions(ROOT_BRANCH_POSITIONS, ROOT_BRANCH_COORDINATES);
     }
 
     public void setTransformation(ShapeTransformation transformation) {
         this.transformation = transformation;
+        invalidateAbsoluteGeometry();
     }
 
     public ShapeTransformation getTransformation() {
         return transformation;
     }
 
+    private void invalidateAbsoluteGeometry() {
+        absoluteLineCoordinatesValid = false;
+        absoluteBranchCoordinatesValid = false;
+        absoluteLinePositions = null;
+        absoluteBranchPositions = null;
+        absoluteLines = null;
+        cachedTransformation = null;
+    }
+
+    private void validateAbsoluteGeometry() {
+        if (cachedTransformation != transformation || cachedModificationCount != transformation.getModificationCount()) {
+            invalidateAbsoluteGeometry();
+            cachedTransformation = transformation;
+            cachedModificationCount = transformation.getModificationCount();
+        }
+    }
+
+    /**
+     * @return The absolute line positions packed as <code>x0, y0, x1, y1, ...</code>, which form a polyline, see
+     * {@link PackedGeometry}. The array is reused when the shape changes and must not be modified.
+     */
+    public double[] getAbsoluteLineCoordinates() {
+        validateAbsoluteGeometry();
+        if (!absoluteLineCoordinatesValid) {
+            absoluteLineCoordinates = transformation.absoluteCoordinates(lineCoordinates, absoluteLineCoordinates);
+            absoluteLineCoordinatesValid = true;
+        }
+        return absoluteLineCoordinates;
+    }
+
+    /**
+     * @return The absolute branch positions packed as <code>x0, y0, x1, y1, ...</code>, see {@link PackedGeometry}.
+     * The array is reused when the shape changes and must not be modified.
+     */
+    public double[] getAbsoluteBranchCoordinates() {
+        validateAbsoluteGeometry();
+        if (!absoluteBranchCoordinatesValid) {
+            absoluteBranchCoordinates = transformation.absoluteCoordinates(branchCoordinates, absoluteBranchCoordinates);
+            absoluteBranchCoordinatesValid = true;
+        }
+        return absoluteBranchCoordinates;
+    }
+
+    /**
+     * @return A copy of the cached absolute line positions. The points are shared with the cache and must not be
+     * modified.
+     */
     public Point2D[] getAbsoluteLinePositions() {
-        return transformation.absolutePositions(linePositions);
+        final double[] coordinates = getAbsoluteLineCoordinates();
+        if (absoluteLinePositions == null) {
+            absoluteLinePositions = PackedGeometry.toPoints(coordinates);
+        }
+        return absoluteLinePositions.clone();
     }
 
     public Point2D[] getRawLinePositions() {
         return linePositions;
     }
 
+    /**
+     * @return A copy of the cached absolute lines, connecting every line position with the next one. The lines are
+     * shared with the cache and must not be modified.
+     */
     public Line2D[] getAbsoluteLines() {
-        // connect all absolute lines, do not wrap around (connect last with first)
-        final Point2D[] absoluteLinePositions = getAbsoluteLinePositions();
-        if (absoluteLinePositions.length > 0) {
-            final Line2D[] lines = new Line2D[absoluteLinePositions.length - 1];
-            for (int i = 0; i < absoluteLinePositions.length - 1; i++) {
-                lines[i] = new Line2D.Double(absoluteLinePositions[i], absoluteLinePositions[i + 1]);
-            }
-            return lines;
-
-        } else {
-            return new Line2D[0];
+        final double[] coordinates = getAbsoluteLineCoordinates();
+        if (absoluteLines == null) {
+            absoluteLines = PackedGeometry.toLines(coordinates);
         }
+        return absoluteLines.clone();
     }
 
+    /**
+     * @return A copy of the cached absolute branch positions. The points are shared with the cache and must not be
+     * modified.
+     */
     public Point2D[] getAbsoluteBranchPositions() {
-        return transformation.absolutePositions(branchPositions);
+        final double[] coordinates = getAbsoluteBranchCoordinates();
+        if (absoluteBranchPositions == null) {
+            absoluteBranchPositions = PackedGeometry.toPoints(coordinates);
+        }
+        return absoluteBranchPositions.clone();
     }
 
     public boolean isLetterConsonantOrRoot() {
@@ -109,15 +221,33 @@ public class LetterShape {
         letterShape.getTransformation().setOffsetPosition(new Point2D.Double(0, 0));
 
         if (node.isRoot()) {
-            letterShape.setLinePositions(new Point2D[]{});
-            letterShape.setBranchPositions(new Point2D[]{new Point2D.Double(0, 0)});
+            letterShape.setRootPositions();
 
         } else {
             final WrittenNomaiTextLetter letter = node.getLetter();
             final ShapeDefinitions shapeDefinition = letter.getShapeDefinition();
 
-            letterShape.setLinePositions(shapeDefinition.getPositions());
-            letterShape.setBranchPositions(shapeDefinition.getBranchPositions());
+            letterShape.setLinePositions(shapeDefinition.getPositions(), shapeDefinition.getPositionCoordinates());
+            letterShape.setBranchPositions(shapeDefinition.getBranchPositions(), shapeDefinition.getBranchPositionCoordinates());
+        }
+
+        return letterShape;
+    }
+
+    public static LetterShape fromFlatLetterTreeNode(WrittenNomaiFlatLetterTree tree, int node) {
+        final WrittenNomaiTextLetter letter = tree.getLetter(node);
+        final LetterShape letterShape = new LetterShape(tree.getSourceNode(node), letter, letter != null ? letter.getShapeDefinition() : null);
+        letterShape.sourceIndex = node;
+        letterShape.getTransformation().setOffsetPosition(new Point2D.Double(0, 0));
+
+        if (letter == null) {
+            letterShape.setRootPositions();
+
+        } else {
+            final ShapeDefinitions shapeDefinition = letterShape.getSourceShapeDefinition();
+
+            letterShape.setLinePositions(shapeDefinition.getPositions(), shapeDefinition.getPositionCoordinates());
+            letterShape.setBranchPositions(shapeDefinition.getBranchPositions(), shapeDefinition.getBranchPositionCoordinates());
         }
 
         return letterShape;
@@ -127,8 +257,7 @@ public class LetterShape {
         final LetterShape letterShape = new LetterShape();
         letterShape.getTransformation().setOffsetPosition(new Point2D.Double(0, 0));
 
-        letterShape.setLinePositions(new Point2D[]{});
-        letterShape.setBranchPositions(new Point2D[]{new Point2D.Double(0, 0)});
+        letterShape.setRootPositions();
 
         return letterShape;
     }
@@ -137,8 +266,8 @@ public class LetterShape {
         final LetterShape letterShape = new LetterShape(shapeDefinition);
         letterShape.getTransformation().setOffsetPosition(new Point2D.Double(0, 0));
 
-        letterShape.setLinePositions(shapeDefinition.getPositions());
-        letterShape.setBranchPositions(shapeDefinition.getBranchPositions());
+        letterShape.setLinePositions(shapeDefinition.getPositions(), shapeDefinition.getPositionCoordinates());
+        letterShape.setBranchPositions(shapeDefinition.getBranchPositions(), shapeDefinition.getBranchPositionCoordinates());
 
         return letterShape;
     }
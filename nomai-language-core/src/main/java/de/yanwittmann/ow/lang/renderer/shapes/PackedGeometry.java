@@ -0,0 +1,144 @@
+package de.yanwittmann.ow.lang.renderer.shapes;
+
+import java.awt.geom.Line2D;
+import java.awt.geom.Point2D;
+
+/**
+ * Kernels that work on points packed into <code>double</code> arrays as <code>x0, y0, x1, y1, ...</code>. A packed
+ * polyline connects every point with the next one, without wrapping around. None of the kernels allocate any objects,
+ * so they can be used in the inner loops of the layout, while {@link Point2D} and {@link Line2D} objects are only
+ * created where geometry leaves the layout.
+ * <p>
+ * The kernels perform exactly the same floating point operations as the object based code they replace, so their
+ * results are identical. The only exception are the <code>countIntersections</code> kernels, which test segments using
+ * {@link #segmentsIntersect}.
+ */
+public final class PackedGeometry {
+
+    /**
+     * The amount by which the bounding boxes of segments are grown in {@link #segmentsIntersect}.
+     */
+    public static final double BOX_PADDING = 1e-6;
+
+    private PackedGeometry() {
+    }
+
+    public static double[] pack(Point2D[] points) {
+        if (points == null) {
+            return new double[0];
+        }
+        final double[] coordinates = new double[points.length * 2];
+        for (int i = 0; i < points.length; i++) {
+            coordinates[i * 2] = points[i].getX();
+            coordinates[i * 2 + 1] = points[i].getY();
+        }
+        return coordinates;
+    }
+
+    public static Point2D[] toPoints(double[] coordinates) {
+        final Point2D[] points = new Point2D[coordinates.length / 2];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = new Point2D.Double(coordinates[i * 2], coordinates[i * 2 + 1]);
+        }
+        return points;
+    }
+
+    public static Line2D[] toLines(double[] polyline) {
+        final int pointCount = polyline.length / 2;
+        if (pointCount == 0) {
+            return new Line2D[0];
+        }
+        final Line2D[] lines = new Line2D[pointCount - 1];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = new Line2D.Double(polyline[i * 2], polyline[i * 2 + 1], polyline[i * 2 + 2], polyline[i * 2 + 3]);
+        }
+        return lines;
+    }
+
+    /**
+     * Same as {@link Line2D#linesIntersect}, but segments with disjoint bounding boxes never intersect. For segments
+     * that lie on almost the same line, rounding errors can make {@link Line2D#linesIntersect} report an intersection
+     * no matter how far apart the segments are. Testing the boxes first removes these, so that only segments close to
+     * each other need to be tested, see <code>IntersectionGrid</code>. The boxes are padded by {@link #BOX_PADDING},
+     * segments that touch are still tested.
+     * <p>
+     * The only exception are two segments of length zero, which {@link Line2D#linesIntersect} reports as intersecting
+     * no matter where they are. This is kept, so that the count of the drawables does not change.
+     */
+    public static boolean segmentsIntersect(double x1, double y1, double x2, double y2, double x3, double y3, double x4, double y4) {
+        final boolean degenerate = x1 == x2 && y1 == y2 && x3 == x4 && y3 == y4;
+        if (!degenerate && (Math.min(x3, x4) - BOX_PADDING > Math.max(x1, x2) + BOX_PADDING
+                            || Math.min(x1, x2) - BOX_PADDING > Math.max(x3, x4) + BOX_PADDING
+                            || Math.min(y3, y4) - BOX_PADDING > Math.max(y1, y2) + BOX_PADDING
+                            || Math.min(y1, y2) - BOX_PADDING > Math.max(y3, y4) + BOX_PADDING)) {
+            return false;
+        }
+        return Line2D.linesIntersect(x1, y1, x2, y2, x3, y3, x4, y4);
+    }
+
+    /**
+     * @return The amount of segments of the first polyline that intersect a segment of the second polyline, see
+     * {@link #segmentsIntersect}.
+     */
+    public static int countIntersections(double[] polylineA, double[] polylineB) {
+        int count = 0;
+        for (int i = 0; i + 3 < polylineA.length; i += 2) {
+            for (int j = 0; j + 3 < polylineB.length; j += 2) {
+                if (segmentsIntersect(polylineA[i], polylineA[i + 1], polylineA[i + 2], polylineA[i + 3],
+                        polylineB[j], polylineB[j + 1], polylineB[j + 2], polylineB[j + 3])) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return The amount of segments of the polyline that intersect the segment, see {@link #segmentsIntersect}.
+     */
+    public static int countIntersections(double[] polyline, double x1, double y1, double x2, double y2) {
+        int count = 0;
+        for (int i = 0; i + 3 < polyline.length; i += 2) {
+            if (segmentsIntersect(polyline[i], polyline[i + 1], polyline[i + 2], polyline[i + 3], x1, y1, x2, y2)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return Whether any segment of the first polyline intersects any segment of the second polyline.
+     */
+    public static boolean intersects(double[] polylineA, double[] polylineB) {
+        for (int i = 0; i + 3 < polylineA.length; i += 2) {
+            if (intersects(polylineB, polylineA[i], polylineA[i + 1], polylineA[i + 2], polylineA[i + 3])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return Whether any segment of the polyline intersects the segment.
+     */
+    public static boolean intersects(double[] polyline, double x1, double y1, double x2, double y2) {
+        for (int i = 0; i + 3 < polyline.length; i += 2) {
+            if (Line2D.linesIntersect(polyline[i], polyline[i + 1], polyline[i + 2], polyline[i + 3], x1, y1, x2, y2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Moves both end points of the segment towards each other by the given amount and writes the result into the
+     * target array as <code>x1, y1, x2, y2</code>.
+     */
+    public static void shortenSegment(double x1, double y1, double x2, double y2, double amount, double[] target) {
+        final double angle = Math.atan2(y2 - y1, x2 - x1);
+        target[0] = x1 + Math.cos(angle) * amount;
+        target[1] = y1 + Math.sin(angle) * amount;
+        target[2] = x2 - Math.cos(angle) * amount;
+        target[3] = y2 - Math.sin(angle) * amount;
+    }
+}
@@ -0,0 +1,28 @@
+package de.yanwittmann.ow.lang.renderer.shapes;
+
+import java.awt.geom.Point2D;
+
+/**
+ * Maps points along a path that the letter shapes are transformed onto, see {@link BezierCurveCoordinateSystem} and
+ * {@link ArchimedeanSpiralCoordinateSystem}.
+ */
+public interface PathCoordinateSystem {
+
+    /**
+     * Maps a point to the path: the x coordinate is the distance along the path and the y coordinate the distance
+     * along the normal of the path at that point.
+     */
+    Point2D worldToBezier(Point2D point);
+
+    /**
+     * @param t The position on the path from <code>0</code> at its start to <code>1</code> at its end.
+     */
+    Point2D getPointOnPath(double t);
+
+    /**
+     * @param t The position on the path from <code>0</code> at its start to <code>1</code> at its end.
+     */
+    Point2D getNormalOnPath(double t);
+
+    double getPathLength();
+}
@@ -82,8 +82,25 @@ public enum ShapeDefinitions {
             new int[][]{{37, 55}, {56, 45}, {61, 20}, {38, 8}, {14, 19}, {10, 45}, {34, 73}, {46, 89}, {70, 90}, {83, 80}, {83, 55}, {72, 46}}),
     ;
 
+    /**
+     * The shape definitions indexed by both symbol types, see {@link #typeIndex(WrittenNomaiTextSymbolType)}.
+     */
+    private static final ShapeDefinitions[][] BY_TYPES = new ShapeDefinitions[WrittenNomaiTextSymbolType.values().length + 1][WrittenNomaiTextSymbolType.values().length + 1];
+
+    static {
+        for (ShapeDefinitions shapeDefinition : values()) {
+            final int a = typeIndex(shapeDefinition.typeA);
+            final int b = typeIndex(shapeDefinition.typeB);
+            // the first matching definition wins, in either order of the types
+            if (BY_TYPES[a][b] == null) BY_TYPES[a][b] = shapeDefinition;
+            if (BY_TYPES[b][a] == null) BY_TYPES[b][a] = shapeDefinition;
+        }
+    }
+
     private final Point2D[] positions;
     private final Point2D[] branchPositions;
+    private final double[] positionCoordinates;
+    private final double[] branchPositionCoordinates;
 
     private final WrittenNomaiTextSymbolType typeA;
     private final WrittenNomaiTextSymbolType typeB;
@@ -105,6 +122,9 @@ public enum ShapeDefinitions {
         for (int i = 0; i < branchPositions.length; i++) {
             this.branchPositions[i] = new Point2D.Double(branchPositions[i][0] - center.getX(), branchPositions[i][1] - center.getY());
         }
+
+        this.positionCoordinates = PackedGeometry.pack(this.positions);
+        this.branchPositionCoordinates = PackedGeometry.pack(this.branchPositions);
     }
 
     public Point2D[] getPositions() {
@@ -115,6 +135,22 @@ public enum ShapeDefinitions {
         return branchPositions;
     }
 
+    /**
+     * @return The positions packed as <code>x0, y0, x1, y1, ...</code>, see {@link PackedGeometry}. The array is
+     * shared and must not be modified.
+     */
+    public double[] getPositionCoordinates() {
+        return positionCoordinates;
+    }
+
+    /**
+     * @return The branch positions packed as <code>x0, y0, x1, y1, ...</code>, see {@link PackedGeometry}. The array
+     * is shared and must not be modified.
+     */
+    public double[] getBranchPositionCoordinates() {
+        return branchPositionCoordinates;
+    }
+
     public Rectangle2D getBoundingBox(Point2D[] positions) {
         double minX = Double.MAX_VALUE;
         double minY = Double.MAX_VALUE;
@@ -140,10 +176,14 @@ public enum ShapeDefinitions {
     }
 
     public static ShapeDefinitions fromCombinationOfTypes(WrittenNomaiTextSymbolType a, WrittenNomaiTextSymbolType b) {
-        for (ShapeDefinitions shapeDefinition : values()) {
-            if (shapeDefinition.typeA == a && shapeDefinition.typeB == b) return shapeDefinition;
-            else if (shapeDefinition.typeA == b && shapeDefinition.typeB == a) return shapeDefinition;
+        final ShapeDefinitions shapeDefinition = BY_TYPES[typeIndex(a)][typeIndex(b)];
+        if (shapeDefinition == null) {
+            throw new IllegalArgumentException("No shape definition found for " + a + " and " + b);
         }
-        throw new IllegalArgumentException("No shape definition found for " + a + " and " + b);
+        return shapeDefinition;
+    }
+
+    private static int typeIndex(WrittenNomaiTextSymbolType type) {
+        return type == null ? 0 : type.ordinal() + 1;
     }
 }
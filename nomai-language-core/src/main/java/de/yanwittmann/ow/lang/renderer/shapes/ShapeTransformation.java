@@ -4,15 +4,25 @@ import java.awt.geom.Point2D;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Rotates, scales and then translates relative positions. The sine and cosine of the rotation are computed once when
+ * the rotation is set, and every change increments a modification count that allows caching transformed positions.
+ */
 public class ShapeTransformation {
 
     private Point2D offsetPosition = new Point2D.Double(0, 0);
     private double rotationAngle = 0;
+    private double rotationCos = 1;
+    private double rotationSin = 0;
     private double scale = 1;
 
+    private int modificationCount;
+
     public ShapeTransformation(ShapeTransformation transformation) {
         this.offsetPosition = transformation.offsetPosition;
         this.rotationAngle = transformation.rotationAngle;
+        this.rotationCos = transformation.rotationCos;
+        this.rotationSin = transformation.rotationSin;
         this.scale = transformation.scale;
     }
 
@@ -21,8 +31,8 @@ public class ShapeTransformation {
 
     public Point2D absolutePosition(Point2D relativePosition) {
         // rotate
-        final double transformedX = relativePosition.getX() * Math.cos(rotationAngle) - relativePosition.getY() * Math.sin(rotationAngle);
-        final double transformedY = relativePosition.getX() * Math.sin(rotationAngle) + relativePosition.getY() * Math.cos(rotationAngle);
+        final double transformedX = relativePosition.getX() * rotationCos - relativePosition.getY() * rotationSin;
+        final double transformedY = relativePosition.getX() * rotationSin + relativePosition.getY() * rotationCos;
         // scale
         final double scaledX = transformedX * scale;
         final double scaledY = transformedY * scale;
@@ -30,6 +40,32 @@ public class ShapeTransformation {
         return new Point2D.Double(scaledX + offsetPosition.getX(), scaledY + offsetPosition.getY());
     }
 
+    /**
+     * Transforms packed relative coordinates <code>x0, y0, x1, y1, ...</code> the same way as
+     * {@link #absolutePosition(Point2D)}, without creating any point objects.
+     *
+     * @param relativeCoordinates The packed relative coordinates.
+     * @param target              The array to write the absolute coordinates into, a new array is created if it is
+     *                            <code>null</code> or does not have the same length as the relative coordinates.
+     * @return The array containing the absolute coordinates.
+     */
+    public double[] absoluteCoordinates(double[] relativeCoordinates, double[] target) {
+        if (target == null || target.length != relativeCoordinates.length) {
+            target = new double[relativeCoordinates.length];
+        }
+
+        final double offsetX = offsetPosition.getX();
+        final double offsetY = offsetPosition.getY();
+        for (int i = 0; i + 1 < relativeCoordinates.length; i += 2) {
+            final double x = relativeCoordinates[i];
+            final double y = relativeCoordinates[i + 1];
+            target[i] = (x * rotationCos - y * rotationSin) * scale + offsetX;
+            target[i + 1] = (x * rotationSin + y * rotationCos) * scale + offsetY;
+        }
+
+        return target;
+    }
+
     public Point2D[] absolutePositions(Point2D... relativePositions) {
         if (relativePositions == null) {
             return new Point2D[0];
@@ -58,14 +94,19 @@ public class ShapeTransformation {
 
     public void setOffsetPosition(Point2D offsetPosition) {
         this.offsetPosition = offsetPosition;
+        modificationCount++;
     }
 
     public void setRotationAngle(double rotationAngle) {
         this.rotationAngle = rotationAngle;
+        this.rotationCos = Math.cos(rotationAngle);
+        this.rotationSin = Math.sin(rotationAngle);
+        modificationCount++;
     }
 
     public void setScale(double scale) {
         this.scale = scale;
+        modificationCount++;
     }
 
     public Point2D getOffsetPosition() {
@@ -79,4 +120,11 @@ public class ShapeTransformation {
     public double getScale() {
         return scale;
     }
+
+    /**
+     * @return A number that changes whenever the offset, rotation or scale of the transformation is set.
+     */
+    public int getModificationCount() {
+        return modificationCount;
+    }
 }
@@ -3,6 +3,8 @@ package de.yanwittmann.ow.lang.tokenizer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -10,6 +12,11 @@ public class WrittenNomaiBranchingLetterNode {
 
     private static final Logger LOG = LogManager.getLogger(WrittenNomaiBranchingLetterNode.class);
 
+    /**
+     * Marks the empty line printed in front of the next word in {@link #toString()}.
+     */
+    private static final WrittenNomaiBranchingLetterNode WORD_SEPARATOR = new WrittenNomaiBranchingLetterNode(null);
+
     private WrittenNomaiTextLetter letter;
 
     private WrittenNomaiBranchingLetterNode nextWord;
@@ -23,8 +30,11 @@ public class WrittenNomaiBranchingLetterNode {
     }
 
     public WrittenNomaiBranchingLetterNode getDeepestConsonant() {
-        if (consonant == null) return this;
-        return consonant.getDeepestConsonant();
+        WrittenNomaiBranchingLetterNode current = this;
+        while (current.consonant != null) {
+            current = current.consonant;
+        }
+        return current;
     }
 
     public int getDepth() {
@@ -134,7 +144,10 @@ public class WrittenNomaiBranchingLetterNode {
         }
 
         final WrittenNomaiBranchingLetterNode root = flatNodes.get(0);
+        // currentNode is the tail of the chain (except for the first word, where it is the root) and deepestRoot the
+        // root of the last word appended to it, so that neither has to be searched for from the start of the chain
         WrittenNomaiBranchingLetterNode currentNode = root;
+        WrittenNomaiBranchingLetterNode deepestRoot = root;
 
         for (int i = 1; i < flatNodes.size(); i++) {
             final WrittenNomaiBranchingLetterNode node = flatNodes.get(i);
@@ -142,8 +155,8 @@ public class WrittenNomaiBranchingLetterNode {
             if (node.getLetterType() == WrittenNomaiLetterType.NUMBER || node.hasNumber()) {
                 currentNode.setNumber(node.getNumber());
             } else {
-                final WrittenNomaiBranchingLetterNode deepestConsonant = currentNode.getDeepestConsonant();
-                deepestConsonant.setNextWord(node);
+                currentNode.getDeepestConsonant().setNextWord(node);
+                deepestRoot = node;
 
                 if (currentNode.hasNumber()) {
                     node.setNumber(currentNode.getNumber());
@@ -155,7 +168,6 @@ public class WrittenNomaiBranchingLetterNode {
         }
 
         if (currentNode.hasNumber()) {
-            WrittenNomaiBranchingLetterNode deepestRoot = root.getDeepestRoot();
             deepestRoot.setNumber(currentNode.getNumber());
             currentNode.setNumber(null);
         }
@@ -166,10 +178,48 @@ public class WrittenNomaiBranchingLetterNode {
     @Override
     public String toString() {
         final StringBuilder stringBuilder = new StringBuilder();
-        return toString(stringBuilder, 0).toString();
+
+        // depth first traversal using an explicit stack, as the chain of words can get too long for recursion
+        final Deque<WrittenNomaiBranchingLetterNode> nodes = new ArrayDeque<>();
+        final Deque<Integer> depths = new ArrayDeque<>();
+        nodes.push(this);
+        depths.push(0);
+
+        while (!nodes.isEmpty()) {
+            final WrittenNomaiBranchingLetterNode node = nodes.pop();
+            final int depth = depths.pop();
+
+            if (node == WORD_SEPARATOR) {
+                stringBuilder.append("\n");
+                continue;
+            }
+
+            node.appendLine(stringBuilder, depth);
+
+            if (node.nextWord != null) {
+                nodes.push(node.nextWord);
+                depths.push(depth + 1);
+                nodes.push(WORD_SEPARATOR);
+                depths.push(depth + 1);
+            }
+            if (node.consonant != null) {
+                nodes.push(node.consonant);
+                depths.push(depth + 1);
+            }
+            if (node.number != null) {
+                nodes.push(node.number);
+                depths.push(depth + 1);
+            }
+            if (node.vowel != null) {
+                nodes.push(node.vowel);
+                depths.push(depth + 1);
+            }
+        }
+
+        return stringBuilder.toString();
     }
 
-    private StringBuilder toString(StringBuilder stringBuilder, int depth) {
+    private void appendLine(StringBuilder stringBuilder, int depth) {
         if (letter != null) {
             stringBuilder.append("\n");
             stringBuilder.append("  ".repeat(Math.max(0, depth)));
@@ -184,20 +234,6 @@ public class WrittenNomaiBranchingLetterNode {
                             (hasNextWord() ? "W " : "")).trim())
                     .append("]");
         }
-        if (vowel != null) {
-            vowel.toString(stringBuilder, depth + 1);
-        }
-        if (number != null) {
-            number.toString(stringBuilder, depth + 1);
-        }
-        if (consonant != null) {
-            consonant.toString(stringBuilder, depth + 1);
-        }
-        if (nextWord != null) {
-            stringBuilder.append("\n");
-            nextWord.toString(stringBuilder, depth + 1);
-        }
-        return stringBuilder;
     }
 
     public boolean isRoot() {
@@ -0,0 +1,58 @@
+package de.yanwittmann.ow.lang.tokenizer;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A read-only dictionary that maps lower case words to the Nomai letter tokens of their pronunciation.<br>
+ * The conversion from phonetic symbols into Nomai letter tokens has already been applied to the entries.
+ * Implementations have to be safe to be read from multiple threads at once.
+ */
+public interface WrittenNomaiDictionary {
+
+    /**
+     * @return The amount of words in the dictionary.
+     */
+    int size();
+
+    /**
+     * @param text  The text containing the lower case word to look up.
+     * @param start The start index of the word in the text, inclusive.
+     * @param end   The end index of the word in the text, exclusive.
+     * @return The Nomai letter tokens of the first pronunciation of the word or <code>null</code> if the word is not
+     * part of the dictionary. The tokens are read-only and may be a view of the dictionary, so they should be copied
+     * before they are modified.
+     */
+    List<String> lookup(CharSequence text, int start, int end);
+
+    /**
+     * @param text  The text to search in.
+     * @param start The index in the text to start matching at, inclusive.
+     * @param end   The index in the text to stop matching at, exclusive.
+     * @return The length of the longest word of the dictionary that the text starts with at the given index or
+     * <code>0</code> if no word matches.
+     */
+    int longestPrefixLength(CharSequence text, int start, int end);
+
+    /**
+     * @param word The lower case word to look up.
+     * @return The Nomai letter tokens of the first pronunciation of the word or <code>null</code> if the word is not
+     * part of the dictionary.
+     */
+    default List<String> lookup(String word) {
+        return lookup(word, 0, word.length());
+    }
+
+    /**
+     * @param word The lower case word to look up.
+     * @return Whether the word is part of the dictionary.
+     */
+    default boolean contains(String word) {
+        return lookup(word) != null;
+    }
+
+    /**
+     * @return All Nomai letter tokens that {@link #lookup(String)} can return.
+     */
+    Set<String> getSymbols();
+}
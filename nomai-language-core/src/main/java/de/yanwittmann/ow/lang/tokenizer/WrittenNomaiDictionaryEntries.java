@@ -0,0 +1,149 @@
+package de.yanwittmann.ow.lang.tokenizer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+
+/**
+ * The parsed content of the <code>cmudict</code> and conversion table files, with the conversion table already
+ * applied. Every distinct Nomai letter token is interned into a symbol table and the first pronunciation of every word
+ * is stored as the <code>byte</code> indices of its letters in that table. All other pronunciations are dropped while
+ * parsing, as the tokenizer only ever uses the first one.
+ */
+class WrittenNomaiDictionaryEntries {
+
+    private static final Logger LOG = LogManager.getLogger(WrittenNomaiDictionaryEntries.class);
+
+    static final int MAX_SYMBOLS = 256;
+
+    /**
+     * The sorted distinct Nomai letter tokens.
+     */
+    final String[] symbols;
+    /**
+     * The sorted distinct words.
+     */
+    final String[] words;
+    /**
+     * The indices into {@link #symbols} of the pronunciation of the word at the same index in {@link #words}.
+     */
+    final byte[][] codes;
+
+    private WrittenNomaiDictionaryEntries(String[] symbols, String[] words, byte[][] codes) {
+        this.symbols = symbols;
+        this.words = words;
+        this.codes = codes;
+    }
+
+    /**
+     * Example:
+     * <pre>
+     * aalborg AO1 L B AO0 R G # place, danish
+     * aalborg(2) AA1 L B AO0 R G
+     * aalburg AE1 L B ER0 G
+     * </pre>
+     * <p>
+     * Is stored as:
+     * <pre>
+     * aalborg: symbols of [AO1 L B AO0 R G] in the conversion table
+     * aalburg: symbols of [AE1 L B ER0 G] in the conversion table
+     * </pre>
+     * Phonetic symbols that are not part of the conversion table are skipped.
+     *
+     * @param dictionaryLines The lines of the dictionary file.
+     * @param conversionTable The conversion table from phonetic symbols to Nomai letter tokens.
+     * @return The parsed entries.
+     */
+    static WrittenNomaiDictionaryEntries parse(List<String> dictionaryLines, Map<String, String> conversionTable) {
+        Objects.requireNonNull(dictionaryLines, "Dictionary cannot be null!");
+        Objects.requireNonNull(conversionTable, "Conversion table cannot be null!");
+
+        final String[] symbols = new TreeSet<>(conversionTable.values()).toArray(new String[0]);
+        if (symbols.length > MAX_SYMBOLS) {
+            throw new IllegalArgumentException("Conversion table contains too many distinct symbols: " + symbols.length);
+        }
+
+        // intern every phonetic symbol into the index of its Nomai letter token once, instead of converting per lookup
+        final Map<String, Byte> phoneticSymbolCodes = new HashMap<>();
+        for (Map.Entry<String, String> entry : conversionTable.entrySet()) {
+            phoneticSymbolCodes.put(entry.getKey(), (byte) Arrays.binarySearch(symbols, entry.getValue()));
+        }
+
+        final Map<String, byte[]> pronunciations = new HashMap<>();
+        final Set<String> unknownPhoneticSymbols = new TreeSet<>();
+
+        for (String line : dictionaryLines) {
+            line = line.split("#", 2)[0].trim();
+
+            if (!line.isEmpty()) {
+                final String[] parts = line.split(" ", 2);
+                final String word = stripAlternativePronunciationIndex(parts[0]);
+
+                if (!pronunciations.containsKey(word)) {
+                    final String[] phonetic = parts.length > 1 ? parts[1].split(" ") : new String[0];
+                    final byte[] codes = new byte[phonetic.length];
+                    int length = 0;
+
+                    for (String phoneticSymbol : phonetic) {
+                        final Byte code = phoneticSymbolCodes.get(phoneticSymbol);
+                        if (code == null) {
+                            unknownPhoneticSymbols.add(phoneticSymbol);
+                            continue;
+                        }
+                        codes[length++] = code;
+                    }
+
+                    pronunciations.put(word, length == codes.length ? codes : Arrays.copyOf(codes, length));
+                }
+            }
+        }
+
+        if (!unknownPhoneticSymbols.isEmpty()) {
+            LOG.warn("Phonetic symbols not found in conversion table, skipped: {}", unknownPhoneticSymbols);
+        }
+
+        final String[] words = pronunciations.keySet().toArray(new String[0]);
+        Arrays.sort(words);
+        final byte[][] codes = new byte[words.length][];
+        for (int i = 0; i < words.length; i++) {
+            codes[i] = pronunciations.get(words[i]);
+        }
+
+        return new WrittenNomaiDictionaryEntries(symbols, words, codes);
+    }
+
+    /**
+     * Removes the <code>(2)</code> suffix of alternative pronunciations from a word.
+     */
+    private static String stripAlternativePronunciationIndex(String word) {
+        final int last = word.length() - 1;
+        if (last < 2 || word.charAt(last) != ')') {
+            return word;
+        }
+
+        int open = last - 1;
+        while (open >= 0 && word.charAt(open) >= '0' && word.charAt(open) <= '9') {
+            open--;
+        }
+
+        if (open < last - 1 && open >= 0 && word.charAt(open) == '(') {
+            return word.substring(0, open);
+        }
+        return word;
+    }
+
+    static Map<String, String> parseConversionTable(List<String> lines) {
+        final Map<String, String> conversionTable = new HashMap<>();
+
+        for (String line : lines) {
+            final String[] parts = line.split(" ", 2);
+            final String phoneticSymbol = parts[0];
+            final String customLanguageSymbol = parts[1];
+
+            conversionTable.put(phoneticSymbol, customLanguageSymbol);
+        }
+
+        return conversionTable;
+    }
+}
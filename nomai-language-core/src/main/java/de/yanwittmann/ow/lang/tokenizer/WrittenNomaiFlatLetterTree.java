@@ -0,0 +1,316 @@
+package de.yanwittmann.ow.lang.tokenizer;
+
+import java.util.*;
+
+/**
+ * Compact alternative to a tree of {@link WrittenNomaiBranchingLetterNode} objects. Every node is an index into
+ * parallel primitive arrays that store the letter, the kind and the child on each of the four edge types, so walking
+ * the tree does not dereference any node objects. Node <code>0</code> is the root of the tree and {@link #NONE} marks
+ * a missing child.
+ * <p>
+ * The letters are stored as indices into a palette of the distinct letters of the tree. A tree that is built from a
+ * sentence directly using {@link #fromSentence(List)} does not create any node objects at all, a tree converted from
+ * an existing node tree using {@link #fromNodeTree(WrittenNomaiBranchingLetterNode)} additionally remembers the source
+ * node of every index.
+ */
+public class WrittenNomaiFlatLetterTree {
+
+    public static final int NONE = -1;
+
+    private static final int ROOT = 0;
+    private static final WrittenNomaiLetterType[] LETTER_TYPES = WrittenNomaiLetterType.values();
+
+    private final List<WrittenNomaiTextLetter> palette = new ArrayList<>();
+    private final Map<WrittenNomaiTextLetter, Integer> paletteIndices = new IdentityHashMap<>();
+
+    private int nodeCount;
+    /**
+     * The index of the letter in the palette or {@link #NONE} for roots.
+     */
+    private int[] letterIds;
+    /**
+     * The ordinal of the {@link WrittenNomaiLetterType} of the node.
+     */
+    private byte[] kinds;
+    private int[] consonants;
+    private int[] vowels;
+    private int[] numbers;
+    private int[] nextWords;
+
+    private WrittenNomaiBranchingLetterNode[] sourceNodes;
+
+    private WrittenNomaiFlatLetterTree(int capacity) {
+        capacity = Math.max(capacity, 1);
+        this.letterIds = new int[capacity];
+        this.kinds = new byte[capacity];
+        this.consonants = new int[capacity];
+        this.vowels = new int[capacity];
+        this.numbers = new int[capacity];
+        this.nextWords = new int[capacity];
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getRoot() {
+        return ROOT;
+    }
+
+    public WrittenNomaiTextLetter getLetter(int node) {
+        final int letterId = letterIds[node];
+        return letterId == NONE ? null : palette.get(letterId);
+    }
+
+    public WrittenNomaiLetterType getLetterType(int node) {
+        return LETTER_TYPES[kinds[node]];
+    }
+
+    public boolean isRoot(int node) {
+        return letterIds[node] == NONE;
+    }
+
+    public int getConsonant(int node) {
+        return consonants[node];
+    }
+
+    public int getVowel(int node) {
+        return vowels[node];
+    }
+
+    public int getNumber(int node) {
+        return numbers[node];
+    }
+
+    public int getNextWord(int node) {
+        return nextWords[node];
+    }
+
+    public boolean hasConsonant(int node) {
+        return consonants[node] != NONE;
+    }
+
+    public boolean hasVowel(int node) {
+        return vowels[node] != NONE;
+    }
+
+    public boolean hasNumber(int node) {
+        return numbers[node] != NONE;
+    }
+
+    public boolean hasNextWord(int node) {
+        return nextWords[node] != NONE;
+    }
+
+    /**
+     * @param node The index of the node.
+     * @return The node the index has been created from or <code>null</code> if the tree has not been created from a
+     * node tree.
+     */
+    public WrittenNomaiBranchingLetterNode getSourceNode(int node) {
+        return sourceNodes == null ? null : sourceNodes[node];
+    }
+
+    public int getDeepestConsonant(int node) {
+        while (consonants[node] != NONE) {
+            node = consonants[node];
+        }
+        return node;
+    }
+
+    /**
+     * @return The amount of consonants and word roots along the center line of the tree, see
+     * {@link WrittenNomaiBranchingLetterNode#getDepth()}.
+     */
+    public int getDepth() {
+        int depth = 0;
+        int current = ROOT;
+        while (consonants[current] != NONE || nextWords[current] != NONE) {
+            current = consonants[current] != NONE ? consonants[current] : nextWords[current];
+            depth++;
+        }
+        return depth;
+    }
+
+    private int addNode(WrittenNomaiTextLetter letter) {
+        if (nodeCount == letterIds.length) {
+            final int capacity = letterIds.length * 2;
+            letterIds = Arrays.copyOf(letterIds, capacity);
+            kinds = Arrays.copyOf(kinds, capacity);
+            consonants = Arrays.copyOf(consonants, capacity);
+            vowels = Arrays.copyOf(vowels, capacity);
+            numbers = Arrays.copyOf(numbers, capacity);
+            nextWords = Arrays.copyOf(nextWords, capacity);
+        }
+
+        final int node = nodeCount++;
+        if (letter == null) {
+            letterIds[node] = NONE;
+            kinds[node] = (byte) WrittenNomaiLetterType.OTHER.ordinal();
+        } else {
+            letterIds[node] = paletteIndices.computeIfAbsent(letter, l -> {
+                palette.add(l);
+                return palette.size() - 1;
+            });
+            kinds[node] = (byte) letter.getType().ordinal();
+        }
+        consonants[node] = NONE;
+        vowels[node] = NONE;
+        numbers[node] = NONE;
+        nextWords[node] = NONE;
+        return node;
+    }
+
+    private void trimToSize() {
+        letterIds = Arrays.copyOf(letterIds, nodeCount);
+        kinds = Arrays.copyOf(kinds, nodeCount);
+        consonants = Arrays.copyOf(consonants, nodeCount);
+        vowels = Arrays.copyOf(vowels, nodeCount);
+        numbers = Arrays.copyOf(numbers, nodeCount);
+        nextWords = Arrays.copyOf(nextWords, nodeCount);
+    }
+
+    /**
+     * Builds the same tree as {@link WrittenNomaiBranchingLetterNode#fromSentence(List)}, without creating any node
+     * objects.
+     *
+     * @param sentence The words of the sentence.
+     * @return The flat tree.
+     */
+    public static WrittenNomaiFlatLetterTree fromSentence(List<List<WrittenNomaiTextLetter>> sentence) {
+        int letterCount = 0;
+        for (List<WrittenNomaiTextLetter> word : sentence) {
+            letterCount += word.size() + 1;
+        }
+
+        final WrittenNomaiFlatLetterTree tree = new WrittenNomaiFlatLetterTree(letterCount);
+
+        if (sentence.isEmpty()) {
+            tree.addNode(null);
+            tree.trimToSize();
+            return tree;
+        }
+
+        int currentNode = tree.addWord(sentence.get(0));
+        int deepestRoot = ROOT;
+
+        for (int i = 1; i < sentence.size(); i++) {
+            final int node = tree.addWord(sentence.get(i));
+
+            if (tree.hasNumber(node)) {
+                tree.numbers[currentNode] = tree.numbers[node];
+            } else {
+                tree.nextWords[tree.getDeepestConsonant(currentNode)] = node;
+                deepestRoot = node;
+
+                if (tree.hasNumber(currentNode)) {
+                    tree.numbers[node] = tree.numbers[currentNode];
+                    tree.numbers[currentNode] = NONE;
+                }
+
+                currentNode = tree.getDeepestConsonant(node);
+            }
+        }
+
+        if (tree.hasNumber(currentNode)) {
+            tree.numbers[deepestRoot] = tree.numbers[currentNode];
+            tree.numbers[currentNode] = NONE;
+        }
+
+        tree.trimToSize();
+        return tree;
+    }
+
+    /**
+     * Appends the root and letters of a single word, see <code>WrittenNomaiBranchingLetterNode#fromSentenceInternal</code>.
+     *
+     * @return The root of the word.
+     */
+    private int addWord(List<WrittenNomaiTextLetter> word) {
+        final int root = addNode(null);
+
+        int currentVowelOrNumberBranch = root;
+        int currentConsonantBranch = root;
+        WrittenNomaiLetterType lastType = null;
+
+        for (WrittenNomaiTextLetter letter : word) {
+            final WrittenNomaiLetterType currentLetterType = letter.getType();
+
+            if (lastType != currentLetterType) {
+                lastType = currentLetterType;
+                currentVowelOrNumberBranch = NONE;
+            }
+
+            switch (currentLetterType) {
+                case VOWEL: {
+                    final int letterNode = addNode(letter);
+                    vowels[currentVowelOrNumberBranch == NONE ? currentConsonantBranch : currentVowelOrNumberBranch] = letterNode;
+                    currentVowelOrNumberBranch = letterNode;
+                    break;
+                }
+                case NUMBER: {
+                    final int letterNode = addNode(letter);
+                    numbers[currentVowelOrNumberBranch == NONE ? currentConsonantBranch : currentVowelOrNumberBranch] = letterNode;
+                    currentVowelOrNumberBranch = letterNode;
+                    break;
+                }
+                case CONSONANT: {
+                    final int letterNode = addNode(letter);
+                    consonants[currentConsonantBranch] = letterNode;
+                    currentConsonantBranch = letterNode;
+                    currentVowelOrNumberBranch = NONE;
+                    break;
+                }
+                case OTHER:
+                default:
+                    break;
+            }
+        }
+
+        return root;
+    }
+
+    /**
+     * Converts an existing node tree into a flat tree that remembers the source node of every index.
+     *
+     * @param rootNode The root of the node tree.
+     * @return The flat tree.
+     */
+    public static WrittenNomaiFlatLetterTree fromNodeTree(WrittenNomaiBranchingLetterNode rootNode) {
+        Objects.requireNonNull(rootNode, "Root node cannot be null!");
+
+        // number the nodes in depth first order, then link them using their numbers
+        final List<WrittenNomaiBranchingLetterNode> sourceNodes = new ArrayList<>();
+        final Map<WrittenNomaiBranchingLetterNode, Integer> indices = new IdentityHashMap<>();
+        final Deque<WrittenNomaiBranchingLetterNode> pending = new ArrayDeque<>();
+        pending.push(rootNode);
+
+        while (!pending.isEmpty()) {
+            final WrittenNomaiBranchingLetterNode node = pending.pop();
+            if (indices.putIfAbsent(node, sourceNodes.size()) != null) {
+                continue;
+            }
+            sourceNodes.add(node);
+
+            if (node.hasNextWord()) pending.push(node.getNextWord());
+            if (node.hasConsonant()) pending.push(node.getConsonant());
+            if (node.hasNumber()) pending.push(node.getNumber());
+            if (node.hasVowel()) pending.push(node.getVowel());
+        }
+
+        final WrittenNomaiFlatLetterTree tree = new WrittenNomaiFlatLetterTree(sourceNodes.size());
+        for (WrittenNomaiBranchingLetterNode node : sourceNodes) {
+            tree.addNode(node.getLetter());
+        }
+        for (int i = 0; i < sourceNodes.size(); i++) {
+            final WrittenNomaiBranchingLetterNode node = sourceNodes.get(i);
+            tree.consonants[i] = node.hasConsonant() ? indices.get(node.getConsonant()) : NONE;
+            tree.vowels[i] = node.hasVowel() ? indices.get(node.getVowel()) : NONE;
+            tree.numbers[i] = node.hasNumber() ? indices.get(node.getNumber()) : NONE;
+            tree.nextWords[i] = node.hasNextWord() ? indices.get(node.getNextWord()) : NONE;
+        }
+
+        tree.sourceNodes = sourceNodes.toArray(new WrittenNomaiBranchingLetterNode[0]);
+        return tree;
+    }
+}
@@ -0,0 +1,146 @@
+package de.yanwittmann.ow.lang.tokenizer;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Dictionary that parses the plain text <code>cmudict</code> and conversion table files into the heap. The words are
+ * stored in a {@link WrittenNomaiPrefixTrie}, which also answers the longest prefix queries for unknown words.
+ * <p>
+ * The conversion table is applied once while loading: the pronunciations of all words are stored back to back in a
+ * single <code>byte</code> array of indices into the table of Nomai letter tokens, so looking up a word only reads
+ * from primitive arrays. The returned tokens are a read-only view of that array, which does not copy the pronunciation.
+ */
+public class WrittenNomaiHeapDictionary implements WrittenNomaiDictionary {
+
+    private static final Logger LOG = LogManager.getLogger(WrittenNomaiHeapDictionary.class);
+
+    private final WrittenNomaiPrefixTrie words;
+    private final String[] symbols;
+    /**
+     * The pronunciation of word <code>n</code> is stored in <code>codes[codeOffsets[n]]</code> to
+     * <code>codes[codeOffsets[n + 1] - 1]</code>.
+     */
+    private final int[] codeOffsets;
+    private final byte[] codes;
+
+    WrittenNomaiHeapDictionary(WrittenNomaiDictionaryEntries entries) {
+        Objects.requireNonNull(entries, "Entries cannot be null!");
+
+        this.words = new WrittenNomaiPrefixTrie(entries.words);
+        this.symbols = entries.symbols;
+        this.codeOffsets = new int[entries.words.length + 1];
+
+        int length = 0;
+        for (int i = 0; i < entries.codes.length; i++) {
+            codeOffsets[i] = length;
+            length += entries.codes[i].length;
+        }
+        codeOffsets[entries.codes.length] = length;
+
+        this.codes = new byte[length];
+        for (int i = 0; i < entries.codes.length; i++) {
+            System.arraycopy(entries.codes[i], 0, codes, codeOffsets[i], entries.codes[i].length);
+        }
+    }
+
+    @Override
+    public int size() {
+        return codeOffsets.length - 1;
+    }
+
+    @Override
+    public List<String> lookup(CharSequence text, int start, int end) {
+        final int index = words.get(text, start, end);
+        if (index < 0) {
+            return null;
+        }
+
+        return new CodedTokens(codeOffsets[index], codeOffsets[index + 1]);
+    }
+
+    /**
+     * The tokens of <code>codes[start]</code> to <code>codes[end - 1]</code>, resolved on every access.
+     */
+    private final class CodedTokens extends AbstractList<String> implements RandomAccess {
+
+        private final int start;
+        private final int end;
+
+        private CodedTokens(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public String get(int index) {
+            Objects.checkIndex(index, end - start);
+            return symbols[codes[start + index] & 0xFF];
+        }
+
+        @Override
+        public int size() {
+            return end - start;
+        }
+    }
+
+    @Override
+    public int longestPrefixLength(CharSequence text, int start, int end) {
+        return words.longestPrefixLength(text, start, end);
+    }
+
+    @Override
+    public boolean contains(String word) {
+        return words.get(word, 0, word.length()) >= 0;
+    }
+
+    @Override
+    public Set<String> getSymbols() {
+        return new HashSet<>(Arrays.asList(symbols));
+    }
+
+    public static WrittenNomaiHeapDictionary load(File dictionaryFile, File conversionTableFile) throws IOException {
+        Objects.requireNonNull(dictionaryFile, "Dictionary file cannot be null!");
+        Objects.requireNonNull(conversionTableFile, "Conversion table file cannot be null!");
+
+        final Map<String, String> conversionTable = WrittenNomaiDictionaryEntries.parseConversionTable(FileUtils.readLines(conversionTableFile, StandardCharsets.UTF_8));
+        LOG.info("Loaded conversion table with [{}] entries from: {}", conversionTable.size(), conversionTableFile.getAbsolutePath());
+
+        final WrittenNomaiDictionaryEntries entries = WrittenNomaiDictionaryEntries.parse(FileUtils.readLines(dictionaryFile, StandardCharsets.UTF_8), conversionTable);
+        LOG.info("Loaded dictionary with [{}] entries from: {}", entries.words.length, dictionaryFile.getAbsolutePath());
+
+        return new WrittenNomaiHeapDictionary(entries);
+    }
+
+    public static WrittenNomaiHeapDictionary load(Class<?> clazz, String resourcePathDictionaryFile, String resourcePathConversionTableFile) throws IOException {
+        Objects.requireNonNull(clazz, "Class cannot be null!");
+        Objects.requireNonNull(resourcePathDictionaryFile, "Dictionary file cannot be null!");
+        Objects.requireNonNull(resourcePathConversionTableFile, "Conversion table file cannot be null!");
+
+        final Map<String, String> conversionTable = WrittenNomaiDictionaryEntries.parseConversionTable(readResourceLines(clazz, resourcePathConversionTableFile, "Conversion table"));
+        LOG.info("Loaded conversion table with [{}] entries from: {}", conversionTable.size(), resourcePathConversionTableFile);
+
+        final WrittenNomaiDictionaryEntries entries = WrittenNomaiDictionaryEntries.parse(readResourceLines(clazz, resourcePathDictionaryFile, "Dictionary"), conversionTable);
+        LOG.info("Loaded dictionary with [{}] entries from: {}", entries.words.length, resourcePathDictionaryFile);
+
+        return new WrittenNomaiHeapDictionary(entries);
+    }
+
+    private static List<String> readResourceLines(Class<?> clazz, String resource, String description) throws IOException {
+        try (InputStream inputStream = clazz.getResourceAsStream(resource)) {
+            if (inputStream == null) {
+                throw new FileNotFoundException(description + " resource not found: " + resource);
+            }
+            return IOUtils.readLines(inputStream, StandardCharsets.UTF_8);
+        }
+    }
+}
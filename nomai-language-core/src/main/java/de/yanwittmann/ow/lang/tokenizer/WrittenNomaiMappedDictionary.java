@@ -0,0 +1,417 @@
+package de.yanwittmann.ow.lang.tokenizer;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Dictionary backed by a precompiled binary snapshot of the <code>cmudict</code> and conversion table files that is
+ * memory-mapped instead of being parsed into the heap. Words are looked up using a binary search over the sorted key
+ * block, no map is built when opening the snapshot.
+ * <p>
+ * Snapshot layout (big endian):
+ * <pre>
+ * int    magic "NOMD"
+ * int    format version
+ * long   checksum of the source files
+ * int    symbol count
+ * int    key count
+ * int    key block length
+ * int    code block length
+ * symbol table: per symbol a byte length followed by the UTF-8 bytes of the Nomai letter token
+ * int[key count + 1]  key offsets into the key block
+ * int[key count + 1]  code offsets into the code block
+ * key block:  sorted ISO-8859-1 words
+ * code block: per word the symbol table indices of the first pronunciation
+ * </pre>
+ * Only the first pronunciation of every word is stored, as it is the only one the tokenizer uses. The returned tokens
+ * are a read-only view of the code block, which does not copy the pronunciation.
+ */
+public class WrittenNomaiMappedDictionary implements WrittenNomaiDictionary {
+
+    private static final Logger LOG = LogManager.getLogger(WrittenNomaiMappedDictionary.class);
+
+    private static final int MAGIC = 0x4E4F4D44;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+
+    private final ByteBuffer buffer;
+    private final long sourceChecksum;
+    private final String[] symbols;
+    private final int keyCount;
+    private final int keyOffsetsStart;
+    private final int codeOffsetsStart;
+    private final int keyBlockStart;
+    private final int codeBlockStart;
+
+    private WrittenNomaiMappedDictionary(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+
+        if (buffer.capacity() < HEADER_SIZE) {
+            throw new IOException("Not a dictionary snapshot");
+        }
+        checkHeader(buffer.getInt(0), buffer.getInt(4));
+
+        this.sourceChecksum = buffer.getLong(8);
+        final int symbolCount = buffer.getInt(16);
+        this.keyCount = buffer.getInt(20);
+        final int keyBlockLength = buffer.getInt(24);
+
+        int position = HEADER_SIZE;
+        this.symbols = new String[symbolCount];
+        for (int i = 0; i < symbolCount; i++) {
+            final int length = buffer.get(position++) & 0xFF;
+            final byte[] bytes = new byte[length];
+            for (int j = 0; j < length; j++) {
+                bytes[j] = buffer.get(position++);
+            }
+            symbols[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        this.keyOffsetsStart = position;
+        this.codeOffsetsStart = keyOffsetsStart + (keyCount + 1) * Integer.BYTES;
+        this.keyBlockStart = codeOffsetsStart + (keyCount + 1) * Integer.BYTES;
+        this.codeBlockStart = keyBlockStart + keyBlockLength;
+    }
+
+    @Override
+    public int size() {
+        return keyCount;
+    }
+
+    @Override
+    public List<String> lookup(CharSequence text, int start, int end) {
+        final int index = indexOf(text, start, end);
+        if (index < 0) {
+            return null;
+        }
+
+        final int codeStart = codeBlockStart + buffer.getInt(codeOffsetsStart + index * Integer.BYTES);
+        final int codeEnd = codeBlockStart + buffer.getInt(codeOffsetsStart + (index + 1) * Integer.BYTES);
+
+        return new CodedTokens(codeStart, codeEnd);
+    }
+
+    /**
+     * The tokens of the code block from <code>start</code> to <code>end - 1</code>, resolved from the mapped buffer on
+     * every access.
+     */
+    private final class CodedTokens extends AbstractList<String> implements RandomAccess {
+
+        private final int start;
+        private final int end;
+
+        private CodedTokens(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public String get(int index) {
+            Objects.checkIndex(index, end - start);
+            return symbols[buffer.get(start + index) & 0xFF];
+        }
+
+        @Override
+        public int size() {
+            return end - start;
+        }
+    }
+
+    @Override
+    public boolean contains(String word) {
+        return indexOf(word, 0, word.length()) >= 0;
+    }
+
+    /**
+     * Narrows down the range of keys that share the already matched prefix one character at a time. Since the keys
+     * are sorted, a key that is equal to the matched prefix is always the first one of the range.
+     */
+    @Override
+    public int longestPrefixLength(CharSequence text, int start, int end) {
+        int low = 0;
+        int high = keyCount;
+        int longest = 0;
+
+        for (int depth = 0; ; depth++) {
+            if (low < high && keyLength(low) == depth) {
+                longest = depth;
+                low++;
+            }
+            if (low >= high || start + depth >= end) {
+                return longest;
+            }
+
+            final char character = text.charAt(start + depth);
+            low = lowerBound(low, high, depth, character);
+            high = lowerBound(low, high, depth, character + 1);
+        }
+    }
+
+    @Override
+    public Set<String> getSymbols() {
+        return new HashSet<>(Arrays.asList(symbols));
+    }
+
+    public long getSourceChecksum() {
+        return sourceChecksum;
+    }
+
+    private int indexOf(CharSequence text, int start, int end) {
+        int low = 0;
+        int high = keyCount - 1;
+
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int comparison = compareKey(mid, text, start, end);
+
+            if (comparison < 0) {
+                low = mid + 1;
+            } else if (comparison > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+
+        return -1;
+    }
+
+    private int compareKey(int index, CharSequence text, int start, int end) {
+        final int keyStart = keyStart(index);
+        final int keyLength = keyLength(index);
+        final int length = Math.min(keyLength, end - start);
+
+        for (int i = 0; i < length; i++) {
+            final int difference = (buffer.get(keyStart + i) & 0xFF) - text.charAt(start + i);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+
+        return keyLength - (end - start);
+    }
+
+    /**
+     * @return The first index in <code>[low, high)</code> whose key has a character at <code>depth</code> that is
+     * greater than or equal to <code>character</code>. All keys in the range must be longer than <code>depth</code>.
+     */
+    private int lowerBound(int low, int high, int depth, int character) {
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if ((buffer.get(keyStart(mid) + depth) & 0xFF) < character) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int keyStart(int index) {
+        return keyBlockStart + buffer.getInt(keyOffsetsStart + index * Integer.BYTES);
+    }
+
+    private int keyLength(int index) {
+        return buffer.getInt(keyOffsetsStart + (index + 1) * Integer.BYTES) - buffer.getInt(keyOffsetsStart + index * Integer.BYTES);
+    }
+
+    private static void checkHeader(int magic, int version) throws IOException {
+        if (magic != MAGIC) {
+            throw new IOException("Not a dictionary snapshot");
+        }
+        if (version != VERSION) {
+            throw new IOException("Unsupported dictionary snapshot version [" + version + "], expected [" + VERSION + "]");
+        }
+    }
+
+    /**
+     * Reads the checksum of the source files from the header of the snapshot without mapping the file, so that an
+     * outdated snapshot can still be replaced afterwards.
+     *
+     * @throws IOException If the file could not be read or is not a snapshot of the current version.
+     */
+    static long readSourceChecksum(File snapshotFile) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile), HEADER_SIZE))) {
+            checkHeader(in.readInt(), in.readInt());
+            return in.readLong();
+        } catch (EOFException e) {
+            throw new IOException("Not a dictionary snapshot", e);
+        }
+    }
+
+    public static WrittenNomaiMappedDictionary open(File snapshotFile) throws IOException {
+        Objects.requireNonNull(snapshotFile, "Snapshot file cannot be null!");
+
+        try (FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ)) {
+            final WrittenNomaiMappedDictionary dictionary = new WrittenNomaiMappedDictionary(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            LOG.info("Mapped dictionary snapshot with [{}] entries from: {}", dictionary.size(), snapshotFile.getAbsolutePath());
+            return dictionary;
+        }
+    }
+
+    /**
+     * Opens the snapshot file if it has been compiled from the given resources, otherwise (re-)compiles it first.
+     * The resources are only read to verify their checksum, they are not parsed unless the snapshot is outdated.
+     *
+     * @param snapshotFile                    The snapshot file to open or create.
+     * @param clazz                           The class to load the resources from.
+     * @param resourcePathDictionaryFile      The <code>cmudict</code> resource.
+     * @param resourcePathConversionTableFile The conversion table resource.
+     * @return The mapped dictionary.
+     * @throws IOException If the resources could not be read or the snapshot could not be written.
+     */
+    public static WrittenNomaiMappedDictionary openOrCompile(File snapshotFile, Class<?> clazz, String resourcePathDictionaryFile, String resourcePathConversionTableFile) throws IOException {
+        Objects.requireNonNull(snapshotFile, "Snapshot file cannot be null!");
+
+        final byte[] dictionaryBytes = readResource(clazz, resourcePathDictionaryFile, "Dictionary");
+        final byte[] conversionTableBytes = readResource(clazz, resourcePathConversionTableFile, "Conversion table");
+        final long checksum = checksum(dictionaryBytes, conversionTableBytes);
+
+        if (snapshotFile.isFile()) {
+            try {
+                if (readSourceChecksum(snapshotFile) == checksum) {
+                    return open(snapshotFile);
+                }
+                LOG.info("Dictionary snapshot is outdated, recompiling: {}", snapshotFile.getAbsolutePath());
+            } catch (IOException e) {
+                LOG.warn("Could not open dictionary snapshot, recompiling: {}", e.getMessage());
+            }
+        }
+
+        compile(dictionaryBytes, conversionTableBytes, snapshotFile);
+        return open(snapshotFile);
+    }
+
+    public static void compile(File dictionaryFile, File conversionTableFile, File snapshotFile) throws IOException {
+        Objects.requireNonNull(dictionaryFile, "Dictionary file cannot be null!");
+        Objects.requireNonNull(conversionTableFile, "Conversion table file cannot be null!");
+
+        compile(FileUtils.readFileToByteArray(dictionaryFile), FileUtils.readFileToByteArray(conversionTableFile), snapshotFile);
+    }
+
+    public static void compile(Class<?> clazz, String resourcePathDictionaryFile, String resourcePathConversionTableFile, File snapshotFile) throws IOException {
+        compile(readResource(clazz, resourcePathDictionaryFile, "Dictionary"), readResource(clazz, resourcePathConversionTableFile, "Conversion table"), snapshotFile);
+    }
+
+    private static void compile(byte[] dictionaryBytes, byte[] conversionTableBytes, File snapshotFile) throws IOException {
+        final Map<String, String> conversionTable = WrittenNomaiDictionaryEntries.parseConversionTable(IOUtils.readLines(new ByteArrayInputStream(conversionTableBytes), StandardCharsets.UTF_8));
+        final WrittenNomaiDictionaryEntries entries = WrittenNomaiDictionaryEntries.parse(IOUtils.readLines(new ByteArrayInputStream(dictionaryBytes), StandardCharsets.UTF_8), conversionTable);
+
+        compile(entries, checksum(dictionaryBytes, conversionTableBytes), snapshotFile);
+    }
+
+    static void compile(WrittenNomaiDictionaryEntries entries, long sourceChecksum, File snapshotFile) throws IOException {
+        Objects.requireNonNull(entries, "Entries cannot be null!");
+        Objects.requireNonNull(snapshotFile, "Snapshot file cannot be null!");
+
+        final String[] symbols = entries.symbols;
+        final List<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < entries.words.length; i++) {
+            if (entries.words[i].chars().allMatch(c -> c <= 0xFF)) {
+                keys.add(i);
+            } else {
+                LOG.warn("Skipping word that cannot be stored in the dictionary snapshot: {}", entries.words[i]);
+            }
+        }
+
+        final ByteArrayOutputStream keyBlock = new ByteArrayOutputStream();
+        final ByteArrayOutputStream codeBlock = new ByteArrayOutputStream();
+        final int[] keyOffsets = new int[keys.size() + 1];
+        final int[] codeOffsets = new int[keys.size() + 1];
+
+        for (int i = 0; i < keys.size(); i++) {
+            final int index = keys.get(i);
+            keyOffsets[i] = keyBlock.size();
+            codeOffsets[i] = codeBlock.size();
+
+            keyBlock.write(entries.words[index].getBytes(StandardCharsets.ISO_8859_1));
+            codeBlock.write(entries.codes[index]);
+        }
+        keyOffsets[keys.size()] = keyBlock.size();
+        codeOffsets[keys.size()] = codeBlock.size();
+
+        final File parent = snapshotFile.getAbsoluteFile().getParentFile();
+        if (!parent.exists()) {
+            parent.mkdirs();
+        }
+        final File temporaryFile = File.createTempFile(snapshotFile.getName(), ".tmp", parent);
+        try {
+            writeSnapshot(temporaryFile, sourceChecksum, symbols, keys.size(), keyOffsets, codeOffsets, keyBlock, codeBlock);
+            Files.move(temporaryFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile.toPath());
+        }
+        LOG.info("Compiled dictionary snapshot with [{}] entries and [{}] symbols to: {}", keys.size(), symbols.length, snapshotFile.getAbsolutePath());
+    }
+
+    private static void writeSnapshot(File file, long sourceChecksum, String[] symbols, int keyCount, int[] keyOffsets, int[] codeOffsets, ByteArrayOutputStream keyBlock, ByteArrayOutputStream codeBlock) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(sourceChecksum);
+            out.writeInt(symbols.length);
+            out.writeInt(keyCount);
+            out.writeInt(keyBlock.size());
+            out.writeInt(codeBlock.size());
+
+            for (String symbol : symbols) {
+                final byte[] bytes = symbol.getBytes(StandardCharsets.UTF_8);
+                out.writeByte(bytes.length);
+                out.write(bytes);
+            }
+            for (int offset : keyOffsets) {
+                out.writeInt(offset);
+            }
+            for (int offset : codeOffsets) {
+                out.writeInt(offset);
+            }
+            keyBlock.writeTo(out);
+            codeBlock.writeTo(out);
+        }
+    }
+
+    private static byte[] readResource(Class<?> clazz, String resource, String description) throws IOException {
+        Objects.requireNonNull(clazz, "Class cannot be null!");
+        Objects.requireNonNull(resource, description + " file cannot be null!");
+
+        try (InputStream inputStream = clazz.getResourceAsStream(resource)) {
+            if (inputStream == null) {
+                throw new FileNotFoundException(description + " resource not found: " + resource);
+            }
+            return IOUtils.toByteArray(inputStream);
+        }
+    }
+
+    private static long checksum(byte[] dictionaryBytes, byte[] conversionTableBytes) {
+        final CRC32 crc = new CRC32();
+        crc.update(dictionaryBytes);
+        crc.update(conversionTableBytes);
+        return crc.getValue();
+    }
+
+    /**
+     * Compiles a dictionary snapshot ahead of time.
+     *
+     * @param args <code>&lt;cmudict file&gt; &lt;conversion table file&gt; &lt;snapshot file&gt;</code>
+     * @throws IOException If the files could not be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            LOG.error("Usage: WrittenNomaiMappedDictionary <cmudict file> <conversion table file> <snapshot file>");
+            return;
+        }
+        compile(new File(args[0]), new File(args[1]), new File(args[2]));
+    }
+}
@@ -0,0 +1,152 @@
+package de.yanwittmann.ow.lang.tokenizer;
+
+import java.util.Arrays;
+
+/**
+ * Compact prefix tree over a sorted array of distinct words. The nodes are stored in breadth-first order in flat
+ * arrays, so the children of a node are stored next to each other, sorted by their character, and can be found using
+ * a binary search. Every node that ends a word stores the index of that word in the source array.
+ * <p>
+ * This allows finding both exact matches and the longest word that is a prefix of a text in a single left-to-right
+ * scan over the characters, without creating any substrings.
+ */
+class WrittenNomaiPrefixTrie {
+
+    private static final int ROOT = 0;
+
+    /**
+     * The character on the edge leading into the node.
+     */
+    private final char[] labels;
+    /**
+     * The children of node <code>n</code> are the nodes <code>[firstChild[n], firstChild[n + 1])</code>.
+     */
+    private final int[] firstChild;
+    /**
+     * The index of the word ending at the node or <code>-1</code>.
+     */
+    private final int[] values;
+
+    WrittenNomaiPrefixTrie(String[] sortedWords) {
+        int capacity = Math.max(16, sortedWords.length * 2);
+        char[] labels = new char[capacity];
+        int[] firstChild = new int[capacity + 1];
+        int[] values = new int[capacity];
+        // the source word range and depth of each node, only needed while building
+        int[] rangeStart = new int[capacity];
+        int[] rangeEnd = new int[capacity];
+        int[] depths = new int[capacity];
+
+        rangeEnd[ROOT] = sortedWords.length;
+        int nodeCount = 1;
+
+        for (int node = 0; node < nodeCount; node++) {
+            int start = rangeStart[node];
+            final int end = rangeEnd[node];
+            final int depth = depths[node];
+
+            values[node] = -1;
+            // a word that ends at this node is sorted before all words that continue it
+            if (start < end && sortedWords[start].length() == depth) {
+                values[node] = start;
+                start++;
+            }
+
+            firstChild[node] = nodeCount;
+
+            while (start < end) {
+                final char label = sortedWords[start].charAt(depth);
+                int groupEnd = start + 1;
+                while (groupEnd < end && sortedWords[groupEnd].charAt(depth) == label) {
+                    groupEnd++;
+                }
+
+                if (nodeCount == capacity) {
+                    capacity *= 2;
+                    labels = Arrays.copyOf(labels, capacity);
+                    firstChild = Arrays.copyOf(firstChild, capacity + 1);
+                    values = Arrays.copyOf(values, capacity);
+                    rangeStart = Arrays.copyOf(rangeStart, capacity);
+                    rangeEnd = Arrays.copyOf(rangeEnd, capacity);
+                    depths = Arrays.copyOf(depths, capacity);
+                }
+
+                labels[nodeCount] = label;
+                rangeStart[nodeCount] = start;
+                rangeEnd[nodeCount] = groupEnd;
+                depths[nodeCount] = depth + 1;
+                nodeCount++;
+
+                start = groupEnd;
+            }
+        }
+        firstChild[nodeCount] = nodeCount;
+
+        this.labels = Arrays.copyOf(labels, nodeCount);
+        this.firstChild = Arrays.copyOf(firstChild, nodeCount + 1);
+        this.values = Arrays.copyOf(values, nodeCount);
+    }
+
+    /**
+     * @param text  The text to search in.
+     * @param start The start index of the word in the text, inclusive.
+     * @param end   The end index of the word in the text, exclusive.
+     * @return The index of the word in the source array or <code>-1</code> if it is not contained.
+     */
+    int get(CharSequence text, int start, int end) {
+        int node = ROOT;
+        for (int i = start; i < end; i++) {
+            node = findChild(node, text.charAt(i));
+            if (node < 0) {
+                return -1;
+            }
+        }
+        return values[node];
+    }
+
+    /**
+     * @param text  The text to search in.
+     * @param start The index in the text to start matching at, inclusive.
+     * @param end   The index in the text to stop matching at, exclusive.
+     * @return The length of the longest non-empty word that the text starts with at the given index or <code>0</code>
+     * if there is no such word.
+     */
+    int longestPrefixLength(CharSequence text, int start, int end) {
+        int node = ROOT;
+        int longest = 0;
+        for (int i = start; i < end; i++) {
+            node = findChild(node, text.charAt(i));
+            if (node < 0) {
+                break;
+            }
+            if (values[node] >= 0) {
+                longest = i - start + 1;
+            }
+        }
+        return longest;
+    }
+
+    int getNodeCount() {
+        return labels.length;
+    }
+
+    private int findChild(int node, char label) {
+        int low = firstChild[node];
+        int high = firstChild[node + 1] - 1;
+
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final char midLabel = labels[mid];
+
+            if (midLabel < label) {
+                low = mid + 1;
+            } else if (midLabel > label) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+
+        return -1;
+    }
+}
@@ -0,0 +1,154 @@
+package de.yanwittmann.ow.lang.tokenizer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Reads branch snippets from a {@link Reader} one at a time, producing the same snippets as
+ * {@link WrittenNomaiTextTokenizer#convertTextToBranchSnippets(String, boolean)}:
+ * <ul>
+ *     <li>the text is split into sentences at any of <code>.!?:</code></li>
+ *     <li>every sentence is trimmed and empty sentences are skipped</li>
+ *     <li>if sentences should be split, sentences longer than {@link #MAX_SNIPPET_LENGTH} characters are cut at the
+ *     last space within their first {@link #MAX_SNIPPET_LENGTH} characters, or right after them if there is no such
+ *     space</li>
+ * </ul>
+ * Only the part of the current sentence that has not been emitted yet is kept in memory. If sentences are split, this
+ * is at most about twice the maximum snippet length, independent of the length of the input, since a run of whitespace
+ * that is longer than a snippet can never end up in a snippet as a whole.
+ */
+public class WrittenNomaiSnippetReader implements Iterator<String>, Closeable {
+
+    public static final int MAX_SNIPPET_LENGTH = 50;
+
+    private final Reader reader;
+    private final boolean splitSentences;
+
+    private final char[] readBuffer = new char[8192];
+    private int readPosition;
+    private int readLimit;
+    private boolean endOfInput;
+
+    /**
+     * The trimmed start of the current sentence that has not been emitted yet.
+     */
+    private final StringBuilder sentence = new StringBuilder();
+    private int trailingWhitespace;
+    private final Deque<String> snippets = new ArrayDeque<>();
+
+    public WrittenNomaiSnippetReader(Reader reader, boolean splitSentences) {
+        this.reader = Objects.requireNonNull(reader, "Reader cannot be null!");
+        this.splitSentences = splitSentences;
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            while (snippets.isEmpty() && !endOfInput) {
+                readUntilSnippet();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read text", e);
+        }
+        return !snippets.isEmpty();
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return snippets.poll();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void readUntilSnippet() throws IOException {
+        if (readPosition == readLimit) {
+            readLimit = reader.read(readBuffer);
+            readPosition = 0;
+
+            if (readLimit < 0) {
+                readLimit = 0;
+                endOfInput = true;
+                finishSentence();
+                return;
+            }
+        }
+
+        while (readPosition < readLimit && snippets.isEmpty()) {
+            final char character = readBuffer[readPosition++];
+
+            if (character == '.' || character == '!' || character == '?' || character == ':') {
+                finishSentence();
+            } else if (character <= ' ') {
+                // leading whitespace is trimmed, a long run is shortened as everything after a full snippet is trimmed
+                if (sentence.length() > 0 && (!splitSentences || trailingWhitespace <= MAX_SNIPPET_LENGTH)) {
+                    sentence.append(character);
+                    trailingWhitespace++;
+                }
+            } else {
+                sentence.append(character);
+                trailingWhitespace = 0;
+
+                if (splitSentences) {
+                    // the sentence ends with a non-whitespace character, so its trimmed length is already known to be too long
+                    while (sentence.length() > MAX_SNIPPET_LENGTH) {
+                        splitOffSnippet();
+                    }
+                }
+            }
+        }
+    }
+
+    private void finishSentence() {
+        sentence.setLength(sentence.length() - trailingWhitespace);
+        trailingWhitespace = 0;
+
+        if (splitSentences) {
+            while (sentence.length() > MAX_SNIPPET_LENGTH) {
+                splitOffSnippet();
+            }
+        }
+
+        if (sentence.length() > 0) {
+            snippets.add(sentence.toString());
+            sentence.setLength(0);
+        }
+    }
+
+    private void splitOffSnippet() {
+        int lastSpace = MAX_SNIPPET_LENGTH - 1;
+        while (lastSpace >= 0 && sentence.charAt(lastSpace) != ' ') {
+            lastSpace--;
+        }
+
+        final int remove;
+        if (lastSpace < 0) {
+            snippets.add(sentence.substring(0, MAX_SNIPPET_LENGTH));
+            remove = MAX_SNIPPET_LENGTH;
+        } else {
+            snippets.add(sentence.substring(0, lastSpace));
+            remove = lastSpace + 1;
+        }
+
+        int start = remove;
+        while (start < sentence.length() && sentence.charAt(start) <= ' ') {
+            start++;
+        }
+        sentence.delete(0, start);
+        if (sentence.length() == 0) {
+            trailingWhitespace = 0;
+        }
+    }
+}
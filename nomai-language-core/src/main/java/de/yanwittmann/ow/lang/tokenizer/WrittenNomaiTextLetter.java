@@ -2,16 +2,86 @@ package de.yanwittmann.ow.lang.tokenizer;
 
 import de.yanwittmann.ow.lang.renderer.shapes.ShapeDefinitions;
 
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A letter is immutable and fully defined by its token, so {@link #fromToken(String, boolean)} returns shared
+ * instances of all known letters instead of creating new ones. Punctuation characters are shared as well, but only
+ * returned when invalid tokens are allowed, since they are no letters.
+ */
 public class WrittenNomaiTextLetter {
+
+    private static final Map<String, WrittenNomaiTextLetter> LETTERS = new HashMap<>();
+    private static final Map<String, WrittenNomaiTextLetter> PUNCTUATION = new HashMap<>();
+
+    static {
+        register("p", null, WrittenNomaiTextSymbolType.LINE);
+        register("b", null, WrittenNomaiTextSymbolType.BEND);
+        register("m", null, WrittenNomaiTextSymbolType.SQUARE);
+        register("w", null, WrittenNomaiTextSymbolType.PENTAGON);
+        register("v", null, WrittenNomaiTextSymbolType.HEXAGON);
+        register("f", null, WrittenNomaiTextSymbolType.OCTAGON);
+        register("th", WrittenNomaiTextSymbolType.LINE, WrittenNomaiTextSymbolType.SQUARE);
+        register("l", WrittenNomaiTextSymbolType.LINE, WrittenNomaiTextSymbolType.PENTAGON);
+        register("ch", WrittenNomaiTextSymbolType.LINE, WrittenNomaiTextSymbolType.HEXAGON);
+        register("sh", WrittenNomaiTextSymbolType.LINE, WrittenNomaiTextSymbolType.OCTAGON);
+        register("ih", WrittenNomaiTextSymbolType.BEND, null);
+        register("z", WrittenNomaiTextSymbolType.BEND, WrittenNomaiTextSymbolType.SQUARE);
+        register("s", WrittenNomaiTextSymbolType.BEND, WrittenNomaiTextSymbolType.PENTAGON);
+        register("j", WrittenNomaiTextSymbolType.BEND, WrittenNomaiTextSymbolType.HEXAGON);
+        register("t", WrittenNomaiTextSymbolType.BEND, WrittenNomaiTextSymbolType.OCTAGON);
+        register("aah", WrittenNomaiTextSymbolType.SQUARE, WrittenNomaiTextSymbolType.LINE);
+        register("iy", WrittenNomaiTextSymbolType.SQUARE, WrittenNomaiTextSymbolType.BEND);
+        register("ay", WrittenNomaiTextSymbolType.SQUARE, WrittenNomaiTextSymbolType.SQUARE);
+        register("n", WrittenNomaiTextSymbolType.SQUARE, WrittenNomaiTextSymbolType.SQUARE);
+        register("d", WrittenNomaiTextSymbolType.SQUARE, WrittenNomaiTextSymbolType.PENTAGON);
+        register("r", WrittenNomaiTextSymbolType.SQUARE, WrittenNomaiTextSymbolType.HEXAGON);
+        register("y", WrittenNomaiTextSymbolType.SQUARE, WrittenNomaiTextSymbolType.OCTAGON);
+        register("ah", WrittenNomaiTextSymbolType.PENTAGON, WrittenNomaiTextSymbolType.LINE);
+        register("oh", WrittenNomaiTextSymbolType.PENTAGON, WrittenNomaiTextSymbolType.BEND);
+        register("k", WrittenNomaiTextSymbolType.PENTAGON, WrittenNomaiTextSymbolType.PENTAGON);
+        register("g", WrittenNomaiTextSymbolType.PENTAGON, WrittenNomaiTextSymbolType.HEXAGON);
+        register("ng", WrittenNomaiTextSymbolType.PENTAGON, WrittenNomaiTextSymbolType.OCTAGON);
+        register("eee", WrittenNomaiTextSymbolType.HEXAGON, WrittenNomaiTextSymbolType.LINE);
+        register("oo", WrittenNomaiTextSymbolType.HEXAGON, WrittenNomaiTextSymbolType.BEND);
+        register("h", WrittenNomaiTextSymbolType.HEXAGON, WrittenNomaiTextSymbolType.HEXAGON);
+        register("eh", WrittenNomaiTextSymbolType.OCTAGON, WrittenNomaiTextSymbolType.LINE);
+        register("uh", WrittenNomaiTextSymbolType.OCTAGON, WrittenNomaiTextSymbolType.BEND);
+        register("oy", WrittenNomaiTextSymbolType.HEXAGON, WrittenNomaiTextSymbolType.OCTAGON);
+
+        register("0", WrittenNomaiTextSymbolType.SQUARE, null);
+        register("1", WrittenNomaiTextSymbolType.PENTAGON, null);
+        register("2", WrittenNomaiTextSymbolType.HEXAGON, null);
+        register("3", WrittenNomaiTextSymbolType.OCTAGON, null);
+        register("4", WrittenNomaiTextSymbolType.PENTAGON, WrittenNomaiTextSymbolType.SQUARE);
+        register("5", WrittenNomaiTextSymbolType.HEXAGON, WrittenNomaiTextSymbolType.SQUARE);
+        register("6", WrittenNomaiTextSymbolType.OCTAGON, WrittenNomaiTextSymbolType.SQUARE);
+        register("7", WrittenNomaiTextSymbolType.PENTAGON, WrittenNomaiTextSymbolType.PENTAGON);
+        register("8", WrittenNomaiTextSymbolType.HEXAGON, WrittenNomaiTextSymbolType.PENTAGON);
+        register("9", WrittenNomaiTextSymbolType.OCTAGON, WrittenNomaiTextSymbolType.PENTAGON);
+        register("10", WrittenNomaiTextSymbolType.HEXAGON, WrittenNomaiTextSymbolType.HEXAGON);
+
+        for (String punctuation : new String[]{"!", "?", ",", ".", ";", ":", " "}) {
+            PUNCTUATION.put(punctuation, new WrittenNomaiTextLetter(punctuation, null, null));
+        }
+    }
+
     private final WrittenNomaiTextSymbolType a;
     private final WrittenNomaiTextSymbolType b;
 
     private final String token;
+    private final WrittenNomaiLetterType type;
 
     public WrittenNomaiTextLetter(String token, WrittenNomaiTextSymbolType a, WrittenNomaiTextSymbolType b) {
         this.a = a;
         this.b = b;
         this.token = token;
+        this.type = typeOfToken(token);
+    }
+
+    private static void register(String token, WrittenNomaiTextSymbolType a, WrittenNomaiTextSymbolType b) {
+        LETTERS.put(token, new WrittenNomaiTextLetter(token, a, b));
     }
 
     public WrittenNomaiTextSymbolType getA() {
@@ -58,6 +128,10 @@ public class WrittenNomaiTextLetter {
     }
 
     public WrittenNomaiLetterType getType() {
+        return type;
+    }
+
+    private static WrittenNomaiLetterType typeOfToken(String token) {
         switch (token) {
             case "aah":
             case "iy":
@@ -115,103 +189,16 @@ public class WrittenNomaiTextLetter {
     }
 
     public static WrittenNomaiTextLetter fromToken(String token, boolean throwException) {
-        switch (token) {
-            case "p":
-                return new WrittenNomaiTextLetter(token, null, WrittenNomaiTextSymbolType.LINE);
-            case "b":
-                return new WrittenNomaiTextLetter(token, null, WrittenNomaiTextSymbolType.BEND);
-            case "m":
-                return new WrittenNomaiTextLetter(token, null, WrittenNomaiTextSymbolType.SQUARE);
-            case "w":
-                return new WrittenNomaiTextLetter(token, null, WrittenNomaiTextSymbolType.PENTAGON);
-            case "v":
-                return new WrittenNomaiTextLetter(token, null, WrittenNomaiTextSymbolType.HEXAGON);
-            case "f":
-                return new WrittenNomaiTextLetter(token, null, WrittenNomaiTextSymbolType.OCTAGON);
-            case "th":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.LINE, WrittenNomaiTextSymbolType.SQUARE);
-            case "l":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.LINE, WrittenNomaiTextSymbolType.PENTAGON);
-            case "ch":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.LINE, WrittenNomaiTextSymbolType.HEXAGON);
-            case "sh":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.LINE, WrittenNomaiTextSymbolType.OCTAGON);
-            case "ih":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.BEND, null);
-            case "z":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.BEND, WrittenNomaiTextSymbolType.SQUARE);
-            case "s":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.BEND, WrittenNomaiTextSymbolType.PENTAGON);
-            case "j":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.BEND, WrittenNomaiTextSymbolType.HEXAGON);
-            case "t":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.BEND, WrittenNomaiTextSymbolType.OCTAGON);
-            case "aah":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.SQUARE, WrittenNomaiTextSymbolType.LINE);
-            case "iy":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.SQUARE, WrittenNomaiTextSymbolType.BEND);
-            case "ay":
-            case "n":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.SQUARE, WrittenNomaiTextSymbolType.SQUARE);
-            case "d":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.SQUARE, WrittenNomaiTextSymbolType.PENTAGON);
-            case "r":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.SQUARE, WrittenNomaiTextSymbolType.HEXAGON);
-            case "y":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.SQUARE, WrittenNomaiTextSymbolType.OCTAGON);
-            case "ah":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.PENTAGON, WrittenNomaiTextSymbolType.LINE);
-            case "oh":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.PENTAGON, WrittenNomaiTextSymbolType.BEND);
-            case "k":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.PENTAGON, WrittenNomaiTextSymbolType.PENTAGON);
-            case "g":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.PENTAGON, WrittenNomaiTextSymbolType.HEXAGON);
-            case "ng":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.PENTAGON, WrittenNomaiTextSymbolType.OCTAGON);
-            case "eee":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.HEXAGON, WrittenNomaiTextSymbolType.LINE);
-            case "oo":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.HEXAGON, WrittenNomaiTextSymbolType.BEND);
-            case "h":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.HEXAGON, WrittenNomaiTextSymbolType.HEXAGON);
-            case "eh":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.OCTAGON, WrittenNomaiTextSymbolType.LINE);
-            case "uh":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.OCTAGON, WrittenNomaiTextSymbolType.BEND);
-            case "oy":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.HEXAGON, WrittenNomaiTextSymbolType.OCTAGON);
-
-            case "0":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.SQUARE, null);
-            case "1":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.PENTAGON, null);
-            case "2":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.HEXAGON, null);
-            case "3":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.OCTAGON, null);
-            case "4":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.PENTAGON, WrittenNomaiTextSymbolType.SQUARE);
-            case "5":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.HEXAGON, WrittenNomaiTextSymbolType.SQUARE);
-            case "6":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.OCTAGON, WrittenNomaiTextSymbolType.SQUARE);
-            case "7":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.PENTAGON, WrittenNomaiTextSymbolType.PENTAGON);
-            case "8":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.HEXAGON, WrittenNomaiTextSymbolType.PENTAGON);
-            case "9":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.OCTAGON, WrittenNomaiTextSymbolType.PENTAGON);
-            case "10":
-                return new WrittenNomaiTextLetter(token, WrittenNomaiTextSymbolType.HEXAGON, WrittenNomaiTextSymbolType.HEXAGON);
+        final WrittenNomaiTextLetter letter = LETTERS.get(token);
+        if (letter != null) {
+            return letter;
+        }
 
-            default:
-                if (throwException) {
-                    throw new IllegalArgumentException("Invalid token: " + token);
-                } else {
-                    return new WrittenNomaiTextLetter(token, null, null);
-                }
+        if (throwException) {
+            throw new IllegalArgumentException("Invalid token: " + token);
         }
+        final WrittenNomaiTextLetter punctuation = PUNCTUATION.get(token);
+        return punctuation != null ? punctuation : new WrittenNomaiTextLetter(token, null, null);
     }
 
 }
@@ -0,0 +1,182 @@
+package de.yanwittmann.ow.lang.tokenizer;
+
+import java.util.Objects;
+
+/**
+ * Splits a text into runs of characters in a single pass, without creating any intermediate strings.<br>
+ * The runs are exactly the parts that <code>text.split("(?&lt;=\\b|[^a-zA-Z0-9])")</code> produces: the text is split
+ * after every character that is not an ASCII letter or digit and at every word boundary, where a word character is
+ * <code>_</code> or any character that {@link Character#isLetterOrDigit(int)} accepts. Code points outside the ASCII
+ * range are handled the same way the regex engine does, including combining marks and surrogate pairs.
+ * <p>
+ * Usage:
+ * <pre>
+ * final WrittenNomaiTextScanner scanner = new WrittenNomaiTextScanner("hello, 10 worlds");
+ * while (scanner.next()) {
+ *     // [hello] WORD, [,] PUNCTUATION, [ ] PUNCTUATION, [10] NUMBER, [ ] PUNCTUATION, [worlds] WORD
+ *     System.out.println(scanner.getToken() + " " + scanner.getType());
+ * }
+ * </pre>
+ * An empty text consists of a single empty {@link TokenType#WORD} run.
+ */
+public class WrittenNomaiTextScanner {
+
+    public enum TokenType {
+        /**
+         * Any run that is neither a number nor a punctuation character.
+         */
+        WORD,
+        /**
+         * A run of ASCII digits.
+         */
+        NUMBER,
+        /**
+         * A single one of the characters <code>!?,.;:</code> or a space.
+         */
+        PUNCTUATION
+    }
+
+    private final CharSequence text;
+    private int position;
+    private int start = -1;
+    private int end = -1;
+    private TokenType type;
+
+    public WrittenNomaiTextScanner(CharSequence text) {
+        this.text = Objects.requireNonNull(text, "Text cannot be null!");
+    }
+
+    /**
+     * Advances to the next run of the text.
+     *
+     * @return Whether there was another run.
+     */
+    public boolean next() {
+        final int length = text.length();
+
+        if (position >= length) {
+            if (length == 0 && end < 0) {
+                start = end = 0;
+                type = TokenType.WORD;
+                return true;
+            }
+            return false;
+        }
+
+        start = position;
+        char character = text.charAt(position);
+        boolean digits = isAsciiDigit(character);
+
+        int i = position + 1;
+        for (; i < length; i++) {
+            final char previous = character;
+            character = text.charAt(i);
+
+            if (previous < 0x80 && character < 0x80) {
+                // ascii fast path: split after any non-alphanumeric character and in front of any non-word character
+                if (!isAsciiLetterOrDigit(previous) || !(isAsciiLetterOrDigit(character) || character == '_')) {
+                    break;
+                }
+            } else if (isSplit(i)) {
+                break;
+            }
+
+            digits &= isAsciiDigit(character);
+        }
+
+        end = position = i;
+        if (end - start == 1 && isPunctuation(text.charAt(start))) {
+            type = TokenType.PUNCTUATION;
+        } else if (digits) {
+            type = TokenType.NUMBER;
+        } else {
+            type = TokenType.WORD;
+        }
+
+        return true;
+    }
+
+    /**
+     * @return The start index of the current run in the text, inclusive.
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * @return The end index of the current run in the text, exclusive.
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    public TokenType getType() {
+        return type;
+    }
+
+    public String getToken() {
+        return text.subSequence(start, end).toString();
+    }
+
+    /**
+     * @param index An index with <code>0 &lt; index &lt; text.length()</code>.
+     * @return Whether the lookbehind <code>(?&lt;=\b|[^a-zA-Z0-9])</code> matches at the index.
+     */
+    private boolean isSplit(int index) {
+        final char previous = text.charAt(index - 1);
+        // the character class only matches a single char ending at the index, never the first half of a surrogate pair
+        if (!(Character.isHighSurrogate(previous) && Character.isLowSurrogate(text.charAt(index))) && !isAsciiLetterOrDigit(previous)) {
+            return true;
+        }
+
+        final int before = Character.codePointBefore(text, index);
+        final int after = Character.codePointAt(text, index);
+        final boolean left = isWordCharacter(before) || (Character.getType(before) == Character.NON_SPACING_MARK && hasBaseCharacter(index - 1));
+        final boolean right = isWordCharacter(after) || (Character.getType(after) == Character.NON_SPACING_MARK && hasBaseCharacter(index));
+        return left != right;
+    }
+
+    /**
+     * A combining mark counts as a word character if it follows a letter or digit, optionally with further combining
+     * marks in between.
+     */
+    private boolean hasBaseCharacter(int index) {
+        for (int i = index; i >= 0; i--) {
+            final int codePoint = Character.codePointAt(text, i);
+            if (Character.isLetterOrDigit(codePoint)) {
+                return true;
+            }
+            if (Character.getType(codePoint) != Character.NON_SPACING_MARK) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isWordCharacter(int codePoint) {
+        return codePoint == '_' || Character.isLetterOrDigit(codePoint);
+    }
+
+    private static boolean isAsciiLetterOrDigit(char character) {
+        return (character >= 'a' && character <= 'z') || (character >= 'A' && character <= 'Z') || isAsciiDigit(character);
+    }
+
+    private static boolean isAsciiDigit(char character) {
+        return character >= '0' && character <= '9';
+    }
+
+    private static boolean isPunctuation(char character) {
+        switch (character) {
+            case '!':
+            case '?':
+            case ',':
+            case '.':
+            case ';':
+            case ':':
+            case ' ':
+                return true;
+            default:
+                return false;
+        }
+    }
+}
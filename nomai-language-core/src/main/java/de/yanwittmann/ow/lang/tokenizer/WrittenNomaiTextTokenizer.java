@@ -1,55 +1,78 @@
 package de.yanwittmann.ow.lang.tokenizer;
 
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
+import de.yanwittmann.ow.lang.other.ConcurrentLruCache;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class WrittenNomaiTextTokenizer {
 
     private static final Logger LOG = LogManager.getLogger(WrittenNomaiTextTokenizer.class);
 
-    private final Map<String, List<List<String>>> dictionary;
-    private final Map<String, String> conversionTable;
+    public static final int DEFAULT_WORD_CACHE_CAPACITY = 10000;
 
-    public WrittenNomaiTextTokenizer(File dictionaryFile, File conversionTableFile) throws IOException {
-        Objects.requireNonNull(dictionaryFile, "Dictionary file cannot be null!");
-        Objects.requireNonNull(conversionTableFile, "Conversion table file cannot be null!");
+    private final WrittenNomaiDictionary dictionary;
+    /**
+     * The Nomai letter tokens of recently tokenized words, shared between all threads using this tokenizer.
+     */
+    private volatile ConcurrentLruCache<String, List<String>> wordCache = new ConcurrentLruCache<>(DEFAULT_WORD_CACHE_CAPACITY);
 
-        this.dictionary = loadDictionary(dictionaryFile);
-        LOG.info("Loaded dictionary with [{}] entries from: {}", dictionary.size(), dictionaryFile.getAbsolutePath());
+    public WrittenNomaiTextTokenizer(WrittenNomaiDictionary dictionary) {
+        this.dictionary = Objects.requireNonNull(dictionary, "Dictionary cannot be null!");
 
-        this.conversionTable = loadConversionTable(conversionTableFile);
-        LOG.info("Loaded conversion table with [{}] entries from: {}", conversionTable.size(), conversionTableFile.getAbsolutePath());
+        assertDictionarySymbolsParsable();
+    }
 
-        assertConversionTableParsable();
+    public WrittenNomaiTextTokenizer(File dictionaryFile, File conversionTableFile) throws IOException {
+        this(WrittenNomaiHeapDictionary.load(dictionaryFile, conversionTableFile));
     }
 
     public WrittenNomaiTextTokenizer(Class<?> clazz, String resourcePathDictionaryFile, String resourcePathConversionTableFile) throws IOException {
-        Objects.requireNonNull(clazz, "Class cannot be null!");
-        Objects.requireNonNull(resourcePathDictionaryFile, "Dictionary file cannot be null!");
-        Objects.requireNonNull(resourcePathConversionTableFile, "Conversion table file cannot be null!");
-
-        this.dictionary = loadDictionary(clazz, resourcePathDictionaryFile);
-        LOG.info("Loaded dictionary with [{}] entries from: {}", dictionary.size(), resourcePathDictionaryFile);
+        this(WrittenNomaiHeapDictionary.load(clazz, resourcePathDictionaryFile, resourcePathConversionTableFile));
+    }
 
-        this.conversionTable = loadConversionTable(clazz, resourcePathConversionTableFile);
-        LOG.info("Loaded conversion table with [{}] entries from: {}", conversionTable.size(), resourcePathConversionTableFile);
+    /**
+     * Creates a tokenizer that memory-maps a dictionary snapshot previously compiled using
+     * {@link WrittenNomaiMappedDictionary#compile(File, File, File)}.
+     *
+     * @param snapshotFile The compiled dictionary snapshot.
+     * @throws IOException If the snapshot could not be opened.
+     */
+    public WrittenNomaiTextTokenizer(File snapshotFile) throws IOException {
+        this(WrittenNomaiMappedDictionary.open(snapshotFile));
+    }
 
-        assertConversionTableParsable();
+    /**
+     * Creates a tokenizer backed by a memory-mapped dictionary snapshot, which is compiled from the given resources on
+     * the first run or whenever the resources have changed.
+     *
+     * @param snapshotFile                    Where to store the compiled dictionary snapshot.
+     * @param clazz                           The class to load the resources from.
+     * @param resourcePathDictionaryFile      The <code>cmudict</code> resource.
+     * @param resourcePathConversionTableFile The conversion table resource.
+     * @return The tokenizer.
+     * @throws IOException If the resources could not be read or the snapshot could not be written.
+     */
+    public static WrittenNomaiTextTokenizer fromSnapshot(File snapshotFile, Class<?> clazz, String resourcePathDictionaryFile, String resourcePathConversionTableFile) throws IOException {
+        return new WrittenNomaiTextTokenizer(WrittenNomaiMappedDictionary.openOrCompile(snapshotFile, clazz, resourcePathDictionaryFile, resourcePathConversionTableFile));
     }
 
-    private void assertConversionTableParsable() {
+    private void assertDictionarySymbolsParsable() {
         // assert parseable
         final Set<String> unparsableConversionTableEntries = new HashSet<>();
-        for (String key : conversionTable.values()) {
+        for (String key : dictionary.getSymbols()) {
             try {
                 WrittenNomaiTextLetter.fromToken(key, true);
             } catch (Exception e) {
@@ -61,6 +84,23 @@ public class WrittenNomaiTextTokenizer {
         }
     }
 
+    public WrittenNomaiDictionary getDictionary() {
+        return dictionary;
+    }
+
+    public ConcurrentLruCache<String, List<String>> getWordCache() {
+        return wordCache;
+    }
+
+    /**
+     * Replaces the word cache with an empty one of the given capacity, which also resets its hit and miss counters.
+     *
+     * @param capacity The maximum amount of words to cache, <code>0</code> disables the cache.
+     */
+    public void setWordCacheCapacity(int capacity) {
+        this.wordCache = new ConcurrentLruCache<>(capacity);
+    }
+
     public List<List<WrittenNomaiTextLetter>> convertStringTokensToLetters(List<List<String>> tokens) {
         final List<List<WrittenNomaiTextLetter>> result = new ArrayList<>();
 
@@ -81,21 +121,20 @@ public class WrittenNomaiTextTokenizer {
         return result;
     }
 
+    /**
+     * Splits the text into sentences and, if requested, the sentences into snippets of at most
+     * {@link WrittenNomaiSnippetReader#MAX_SNIPPET_LENGTH} characters, see {@link WrittenNomaiSnippetReader}.
+     *
+     * @param text           The text to split.
+     * @param splitSentences Whether long sentences should be split into multiple snippets.
+     * @return The snippets of the text.
+     */
     public List<String> convertTextToBranchSnippets(String text, boolean splitSentences) {
         final List<String> snippets = new ArrayList<>();
 
-        for (String sentence : text.split("[.!?:]")) {
-            sentence = sentence.trim();
-            if (splitSentences) {
-                while (sentence.length() > 50) {
-                    final int lastSpace = sentence.substring(0, 50).lastIndexOf(" ");
-                    snippets.add(sentence.substring(0, lastSpace));
-                    sentence = sentence.substring(lastSpace + 1).trim();
-                }
-            }
-            if (!sentence.isEmpty()) {
-                snippets.add(sentence);
-            }
+        final WrittenNomaiSnippetReader snippetReader = new WrittenNomaiSnippetReader(new StringReader(text), splitSentences);
+        while (snippetReader.hasNext()) {
+            snippets.add(snippetReader.next());
         }
 
         LOG.info("Transformed text into [{}] branch snippets", snippets.size());
@@ -103,182 +142,220 @@ public class WrittenNomaiTextTokenizer {
         return snippets;
     }
 
-    public List<List<String>> tokenizeToStringTokens(String text) {
-        LOG.info("Tokenizing text [{}]", text);
-        final List<List<String>> tokens = new ArrayList<>();
-
-        final String[] words = text.toLowerCase().split("(?<=\\b|[^a-zA-Z0-9])");
+    /**
+     * Lazily splits the text read from the reader into snippets like
+     * {@link #convertTextToBranchSnippets(String, boolean)} and tokenizes each snippet once it is requested from the
+     * returned iterator. If sentences are split, the memory used does not depend on the length of the text, which
+     * allows tokenizing documents that do not fit into memory.
+     * <p>
+     * The reader is not closed by the iterator. Errors while reading are thrown as {@link java.io.UncheckedIOException}.
+     * <pre>
+     * try (Reader reader = Files.newBufferedReader(path)) {
+     *     final Iterator&lt;WrittenNomaiTokenizedSnippet&gt; snippets = tokenizer.tokenizeSnippets(reader, true);
+     *     while (snippets.hasNext()) {
+     *         final WrittenNomaiTokenizedSnippet snippet = snippets.next();
+     *         ...
+     *     }
+     * }
+     * </pre>
+     *
+     * @param reader         The reader to read the text from.
+     * @param splitSentences Whether long sentences should be split into multiple snippets.
+     * @return An iterator over the tokenized snippets.
+     */
+    public Iterator<WrittenNomaiTokenizedSnippet> tokenizeSnippets(Reader reader, boolean splitSentences) {
+        final WrittenNomaiSnippetReader snippetReader = new WrittenNomaiSnippetReader(reader, splitSentences);
 
-        for (final String word : words) {
-            if (isPunctuation(word)) {
-                tokens.add(Collections.singletonList(word));
-            } else if (word.matches("[0-9]+")) {
-                tokens.add(tokenizeNumber(word));
-            } else {
-                tokens.add(tokenizeWord(word));
+        return new Iterator<WrittenNomaiTokenizedSnippet>() {
+            @Override
+            public boolean hasNext() {
+                return snippetReader.hasNext();
             }
-        }
 
-        return tokens;
+            @Override
+            public WrittenNomaiTokenizedSnippet next() {
+                final String snippet = snippetReader.next();
+                final List<List<String>> tokens = tokenizeToStringTokens(snippet);
+                return new WrittenNomaiTokenizedSnippet(snippet, tokens, convertStringTokensToLetters(tokens));
+            }
+        };
     }
 
-    private boolean isPunctuation(String word) {
-        return word.length() == 1 && "!?,.;: ".contains(word);
+    /**
+     * See {@link #tokenizeSnippets(Reader, boolean)}, decoding the bytes read from the channel using the given charset.
+     *
+     * @param channel        The channel to read the text from.
+     * @param charset        The charset of the text.
+     * @param splitSentences Whether long sentences should be split into multiple snippets.
+     * @return An iterator over the tokenized snippets.
+     */
+    public Iterator<WrittenNomaiTokenizedSnippet> tokenizeSnippets(ReadableByteChannel channel, Charset charset, boolean splitSentences) {
+        Objects.requireNonNull(channel, "Channel cannot be null!");
+        // replace malformed input like an InputStreamReader would instead of failing in the middle of the text
+        final CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        return tokenizeSnippets(Channels.newReader(channel, decoder, -1), splitSentences);
     }
 
-    private List<String> tokenizeWord(String word) {
-        final List<String> tokens = new ArrayList<>();
-        final List<List<String>> phoneticTranscriptions = dictionary.get(word);
-
-        if (phoneticTranscriptions == null) {
-            // find the largest substring of the word that is in the dictionary and repeat until the word is fully tokenized
-            LOG.warn("Word not found in dictionary, parsing as subtokens: {}", word);
-            String remainingWord = word;
-            while (!remainingWord.isEmpty()) {
-                boolean found = false;
-                for (int i = remainingWord.length(); i > 0; i--) {
-                    final String substring = remainingWord.substring(0, i);
-                    if (dictionary.containsKey(substring)) {
-                        final List<String> subtokens = tokenizeWord(substring);
-                        tokens.addAll(subtokens);
-                        remainingWord = remainingWord.substring(i);
-                        LOG.info("Found substring in dictionary: [{}] -> {}", substring, subtokens);
-                        found = true;
-                        break;
-                    }
-                }
-                if (!found) {
-                    LOG.warn("Could not tokenize word: {}", word);
-                    tokens.add(word);
-                    remainingWord = "";
-                }
-            }
-
-            return tokens;
-        }
-
-        final List<String> phoneticTranscription = phoneticTranscriptions.get(0);
-
-        for (final String phoneticSymbol : phoneticTranscription) {
-            final String customLanguageSymbol = conversionTable.get(phoneticSymbol);
+    /**
+     * Splits the text into words, numbers and punctuation and converts each of them into Nomai letter tokens.
+     * The token lists of words are taken from the word cache and cannot be modified.
+     *
+     * @param text The text to tokenize.
+     * @return One list of Nomai letter tokens per word, number or punctuation character of the text.
+     */
+    public List<List<String>> tokenizeToStringTokens(String text) {
+        LOG.info("Tokenizing text [{}]", text);
+        final List<List<String>> tokens = new ArrayList<>();
 
-            if (customLanguageSymbol == null) {
-                LOG.warn("Phonetic symbol not found in conversion table: {}", phoneticSymbol);
-                continue;
+        final WrittenNomaiTextScanner scanner = new WrittenNomaiTextScanner(text.toLowerCase());
+
+        while (scanner.next()) {
+            switch (scanner.getType()) {
+                case PUNCTUATION:
+                    tokens.add(Collections.singletonList(scanner.getToken()));
+                    break;
+                case NUMBER:
+                    tokens.add(tokenizeNumber(scanner.getToken()));
+                    break;
+                default:
+                    tokens.add(tokenizeWord(scanner.getToken()));
+                    break;
             }
-
-            tokens.add(customLanguageSymbol);
         }
 
         return tokens;
     }
 
     /**
-     * Converts a string of digit characters into a list of strings, where each string is one of: 1-9 and 10.
+     * Tokenizes all texts using {@link #tokenizeToStringTokens(String)} in parallel on the common fork-join pool.
      *
-     * @param number The number to tokenize.
-     * @return The tokenized number.
+     * @param texts The texts to tokenize.
+     * @return The tokens of every text, in the iteration order of the texts.
      */
-    private List<String> tokenizeNumber(String number) {
-        final List<String> tokens = new ArrayList<>();
-
-        for (int i = 0; i < number.length(); i++) {
-            final char digit = number.charAt(i);
-            final char nextDigit = i + 1 < number.length() ? number.charAt(i + 1) : ' ';
-
-            if (digit == '1' && nextDigit == '0') {
-                tokens.add("10");
-                i++;
-            } else {
-                tokens.add(String.valueOf(digit));
-            }
-        }
-
-        return tokens;
+    public List<List<List<String>>> tokenizeToStringTokens(Collection<String> texts) {
+        return tokenizeToStringTokens(texts, ForkJoinPool.commonPool());
     }
 
     /**
-     * Example:
-     * <pre>
-     * aalborg AO1 L B AO0 R G # place, danish
-     * aalborg(2) AA1 L B AO0 R G
-     * aalburg AE1 L B ER0 G
-     * </pre>
-     * <p>
-     * Should be converted to:
+     * Tokenizes all texts using {@link #tokenizeToStringTokens(String)} in parallel on the given fork-join pool.
+     * All tasks share the dictionary and the word cache of this tokenizer, so words that appear in many texts are only
+     * looked up once.
      * <pre>
-     * aalborg: [[AO1 L B AO0 R G], [AA1 L B AO0 R G]]
-     * aalburg: [[AE1 L B ER0 G]]
+     * final ForkJoinPool pool = new ForkJoinPool(8);
+     * final List&lt;List&lt;List&lt;String&gt;&gt;&gt; tokens = tokenizer.tokenizeToStringTokens(texts, pool);
      * </pre>
      *
-     * @param file The dictionary file to load.
-     * @return The loaded dictionary.
-     * @throws IOException If the dictionary file could not be read.
+     * @param texts The texts to tokenize.
+     * @param pool  The pool to run the tokenization on.
+     * @return The tokens of every text, in the iteration order of the texts.
      */
-    private static Map<String, List<List<String>>> loadDictionary(File file) throws IOException {
-        final List<String> lines = FileUtils.readLines(file, StandardCharsets.UTF_8);
+    public List<List<List<String>>> tokenizeToStringTokens(Collection<String> texts, ForkJoinPool pool) {
+        Objects.requireNonNull(texts, "Texts cannot be null!");
+        Objects.requireNonNull(pool, "Pool cannot be null!");
 
-        return loadDictionary(lines);
-    }
+        final String[] textArray = texts.toArray(new String[0]);
+        if (textArray.length == 0) {
+            return new ArrayList<>();
+        }
 
-    private static Map<String, String> loadConversionTable(File conversionTableFile) throws IOException {
-        final List<String> lines = FileUtils.readLines(conversionTableFile, StandardCharsets.UTF_8);
+        final List<List<List<String>>> results = new ArrayList<>(Collections.nCopies(textArray.length, null));
+        pool.invoke(new TokenizeTask(textArray, results, 0, textArray.length));
 
-        return loadConversionTable(lines);
+        return results;
     }
 
-    private static Map<String, List<List<String>>> loadDictionary(Class<?> clazz, String resource) throws IOException {
-        try (InputStream inputStream = clazz.getResourceAsStream(resource)) {
-            if (inputStream == null) {
-                throw new FileNotFoundException("Dictionary resource not found: " + resource);
-            }
-            final List<String> lines = IOUtils.readLines(inputStream, StandardCharsets.UTF_8);
-
-            return loadDictionary(lines);
+    /**
+     * Splits the range of texts in halves until it is small enough to be tokenized sequentially. Every task writes only
+     * into its own range of the shared result list, which keeps the results in input order.
+     */
+    private class TokenizeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int SEQUENTIAL_THRESHOLD = 8;
+
+        private final String[] texts;
+        private final List<List<List<String>>> results;
+        private final int from;
+        private final int to;
+
+        private TokenizeTask(String[] texts, List<List<List<String>>> results, int from, int to) {
+            this.texts = texts;
+            this.results = results;
+            this.from = from;
+            this.to = to;
         }
-    }
 
-    private static Map<String, String> loadConversionTable(Class<?> clazz, String resource) throws IOException {
-        try (InputStream inputStream = clazz.getResourceAsStream(resource)) {
-            if (inputStream == null) {
-                throw new FileNotFoundException("Conversion table resource not found: " + resource);
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    results.set(i, tokenizeToStringTokens(texts[i]));
+                }
+            } else {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new TokenizeTask(texts, results, from, middle), new TokenizeTask(texts, results, middle, to));
             }
-            final List<String> lines = IOUtils.readLines(inputStream, StandardCharsets.UTF_8);
-
-            return loadConversionTable(lines);
         }
     }
 
-    private static Map<String, List<List<String>>> loadDictionary(List<String> lines) {
-        final Map<String, List<List<String>>> dictionary = new HashMap<>();
+    private List<String> tokenizeWord(String word) {
+        // cached lists are shared between all callers, so they must not be modified
+        return wordCache.computeIfAbsent(word, w -> Collections.unmodifiableList(lookupWord(w)));
+    }
 
-        for (String line : lines) {
-            line = line.split("#", 2)[0].trim();
+    private List<String> lookupWord(String word) {
+        final List<String> transcription = dictionary.lookup(word);
 
-            if (!line.isEmpty()) {
-                final String[] parts = line.split(" ", 2);
-                final String word = parts[0].replaceAll("\\(\\d+\\)$", "");
-                final List<String> phonetic = Arrays.asList(parts[1].split(" "));
+        if (transcription == null) {
+            // repeatedly take the longest prefix of the remaining word that is in the dictionary until the word is fully tokenized
+            LOG.warn("Word not found in dictionary, parsing as subtokens: {}", word);
+            final List<String> tokens = new ArrayList<>();
+            int position = 0;
+            while (position < word.length()) {
+                final int prefixLength = dictionary.longestPrefixLength(word, position, word.length());
+                if (prefixLength == 0) {
+                    LOG.warn("Could not tokenize word: {}", word);
+                    tokens.add(word);
+                    break;
+                }
 
-                dictionary.computeIfAbsent(word, k -> new ArrayList<>()).add(phonetic);
+                final List<String> subtokens = dictionary.lookup(word, position, position + prefixLength);
+                tokens.addAll(subtokens);
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Found substring in dictionary: [{}] -> {}", word.substring(position, position + prefixLength), subtokens);
+                }
+                position += prefixLength;
             }
+
+            return tokens;
         }
 
-        return dictionary;
+        return transcription;
     }
 
-    private static Map<String, String> loadConversionTable(List<String> lines) {
-        final Map<String, String> conversionTable = new HashMap<>();
+    /**
+     * Converts a string of digit characters into a list of strings, where each string is one of: 1-9 and 10.
+     *
+     * @param number The number to tokenize.
+     * @return The tokenized number.
+     */
+    private List<String> tokenizeNumber(String number) {
+        final List<String> tokens = new ArrayList<>();
 
-        for (String line : lines) {
-            final String[] parts = line.split(" ", 2);
-            final String phoneticSymbol = parts[0];
-            final String customLanguageSymbol = parts[1];
+        for (int i = 0; i < number.length(); i++) {
+            final char digit = number.charAt(i);
+            final char nextDigit = i + 1 < number.length() ? number.charAt(i + 1) : ' ';
 
-            conversionTable.put(phoneticSymbol, customLanguageSymbol);
+            if (digit == '1' && nextDigit == '0') {
+                tokens.add("10");
+                i++;
+            } else {
+                tokens.add(String.valueOf(digit));
+            }
         }
 
-        return conversionTable;
+        return tokens;
     }
 
 }
@@ -0,0 +1,37 @@
+package de.yanwittmann.ow.lang.tokenizer;
+
+import java.util.List;
+
+/**
+ * A single branch snippet of a text together with its Nomai letter tokens, as emitted by
+ * {@link WrittenNomaiTextTokenizer#tokenizeSnippets(java.io.Reader, boolean)}.
+ */
+public class WrittenNomaiTokenizedSnippet {
+
+    private final String text;
+    private final List<List<String>> tokens;
+    private final List<List<WrittenNomaiTextLetter>> letters;
+
+    public WrittenNomaiTokenizedSnippet(String text, List<List<String>> tokens, List<List<WrittenNomaiTextLetter>> letters) {
+        this.text = text;
+        this.tokens = tokens;
+        this.letters = letters;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public List<List<String>> getTokens() {
+        return tokens;
+    }
+
+    public List<List<WrittenNomaiTextLetter>> getLetters() {
+        return letters;
+    }
+
+    @Override
+    public String toString() {
+        return text + " " + tokens;
+    }
+}
@@ -91,7 +91,7 @@ public class BezierEditor {
                                 (System.currentTimeMillis() - START_TIME) / 1000.0 * 100 % curve.calculateLengthOfCurveAt(1),
                                 // sin wave depending on time
                                 Math.sin((System.currentTimeMillis() - START_TIME) / 1000.0 * 2 * Math.PI) * 15
-                        ), 100
+                        )
                 ), 6));
 
         renderer.setShapes(points);
@@ -0,0 +1,59 @@
+package de.yanwittmann.ow.lang;
+
+import de.yanwittmann.ow.lang.tokenizer.WrittenNomaiFlatLetterTree;
+import de.yanwittmann.ow.lang.tokenizer.WrittenNomaiTextLetter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Random sentences of consonants, vowels and numbers for the tests, built from the letters directly instead of
+ * tokenizing a text. Every word has one to six letters.
+ */
+public final class TestTrees {
+
+    private static final String[] TOKENS = {"p", "th", "ih", "n", "k", "aah", "iy", "oh", "eee", "oy", "1", "10", "7", "0"};
+
+    private TestTrees() {
+    }
+
+    public static List<List<WrittenNomaiTextLetter>> randomSentence(Random random, int wordCount) {
+        final List<List<WrittenNomaiTextLetter>> sentence = new ArrayList<>();
+        for (int w = 0; w < wordCount; w++) {
+            sentence.add(randomWord(random));
+        }
+        return sentence;
+    }
+
+    /**
+     * @return A sentence with at least the given amount of letters, the last word may exceed it.
+     */
+    public static List<List<WrittenNomaiTextLetter>> randomSentenceWithLetters(Random random, int minimumLetterCount) {
+        final List<List<WrittenNomaiTextLetter>> sentence = new ArrayList<>();
+        int letterCount = 0;
+        while (letterCount < minimumLetterCount) {
+            final List<WrittenNomaiTextLetter> word = randomWord(random);
+            sentence.add(word);
+            letterCount += word.size();
+        }
+        return sentence;
+    }
+
+    public static WrittenNomaiFlatLetterTree randomTree(Random random, int wordCount) {
+        return WrittenNomaiFlatLetterTree.fromSentence(randomSentence(random, wordCount));
+    }
+
+    public static WrittenNomaiFlatLetterTree randomTreeWithLetters(Random random, int minimumLetterCount) {
+        return WrittenNomaiFlatLetterTree.fromSentence(randomSentenceWithLetters(random, minimumLetterCount));
+    }
+
+    private static List<WrittenNomaiTextLetter> randomWord(Random random) {
+        final List<WrittenNomaiTextLetter> word = new ArrayList<>();
+        final int letterCount = 1 + random.nextInt(6);
+        for (int l = 0; l < letterCount; l++) {
+            word.add(WrittenNomaiTextLetter.fromToken(TOKENS[random.nextInt(TOKENS.length)], true));
+        }
+        return word;
+    }
+}
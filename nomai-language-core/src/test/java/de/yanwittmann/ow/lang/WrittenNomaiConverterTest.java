@@ -0,0 +1,131 @@
+package de.yanwittmann.ow.lang;
+
+import de.yanwittmann.ow.lang.renderer.LetterToLineConverter;
+import de.yanwittmann.ow.lang.renderer.shapes.ArchimedeanSpiralCoordinateSystem;
+import de.yanwittmann.ow.lang.renderer.shapes.BezierCurve;
+import de.yanwittmann.ow.lang.renderer.shapes.BezierCurveTemplate;
+import de.yanwittmann.ow.lang.renderer.shapes.LetterShape;
+import de.yanwittmann.ow.lang.renderer.shapes.ShapeDefinitions;
+import de.yanwittmann.ow.lang.tokenizer.WrittenNomaiFlatLetterTree;
+import org.junit.jupiter.api.Test;
+
+import java.awt.geom.Line2D;
+import java.awt.geom.Point2D;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WrittenNomaiConverterTest {
+
+    @Test
+    public void regenerationIsIndependentOfThreadCountTest() {
+        final WrittenNomaiConverter converter = new WrittenNomaiConverter();
+        converter.setLineGenerator(new LetterToLineConverter());
+
+        final ForkJoinPool singleThread = new ForkJoinPool(1);
+        final ForkJoinPool multipleThreads = new ForkJoinPool(4);
+        try {
+            for (int i = 0; i < 10; i++) {
+                final WrittenNomaiFlatLetterTree tree = TestTrees.randomTree(new Random(i), 20 + i * 10);
+
+                final List<String> expected = describe(converter.convertNodeTreeToDrawables(new Random(i), 8, tree, singleThread).getDrawables());
+                assertEquals(expected, describe(converter.convertNodeTreeToDrawables(new Random(i), 8, tree, multipleThreads).getDrawables()));
+                assertEquals(expected, describe(converter.convertNodeTreeToDrawables(new Random(i), 8, tree, singleThread).getDrawables()));
+            }
+        } finally {
+            singleThread.shutdown();
+            multipleThreads.shutdown();
+        }
+    }
+
+    @Test
+    public void deadlineLimitsRegenerationTest() {
+        final LetterToLineConverter lineGenerator = new LetterToLineConverter();
+        final WrittenNomaiConverter converter = new WrittenNomaiConverter();
+        converter.setLineGenerator(lineGenerator);
+        final WrittenNomaiFlatLetterTree tree = TestTrees.randomTree(new Random(3), 150);
+
+        // the initial layout is always completed
+        final WrittenNomaiConverter.LayoutSearchResult expired = converter.convertNodeTreeToDrawables(new Random(3), Instant.now().minusSeconds(1), tree);
+        assertEquals(1, expired.getAttempts());
+        assertEquals(describe(lineGenerator.generateShapes(new Random(3), tree, null).getDrawables()), describe(expired.getShapes().getDrawables()));
+        assertEquals(lineGenerator.intersectionCount(expired.getShapes().getDrawables()), expired.getIntersectionCount());
+
+        final WrittenNomaiConverter.LayoutSearchResult searched = converter.convertNodeTreeToDrawables(new Random(3), Instant.now().plusMillis(300), tree);
+        assertTrue(searched.getAttempts() > 1);
+        assertTrue(searched.getIntersectionCount() <= expired.getIntersectionCount());
+        assertEquals(lineGenerator.intersectionCount(searched.getShapes().getDrawables()), searched.getIntersectionCount());
+        assertTrue(searched.getElapsed().toMillis() < 5000, searched.getElapsed().toString());
+
+        converter.setRepairEvaluations(1000);
+        final WrittenNomaiConverter.LayoutSearchResult repaired = converter.convertNodeTreeToDrawables(new Random(3), Instant.now().plusMillis(300), tree);
+        assertEquals(lineGenerator.intersectionCount(repaired.getShapes().getDrawables()), repaired.getIntersectionCount());
+    }
+
+    @Test
+    public void spiralCurveFitsLargestXTest() {
+        final LetterShape letterShape = LetterShape.fromShapeDefinition(ShapeDefinitions.values()[0]);
+        assertTrue(letterShape.isLetterConsonantOrRoot());
+
+        for (double largestX : new double[]{120, 499, 500, 949, 1299, 1650, 2000, 2999, 3500, 4500, 5999, 6000, 12000}) {
+            letterShape.getTransformation().setOffsetPosition(new Point2D.Double(largestX, 0));
+            final BezierCurve curve = WrittenNomaiConverter.lengthDependantUpwardsSpiralBezierCurveProvider(Collections.singletonList(letterShape)).getCurve();
+            assertEquals(largestX, curve.getLength(), 0.05, "largest x " + largestX);
+            assertEquals(new Point2D.Double(0, 0), curve.getControlPoints().get(0));
+        }
+
+        // a template passed to the provider replaces the spiral templates for that call only
+        final BezierCurveTemplate template = BezierCurveTemplate.fromControlPoints(new Point2D.Double(0, 0), new Point2D.Double(10, 0));
+        letterShape.getTransformation().setOffsetPosition(new Point2D.Double(700, 0));
+        final BezierCurve curve = WrittenNomaiConverter.lengthDependantUpwardsSpiralBezierCurveProvider(Collections.singletonList(letterShape), template).getCurve();
+        assertEquals(new Point2D.Double(700, 0), curve.getControlPoints().get(1));
+        assertEquals(WrittenNomaiConverter.UPWARDS_SPIRAL_TEMPLATES.getTemplate(700).getControlPoints(),
+                WrittenNomaiConverter.lengthDependantUpwardsSpiralBezierCurveProvider(Collections.singletonList(letterShape)).getCurve().getUnTransformedControlPoints());
+    }
+
+    @Test
+    public void archimedeanSpiralFitsLongTextsTest() {
+        final LetterToLineConverter lineGenerator = new LetterToLineConverter();
+        final WrittenNomaiFlatLetterTree tree = TestTrees.randomTree(new Random(7), 600);
+        final WrittenNomaiConverter.DrawablesResult shapes = lineGenerator.generateShapes(new Random(7), tree, WrittenNomaiConverter::lengthDependantArchimedeanSpiralProvider);
+
+        final ArchimedeanSpiralCoordinateSystem spiral = (ArchimedeanSpiralCoordinateSystem) shapes.getCoordinateSystems();
+        assertTrue(spiral.getPathLength() > 6000 * 5, "length " + spiral.getPathLength());
+
+        // the text winds around the center instead of growing with its length
+        final Point2D center = spiral.getPointOnPath(1);
+        double maxRadius = 0;
+        for (Object drawable : shapes.getDrawables()) {
+            if (drawable instanceof LetterShape) {
+                for (Point2D point : ((LetterShape) drawable).getAbsoluteBranchPositions()) {
+                    maxRadius = Math.max(maxRadius, point.distance(center));
+                }
+            }
+        }
+        final double turns = (maxRadius - WrittenNomaiConverter.SPIRAL_TURN_SPACING) / WrittenNomaiConverter.SPIRAL_TURN_SPACING;
+        assertTrue(turns * 2 * Math.PI * maxRadius > spiral.getPathLength(), "radius " + maxRadius);
+        assertTrue(maxRadius < spiral.getPathLength() / 10, "radius " + maxRadius);
+
+        assertEquals(1, WrittenNomaiConverter.lengthDependantArchimedeanSpiralProvider(Collections.emptyList()).getPathLength());
+    }
+
+    private static List<String> describe(List<Object> drawables) {
+        final List<String> descriptions = new ArrayList<>();
+        for (Object drawable : drawables) {
+            if (drawable instanceof LetterShape) {
+                final LetterShape letterShape = (LetterShape) drawable;
+                descriptions.add(letterShape.getSourceLetter() + " " + Arrays.toString(letterShape.getAbsoluteLineCoordinates()));
+            } else {
+                final Line2D line = (Line2D) drawable;
+                descriptions.add(line.getP1() + " " + line.getP2());
+            }
+        }
+        return descriptions;
+    }
+}
@@ -6,6 +6,7 @@ import de.yanwittmann.ow.lang.renderer.LetterToLineConverter;
 import de.yanwittmann.ow.lang.renderer.NomaiTextCompositor;
 import de.yanwittmann.ow.lang.renderer.shapes.BezierCurve;
 import de.yanwittmann.ow.lang.renderer.shapes.BezierCurveCoordinateSystem;
+import de.yanwittmann.ow.lang.renderer.shapes.BezierCurveTemplate;
 import de.yanwittmann.ow.lang.renderer.shapes.LetterShape;
 import de.yanwittmann.ow.lang.tokenizer.WrittenNomaiBranchingLetterNode;
 import de.yanwittmann.ow.lang.tokenizer.WrittenNomaiTextLetter;
@@ -22,21 +23,26 @@ import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
-@Disabled
+import static org.junit.jupiter.api.Assertions.*;
+
 class WrittenNomaiTextTokenizerTest {
     private static final Logger LOG = LogManager.getLogger(WrittenNomaiTextTokenizerTest.class);
 
     @Test
+    @Disabled
     public void test() throws IOException {
         final WrittenNomaiTextTokenizer tokenizer = new WrittenNomaiTextTokenizer(
                 new File("nomai-language-core/ src/main/resources/ow-lang/cmudict.dict"),
@@ -52,6 +58,38 @@ class WrittenNomaiTextTokenizerTest {
         LOG.info("Converted branches:{}", tree);
     }
 
+    @Test
+    public void parallelTokenizationMatchesSequentialTest() throws IOException {
+        final String[] wordArray = {"i", "have", "apples", "but", "wish", "had", "the", "nomai", "wrote", "about", "eye",
+                "of", "universe", "ash", "twin", "project", "quantum", "moon", "xyzzy", "hearthian", "ship", "log"};
+        final Random random = new Random(11);
+        final List<String> texts = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            final StringBuilder text = new StringBuilder();
+            final int wordCount = 1 + random.nextInt(20);
+            for (int w = 0; w < wordCount; w++) {
+                text.append(wordArray[random.nextInt(wordArray.length)]).append(random.nextInt(8) == 0 ? ", " : " ");
+            }
+            texts.add(text.append(random.nextInt(100)).toString());
+        }
+
+        final WrittenNomaiTextTokenizer sequentialTokenizer = new WrittenNomaiTextTokenizer(WrittenNomaiTextTokenizerTest.class, "/ow-lang/cmudict.dict", "/ow-lang/cmudict-to-ow.txt");
+        sequentialTokenizer.setWordCacheCapacity(0);
+        final List<List<List<String>>> expected = new ArrayList<>();
+        for (String text : texts) {
+            expected.add(sequentialTokenizer.tokenizeToStringTokens(text));
+        }
+
+        final WrittenNomaiTextTokenizer parallelTokenizer = new WrittenNomaiTextTokenizer(sequentialTokenizer.getDictionary());
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertEquals(expected, parallelTokenizer.tokenizeToStringTokens(texts, pool));
+            assertTrue(parallelTokenizer.tokenizeToStringTokens(Collections.emptyList(), pool).isEmpty());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
     private static void manuallyTest() throws IOException {
         final WrittenNomaiTextTokenizer tokenizer = new WrittenNomaiTextTokenizer(
                 new File("nomai-language-core/src/main/resources/ow-lang/cmudict.dict"),
@@ -115,7 +153,9 @@ class WrittenNomaiTextTokenizerTest {
         ));
         converter.setLineGenerator(new LetterToLineConverter());
 
-        converter.setTransformAlongCurveProvider(WrittenNomaiConverter::lengthDependantUpwardsSpiralBezierCurveProvider);
+        final AtomicReference<BezierCurveTemplate> overrideTemplate = new AtomicReference<>();
+        final Function<List<LetterShape>, BezierCurveCoordinateSystem> curveProvider = letterShapes -> WrittenNomaiConverter.lengthDependantUpwardsSpiralBezierCurveProvider(letterShapes, overrideTemplate.get());
+        converter.setTransformAlongCurveProvider(curveProvider);
 
         final LanguageRenderer renderer = new LanguageRenderer();
         // renderer.setOffset(new Point2D.Double(250, 1000));
@@ -155,7 +195,7 @@ class WrittenNomaiTextTokenizerTest {
 
         bezierCurveEnabled.addActionListener(e -> {
             if (bezierCurveEnabled.isSelected()) {
-                converter.setTransformAlongCurveProvider(WrittenNomaiConverter::lengthDependantUpwardsSpiralBezierCurveProvider);
+                converter.setTransformAlongCurveProvider(curveProvider);
             } else {
                 converter.setTransformAlongCurveProvider(null);
             }
@@ -218,7 +258,7 @@ class WrittenNomaiTextTokenizerTest {
             Debounce debounce = new Debounce(500, TimeUnit.MILLISECONDS);
 
             new BezierEditor().addOnCurveChangeListener(curve -> debounce.submit(() -> {
-                WrittenNomaiConverter.overrideBezierCurve = curve;
+                overrideTemplate.set(BezierCurveTemplate.fromCurve(curve));
                 forceRegenerate.set(true);
             }));
         }
@@ -0,0 +1,65 @@
+package de.yanwittmann.ow.lang.other;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentLruCacheTest {
+
+    @Test
+    public void evictsLeastRecentlyUsedTest() {
+        final ConcurrentLruCache<Integer, String> cache = new ConcurrentLruCache<>(1);
+        cache.put(1, "one");
+        cache.put(2, "two");
+
+        assertEquals(1, cache.size());
+        assertNull(cache.get(1));
+        assertEquals("two", cache.get(2));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void sizeNeverExceedsCapacityTest() {
+        for (int capacity : new int[]{0, 1, 3, 17, 100, 1000}) {
+            final ConcurrentLruCache<Integer, Integer> cache = new ConcurrentLruCache<>(capacity);
+            for (int i = 0; i < capacity * 10 + 10; i++) {
+                cache.computeIfAbsent(i, key -> key * 2);
+                assertTrue(cache.size() <= capacity, "capacity " + capacity);
+            }
+        }
+    }
+
+    @Test
+    public void concurrentAccessTest() throws Exception {
+        final ConcurrentLruCache<Integer, Integer> cache = new ConcurrentLruCache<>(64);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        final int lookupsPerThread = 20000;
+
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                futures.add(executor.submit(() -> {
+                    final ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < lookupsPerThread; i++) {
+                        final int key = random.nextInt(128);
+                        assertEquals(key * 2, cache.computeIfAbsent(key, k -> k * 2));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(8L * lookupsPerThread, cache.getHitCount() + cache.getMissCount());
+        assertTrue(cache.getHitCount() > 0);
+        assertTrue(cache.size() <= 64);
+    }
+}
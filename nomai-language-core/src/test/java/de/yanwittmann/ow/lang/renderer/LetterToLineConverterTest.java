@@ -0,0 +1,394 @@
+package de.yanwittmann.ow.lang.renderer;
+
+import de.yanwittmann.ow.lang.TestTrees;
+import de.yanwittmann.ow.lang.WrittenNomaiConverter;
+import de.yanwittmann.ow.lang.renderer.shapes.LetterShape;
+import de.yanwittmann.ow.lang.renderer.shapes.PackedGeometry;
+import de.yanwittmann.ow.lang.tokenizer.WrittenNomaiFlatLetterTree;
+import org.junit.jupiter.api.Test;
+
+import java.awt.geom.Line2D;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LetterToLineConverterTest {
+
+    @SuppressWarnings("unchecked")
+    static List<LetterShape> letterShapes(List<Object> drawables) {
+        final List<LetterShape> letterShapes = new ArrayList<>();
+        for (Object drawable : drawables) {
+            if (drawable instanceof LetterShape) {
+                letterShapes.add((LetterShape) drawable);
+            }
+        }
+        return letterShapes;
+    }
+
+    /**
+     * Compares looking up the shapes of all connected nodes of a long text using the shape index with a linear search
+     * over all shapes, which is what connecting line generation used to do.
+     */
+    @Test
+    public void shapeIndexMatchesLinearSearchTest() {
+        final WrittenNomaiFlatLetterTree tree = TestTrees.randomTreeWithLetters(new Random(5), 2000);
+        final List<LetterShape> shapes = letterShapes(new LetterToLineConverter().generateShapes(new Random(5), tree, null).getDrawables());
+        assertTrue(shapes.size() >= 1000, "Expected at least 1000 letter shapes, got " + shapes.size());
+
+        final List<LetterShape> linear = linearLookups(tree, shapes);
+        final List<LetterShape> indexed = indexedLookups(tree, shapes);
+        assertEquals(linear.size(), indexed.size());
+        for (int i = 0; i < linear.size(); i++) {
+            assertSame(linear.get(i), indexed.get(i));
+        }
+    }
+
+    /**
+     * Compares the grid with the count of every pair of drawables as it was before the grid, see
+     * {@link #baselineIntersections(List)}. The counts can only differ by the segments on almost the same line that
+     * {@link Line2D#intersectsLine} reports as intersecting even though they are apart, which the grid does not count.
+     */
+    @Test
+    public void intersectionCountMatchesBaselineTest() {
+        final LetterToLineConverter converter = new LetterToLineConverter();
+        final Random random = new Random(9);
+
+        for (int i = 0; i < 60; i++) {
+            // placing letters along the curves is expensive for long texts, so only short texts use them
+            final boolean alongCurve = i % 2 == 0;
+            final WrittenNomaiFlatLetterTree tree = TestTrees.randomTreeWithLetters(random, 1 + random.nextInt(alongCurve ? 8 : 300));
+            final List<Object> drawables = converter.generateShapes(new Random(i), tree,
+                    alongCurve ? WrittenNomaiConverter::lengthDependantUpwardsSpiralBezierCurveProvider : null).getDrawables();
+
+            assertMatchesBaseline(converter, drawables);
+
+            // lines before letter shapes are not shortened when tested against them
+            final List<Object> shuffled = new ArrayList<>(drawables);
+            shuffled.add("not a drawable");
+            Collections.shuffle(shuffled, random);
+            assertMatchesBaseline(converter, shuffled);
+        }
+
+        // a long text, where the grid has many cells
+        assertMatchesBaseline(converter, converter.generateShapes(new Random(3), TestTrees.randomTreeWithLetters(new Random(3), 1500), null).getDrawables());
+
+        // lines that share their end points, including lines of length zero
+        for (int i = 0; i < 200; i++) {
+            final double[] points = new double[16];
+            for (int p = 0; p < points.length; p++) {
+                points[p] = random.nextDouble() * 40;
+            }
+            final List<Object> lines = new ArrayList<>();
+            for (int l = 0; l < 30; l++) {
+                final int from = random.nextInt(8) * 2, to = random.nextInt(8) * 2;
+                lines.add(new Line2D.Double(points[from], points[from + 1], points[to], points[to + 1]));
+            }
+            lines.add(new Line2D.Double(10, 10, 14, 10));
+            lines.add(new Line2D.Double(30, 30, 34, 30));
+            assertMatchesBaseline(converter, lines);
+        }
+    }
+
+    /**
+     * Segments on almost the same line never intersect if they are apart, even if rounding errors let
+     * {@link Line2D#linesIntersect} report an intersection.
+     */
+    @Test
+    public void nearCollinearSegmentsDoNotIntersectTest() {
+        final LetterToLineConverter converter = new LetterToLineConverter();
+        final Random random = new Random(19);
+
+        final double[] collinear = {445.93216581245196, 372.4493125067137, 440.1655725247073, 377.2127322977821, 376.66486125356374, 429.66667342429207, 371.0399484048502, 434.3130599214186};
+        assertTrue(Line2D.linesIntersect(collinear[0], collinear[1], collinear[2], collinear[3], collinear[4], collinear[5], collinear[6], collinear[7]));
+        assertFalse(PackedGeometry.segmentsIntersect(collinear[0], collinear[1], collinear[2], collinear[3], collinear[4], collinear[5], collinear[6], collinear[7]));
+        assertEquals(0, PackedGeometry.countIntersections(new double[]{collinear[0], collinear[1], collinear[2], collinear[3]}, collinear[4], collinear[5], collinear[6], collinear[7]));
+
+        int falsePositives = 0;
+        for (int i = 0; i < 20; i++) {
+            final double x = random.nextDouble() * 1000, y = random.nextDouble() * 1000;
+            final double dx = random.nextDouble() * 2 - 1, dy = random.nextDouble() * 2 - 1;
+            final List<Object> lines = new ArrayList<>();
+            for (int l = 0; l < 40; l++) {
+                lines.add(new Line2D.Double(x + dx * l * 10, y + dy * l * 10, x + dx * (l * 10 + 6), y + dy * (l * 10 + 6)));
+            }
+
+            for (int a = 0; a < lines.size(); a++) {
+                for (int b = a + 1; b < lines.size(); b++) {
+                    final Line2D lineA = (Line2D) lines.get(a), lineB = (Line2D) lines.get(b);
+                    final boolean intersects = PackedGeometry.segmentsIntersect(lineA.getX1(), lineA.getY1(), lineA.getX2(), lineA.getY2(), lineB.getX1(), lineB.getY1(), lineB.getX2(), lineB.getY2());
+                    assertFalse(intersects);
+                    if (lineA.intersectsLine(lineB)) {
+                        assertNearlyCollinear(lineA, lineB);
+                        falsePositives++;
+                    }
+                }
+            }
+
+            assertMatchesBaseline(converter, lines);
+            assertEquals(0, converter.intersectionCount(lines));
+        }
+        assertTrue(falsePositives > 0, "Expected Line2D.intersectsLine to report intersections of collinear segments");
+    }
+
+    /**
+     * Asserts that the grid counts every intersection that the baseline counts, except for the pairs of segments that
+     * are apart and lie on almost the same line.
+     *
+     * @return The amount of these pairs.
+     */
+    private static int assertMatchesBaseline(LetterToLineConverter converter, List<Object> drawables) {
+        final List<Line2D[]> baseline = baselineIntersections(drawables);
+
+        int falsePositives = 0;
+        for (Line2D[] pair : baseline) {
+            if (!PackedGeometry.segmentsIntersect(pair[0].getX1(), pair[0].getY1(), pair[0].getX2(), pair[0].getY2(), pair[1].getX1(), pair[1].getY1(), pair[1].getX2(), pair[1].getY2())) {
+                assertNearlyCollinear(pair[0], pair[1]);
+                falsePositives++;
+            }
+        }
+
+        final int count = converter.intersectionCount(drawables);
+        assertEquals(baseline.size() - falsePositives, count);
+        assertEquals(count, converter.intersectionCountPairwise(drawables));
+        return falsePositives;
+    }
+
+    private static void assertNearlyCollinear(Line2D lineA, Line2D lineB) {
+        final Line2D longer = lineA.getP1().distance(lineA.getP2()) >= lineB.getP1().distance(lineB.getP2()) ? lineA : lineB;
+        final Line2D shorter = longer == lineA ? lineB : lineA;
+        assertTrue(lineDistance(longer, shorter.getP1()) < 1e-6 && lineDistance(longer, shorter.getP2()) < 1e-6,
+                "Only segments on almost the same line may differ from the baseline: " + lineA.getP1() + lineA.getP2() + " and " + lineB.getP1() + lineB.getP2());
+    }
+
+    /**
+     * The distance of the point to the infinite line, unlike {@link Line2D#ptLineDist} without cancellation for points
+     * on the line.
+     */
+    private static double lineDistance(Line2D line, Point2D point) {
+        final double dx = line.getX2() - line.getX1(), dy = line.getY2() - line.getY1();
+        final double cross = dx * (point.getY() - line.getY1()) - dy * (point.getX() - line.getX1());
+        return Math.abs(cross) / Math.hypot(dx, dy);
+    }
+
+    /**
+     * A copy of how the intersections of the drawables were counted before the {@link IntersectionGrid}: every
+     * segment of every pair of drawables is tested using {@link Line2D#intersectsLine}.
+     *
+     * @return Every intersecting pair of segments.
+     */
+    private static List<Line2D[]> baselineIntersections(List<Object> shapes) {
+        final List<Line2D[]> intersections = new ArrayList<>();
+
+        for (int i = 0; i < shapes.size(); i++) {
+            final Object shapeA = shapes.get(i);
+            if (!(shapeA instanceof LetterShape || shapeA instanceof Line2D)) {
+                continue;
+            }
+
+            for (int j = i + 1; j < shapes.size(); j++) {
+                final Object shapeB = shapes.get(j);
+                if (!(shapeB instanceof LetterShape || shapeB instanceof Line2D)) {
+                    continue;
+                }
+
+                final Line2D[] linesA;
+                final Line2D[] linesB;
+                if (shapeA instanceof LetterShape && shapeB instanceof LetterShape) {
+                    linesA = ((LetterShape) shapeA).getAbsoluteLines();
+                    linesB = ((LetterShape) shapeB).getAbsoluteLines();
+                } else if (shapeA instanceof LetterShape) {
+                    linesA = ((LetterShape) shapeA).getAbsoluteLines();
+                    linesB = new Line2D[]{baselineShortenLineFromBothSides((Line2D) shapeB, 2)};
+                } else if (shapeB instanceof LetterShape) {
+                    linesA = new Line2D[]{(Line2D) shapeA};
+                    linesB = ((LetterShape) shapeB).getAbsoluteLines();
+                } else {
+                    linesA = new Line2D[]{baselineShortenLineFromBothSides((Line2D) shapeA, 2)};
+                    linesB = new Line2D[]{baselineShortenLineFromBothSides((Line2D) shapeB, 2)};
+                }
+
+                for (Line2D line1 : linesA) {
+                    for (Line2D line2 : linesB) {
+                        if (line1.intersectsLine(line2)) {
+                            intersections.add(new Line2D[]{line1, line2});
+                        }
+                    }
+                }
+            }
+        }
+
+        return intersections;
+    }
+
+    private static Line2D baselineShortenLineFromBothSides(Line2D line, double amount) {
+        final double angle = Math.atan2(line.getY2() - line.getY1(), line.getX2() - line.getX1());
+        final double x1 = line.getX1() + Math.cos(angle) * amount;
+        final double y1 = line.getY1() + Math.sin(angle) * amount;
+        final double x2 = line.getX2() - Math.cos(angle) * amount;
+        final double y2 = line.getY2() - Math.sin(angle) * amount;
+        return new Line2D.Double(x1, y1, x2, y2);
+    }
+
+    @Test
+    public void boundedIntersectionCountTest() {
+        final LetterToLineConverter converter = new LetterToLineConverter();
+        final Random random = new Random(11);
+
+        for (int i = 0; i < 20; i++) {
+            final List<Object> drawables = converter.generateShapes(new Random(i), TestTrees.randomTreeWithLetters(random, 1 + random.nextInt(300)), null).getDrawables();
+            final int count = converter.intersectionCount(drawables);
+
+            for (int limit = 0; limit <= count + 2; limit++) {
+                assertEquals(Math.min(count, limit), converter.intersectionCount(drawables, limit));
+            }
+        }
+    }
+
+    @Test
+    public void parallelIntersectionCountTest() {
+        final LetterToLineConverter converter = new LetterToLineConverter();
+        final Random random = new Random(17);
+
+        for (int i = 0; i < 10; i++) {
+            final List<Object> drawables = converter.generateShapes(new Random(i), TestTrees.randomTreeWithLetters(random, 1 + random.nextInt(i < 8 ? 300 : 1500)), null).getDrawables();
+            drawables.add(new Line2D.Double(5, 5, 5, 5));
+            drawables.add(new Line2D.Double(500, 50, 500, 50));
+            final IntersectionGrid grid = IntersectionGrid.fromDrawables(drawables);
+            final int count = grid.countIntersections(Integer.MAX_VALUE, false);
+
+            assertEquals(converter.intersectionCount(drawables), count);
+            assertEquals(count, grid.countIntersections(Integer.MAX_VALUE, true));
+            for (int limit = 0; limit <= count + 2; limit += 1 + count / 20) {
+                assertEquals(Math.min(count, limit), grid.countIntersections(limit, true));
+            }
+        }
+    }
+
+    @Test
+    public void layoutWorkspaceTracksChangesTest() {
+        final LetterToLineConverter converter = new LetterToLineConverter();
+        final Random random = new Random(13);
+
+        for (int i = 0; i < 5; i++) {
+            final List<Object> drawables = converter.generateShapes(new Random(i), TestTrees.randomTreeWithLetters(random, 50 + random.nextInt(200)), null).getDrawables();
+            // lines of length zero intersect each other no matter where they are
+            drawables.add(new Line2D.Double(5, 5, 5, 5));
+            drawables.add(new Line2D.Double(500, 50, 500, 50));
+            drawables.add(new Line2D.Double(0, 0, 4, 0));
+
+            final LayoutWorkspace workspace = new LayoutWorkspace(drawables);
+            assertWorkspaceMatchesPairwise(converter, drawables, workspace);
+
+            for (int move = 0; move < 100; move++) {
+                final int drawable = random.nextInt(drawables.size());
+                if (drawables.get(drawable) instanceof LetterShape) {
+                    final LetterShape letterShape = (LetterShape) drawables.get(drawable);
+                    final Point2D position = letterShape.getTransformation().getOffsetPosition();
+                    letterShape.getTransformation().setOffsetPosition(new Point2D.Double(position.getX() + random.nextInt(200) - 100, position.getY() + random.nextInt(200) - 100));
+                } else {
+                    final double x = random.nextInt(2000), y = random.nextInt(400) - 200;
+                    drawables.set(drawable, new Line2D.Double(x, y, x + random.nextInt(100) - 50, y + random.nextInt(100) - 50));
+                }
+                workspace.update(drawable);
+
+                if (move % 10 == 0) {
+                    assertWorkspaceMatchesPairwise(converter, drawables, workspace);
+                }
+            }
+            assertWorkspaceMatchesPairwise(converter, drawables, workspace);
+        }
+    }
+
+    private static void assertWorkspaceMatchesPairwise(LetterToLineConverter converter, List<Object> drawables, LayoutWorkspace workspace) {
+        assertEquals(converter.intersectionCountPairwise(drawables), workspace.getIntersectionCount());
+
+        final double[] shortenedLineA = new double[4];
+        final double[] shortenedLineB = new double[4];
+        int intersectingDrawables = 0;
+        for (int drawable = 0; drawable < drawables.size(); drawable++) {
+            int count = 0;
+            int first = -1;
+            for (int other = 0; other < drawables.size(); other++) {
+                if (other == drawable) {
+                    continue;
+                }
+                final int pairCount = LetterToLineConverter.intersectionCount(drawables.get(Math.min(drawable, other)), drawables.get(Math.max(drawable, other)), shortenedLineA, shortenedLineB);
+                if (pairCount > 0 && first < 0) {
+                    first = other;
+                }
+                count += pairCount;
+            }
+            assertEquals(count, workspace.getIntersectionCount(drawable));
+            assertEquals(first, workspace.findFirstIntersecting(drawable));
+            if (count > 0) {
+                intersectingDrawables++;
+            }
+        }
+        assertEquals(intersectingDrawables, workspace.getIntersectingDrawableCount());
+    }
+
+    @Test
+    public void repairIntersectionsTest() {
+        final LetterToLineConverter converter = new LetterToLineConverter();
+
+        for (int i = 0; i < 6; i++) {
+            final WrittenNomaiFlatLetterTree tree = TestTrees.randomTreeWithLetters(new Random(i), 100 + i * 60);
+            final WrittenNomaiConverter.DrawablesResult shapes = converter.generateShapes(new Random(i), tree, null);
+            final int initialCount = converter.intersectionCount(shapes.getDrawables());
+
+            final int repairedCount = converter.repairIntersections(new Random(i), tree, shapes, 300);
+            assertTrue(repairedCount <= initialCount, repairedCount + " > " + initialCount);
+            assertEquals(converter.intersectionCountPairwise(shapes.getDrawables()), repairedCount);
+
+            // the connecting lines have been regenerated for the moved letter shapes
+            final List<LetterShape> letterShapes = letterShapes(shapes.getDrawables());
+            final List<LetterShape[]> connected = LetterToLineConverter.findConnectedLetterShapes(tree, letterShapes);
+            for (int line = 0; line < connected.size(); line++) {
+                final Line2D expected = converter.findClosestBranchingPointsConnectingLine(connected.get(line)[0], connected.get(line)[1]);
+                final Line2D actual = (Line2D) shapes.getDrawables().get(letterShapes.size() + line);
+                assertEquals(expected.getP1(), actual.getP1());
+                assertEquals(expected.getP2(), actual.getP2());
+            }
+
+            // the same random repairs the same layout the same way
+            final WrittenNomaiConverter.DrawablesResult again = converter.generateShapes(new Random(i), tree, null);
+            assertEquals(repairedCount, converter.repairIntersections(new Random(i), tree, again, 300));
+        }
+    }
+
+    static List<LetterShape> indexedLookups(WrittenNomaiFlatLetterTree tree, List<LetterShape> shapes) {
+        final LetterShape[] shapesByNode = LetterToLineConverter.indexLetterShapesBySourceNode(tree, shapes);
+        final List<LetterShape> connected = new ArrayList<>();
+        for (LetterShape shape : shapes) {
+            for (int child : children(tree, shape.getSourceIndex())) {
+                connected.add(child == WrittenNomaiFlatLetterTree.NONE ? null : shapesByNode[child]);
+            }
+        }
+        return connected;
+    }
+
+    static List<LetterShape> linearLookups(WrittenNomaiFlatLetterTree tree, List<LetterShape> shapes) {
+        final List<LetterShape> connected = new ArrayList<>();
+        for (LetterShape shape : shapes) {
+            for (int child : children(tree, shape.getSourceIndex())) {
+                LetterShape found = null;
+                for (LetterShape candidate : shapes) {
+                    if (child != WrittenNomaiFlatLetterTree.NONE && candidate.getSourceIndex() == child) {
+                        found = candidate;
+                        break;
+                    }
+                }
+                connected.add(found);
+            }
+        }
+        return connected;
+    }
+
+    private static int[] children(WrittenNomaiFlatLetterTree tree, int node) {
+        return new int[]{tree.getConsonant(node), tree.getVowel(node), tree.getNumber(node), tree.getNextWord(node)};
+    }
+}
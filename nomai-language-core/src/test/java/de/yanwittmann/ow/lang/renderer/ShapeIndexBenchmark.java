@@ -0,0 +1,58 @@
+package de.yanwittmann.ow.lang.renderer;
+
+import de.yanwittmann.ow.lang.TestTrees;
+import de.yanwittmann.ow.lang.renderer.shapes.LetterShape;
+import de.yanwittmann.ow.lang.tokenizer.WrittenNomaiFlatLetterTree;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Times resolving the connected letter shapes of every letter of a text with about 2000 letters, once using the shape
+ * index of {@link LetterToLineConverter#indexLetterShapesBySourceNode} and once using the linear search over all
+ * shapes that connecting line generation used before. The median of several rounds is reported after a warm-up.
+ * Run it on the test classpath, the equality of both lookups is checked by
+ * {@link LetterToLineConverterTest#shapeIndexMatchesLinearSearchTest()}.
+ */
+public class ShapeIndexBenchmark {
+
+    private static final Logger LOG = LogManager.getLogger(ShapeIndexBenchmark.class);
+
+    private static final int WARMUP_ROUNDS = 10;
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) {
+        final WrittenNomaiFlatLetterTree tree = TestTrees.randomTreeWithLetters(new Random(5), 2000);
+        final List<LetterShape> shapes = LetterToLineConverterTest.letterShapes(new LetterToLineConverter().generateShapes(new Random(5), tree, null).getDrawables());
+        LOG.info("Resolving the connected shapes of [{}] letter shapes", shapes.size());
+
+        final double linearMillis = medianMillis(() -> LetterToLineConverterTest.linearLookups(tree, shapes));
+        final double indexedMillis = medianMillis(() -> LetterToLineConverterTest.indexedLookups(tree, shapes));
+
+        LOG.info("Linear search: [{}] ms", String.format("%.3f", linearMillis));
+        LOG.info("Shape index:   [{}] ms", String.format("%.3f", indexedMillis));
+    }
+
+    private static double medianMillis(Supplier<List<LetterShape>> lookups) {
+        int checksum = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            checksum += lookups.get().size();
+        }
+
+        final long[] nanos = new long[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            final long start = System.nanoTime();
+            checksum += lookups.get().size();
+            nanos[i] = System.nanoTime() - start;
+        }
+        // keeps the results alive, so the lookups cannot be optimized away
+        LOG.debug("Resolved [{}] shapes", checksum);
+
+        Arrays.sort(nanos);
+        return nanos[ROUNDS / 2] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,243 @@
+package de.yanwittmann.ow.lang.renderer.shapes;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.geom.Point2D;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BezierCurveTest {
+
+    @Test
+    public void arcLengthTableMatchesSampledLengthTest() {
+        final Random random = new Random(3);
+
+        for (int i = 0; i < 10; i++) {
+            final BezierCurve curve = new BezierCurve();
+            for (int p = 0; p < 3 + i % 7; p++) {
+                curve.addControlPoint(new Point2D.Double(random.nextInt(800), random.nextInt(800)));
+            }
+            assertArcLengthTableAccurate(curve);
+        }
+
+        // repeated control points create parts of the curve where the speed drops to zero
+        assertArcLengthTableAccurate(new BezierCurve(new Point2D.Double(0, 0), new Point2D.Double(0, 0), new Point2D.Double(300, 100), new Point2D.Double(300, 100)));
+        assertArcLengthTableAccurate(new BezierCurve(new Point2D.Double(10, 10), new Point2D.Double(10, 10)));
+    }
+
+    @Test
+    public void arcLengthTableFollowsTransformationTest() {
+        final BezierCurve curve = new BezierCurve(new Point2D.Double(0, 0), new Point2D.Double(100, 0));
+        assertEquals(0.25, curve.findTForLength(25), 1e-9);
+
+        curve.getTransformation().setScale(2);
+        curve.recalculateAbsoluteControlPoints();
+        assertEquals(0.125, curve.findTForLength(25), 1e-9);
+
+        assertEquals(0, curve.findTForLength(-5));
+        assertEquals(1, curve.findTForLength(500));
+
+        final Point2D mapped = curve.getCoordinateSystem().worldToBezier(new Point2D.Double(50, 10));
+        assertEquals(50, mapped.getX(), 1e-9);
+        assertEquals(10, Math.abs(mapped.getY()), 1e-9);
+    }
+
+    @Test
+    public void templateCurvesShareScaledTableTest() {
+        final BezierCurveTemplate template = BezierCurveTemplate.fromControlPoints(new Point2D.Double(100, 100), new Point2D.Double(-50, 300), new Point2D.Double(400, 250), new Point2D.Double(200, 0));
+        assertEquals(new Point2D.Double(0, 0), template.getControlPoints().get(0));
+
+        for (double scale : new double[]{0.3, 1, 4, 10}) {
+            final BezierCurve curve = template.createCurve(template.getUnitLength() * scale);
+            assertEquals(scale, curve.getTransformation().getScale(), 1e-12);
+            assertEquals(template.getUnitLength() * scale, curve.getLength(), 1e-9);
+            assertArcLengthTableAccurate(curve);
+        }
+
+        // changing a created curve drops the shared table, the template and other curves are not affected
+        final BezierCurve curve = template.createCurve(500);
+        curve.setControlPoint(3, new Point2D.Double(0, 50));
+        assertNotEquals(500, curve.getLength(), 1);
+        assertEquals(500, template.createCurve(500).getLength(), 1e-9);
+        assertEquals(new Point2D.Double(100, -100), template.getControlPoints().get(3));
+    }
+
+    @Test
+    public void templateRegistryTest() {
+        final BezierCurveTemplate first = BezierCurveTemplate.fromControlPoints(new Point2D.Double(0, 0), new Point2D.Double(10, 0));
+        final BezierCurveTemplate second = BezierCurveTemplate.fromControlPoints(new Point2D.Double(0, 0), new Point2D.Double(0, 10));
+        final BezierCurveTemplateRegistry registry = new BezierCurveTemplateRegistry(new double[]{100, Double.POSITIVE_INFINITY}, new BezierCurveTemplate[]{first, second});
+
+        assertSame(first, registry.getTemplate(-1));
+        assertSame(first, registry.getTemplate(99.9));
+        assertSame(second, registry.getTemplate(100));
+        assertSame(second, registry.getTemplate(Double.MAX_VALUE));
+        assertEquals(250, registry.createCoordinateSystem(250).getCurve().getLength(), 1e-9);
+
+        assertThrows(IllegalArgumentException.class, () -> new BezierCurveTemplateRegistry(new double[]{100}, new BezierCurveTemplate[]{first, second}));
+        assertThrows(IllegalArgumentException.class, () -> new BezierCurveTemplateRegistry(new double[]{100, 100}, new BezierCurveTemplate[]{first, second}));
+        assertThrows(IllegalArgumentException.class, () -> BezierCurveTemplate.fromControlPoints());
+    }
+
+    @Test
+    public void evaluationMatchesDeCasteljauTest() {
+        final Random random = new Random(5);
+
+        for (int degree = 0; degree < 10; degree++) {
+            final Point2D[] controlPoints = new Point2D[degree + 1];
+            for (int i = 0; i <= degree; i++) {
+                controlPoints[i] = new Point2D.Double(random.nextInt(1000) - 500, random.nextInt(1000) - 500);
+            }
+            final BezierCurve curve = new BezierCurve(controlPoints);
+
+            assertEquals(controlPoints[0], curve.getPointOnCurve(0));
+            assertEquals(controlPoints[degree], curve.getPointOnCurve(1));
+            for (int i = 0; i <= 50; i++) {
+                final double t = i / 50.0;
+                final Point2D expected = deCasteljau(controlPoints, t);
+                final Point2D actual = curve.getPointOnCurve(t, new Point2D.Double(Double.NaN, Double.NaN));
+                assertEquals(expected.getX(), actual.getX(), 1e-9);
+                assertEquals(expected.getY(), actual.getY(), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void analyticTangentTest() {
+        final BezierCurve curve = new BezierCurve(new Point2D.Double(0, 0), new Point2D.Double(100, 200), new Point2D.Double(300, -50), new Point2D.Double(400, 100));
+
+        // the tangents at the ends point along the first and last legs of the control polygon
+        assertDirection(100, 200, curve.getTangentAt(0));
+        assertDirection(100, 150, curve.getTangentAt(1));
+
+        for (int i = 1; i < 20; i++) {
+            final double t = i / 20.0;
+            final Point2D before = curve.getPointOnCurve(t - 1e-6);
+            final Point2D after = curve.getPointOnCurve(t + 1e-6);
+            final Point2D tangent = curve.getTangentAt(t);
+            assertDirection(after.getX() - before.getX(), after.getY() - before.getY(), tangent);
+
+            final Point2D normal = curve.getNormalAt(t);
+            assertEquals(-tangent.getY(), normal.getX(), 1e-12);
+            assertEquals(tangent.getX(), normal.getY(), 1e-12);
+        }
+
+        // equal control points at the ends let the derivative vanish there, the direction comes from the next point
+        final BezierCurve repeatedEnds = new BezierCurve(new Point2D.Double(0, 0), new Point2D.Double(0, 0), new Point2D.Double(50, 50), new Point2D.Double(100, 0), new Point2D.Double(100, 0));
+        assertDirection(1, 1, repeatedEnds.getTangentAt(0));
+        assertDirection(1, -1, repeatedEnds.getTangentAt(1));
+
+        assertEquals(new Point2D.Double(0, 0), new BezierCurve(new Point2D.Double(3, 4)).getTangentAt(0.5));
+        assertThrows(IllegalStateException.class, () -> new BezierCurve().getPointOnCurve(0.5));
+    }
+
+    @Test
+    public void archimedeanSpiralFollowsArcLengthTest() {
+        final ArchimedeanSpiralCoordinateSystem spiral = new ArchimedeanSpiralCoordinateSystem(20_000, 450, 450);
+        assertEquals(20_000, spiral.getPathLength());
+
+        // the path starts at the origin heading upwards
+        assertEquals(0, spiral.getPointOnPath(0).distance(0, 0), 1e-6);
+        assertDirection(0, -1, new Point2D.Double(spiral.getNormalOnPath(0).getY(), -spiral.getNormalOnPath(0).getX()));
+
+        // a much finer polyline as the reference for the arc length, which also has to curl clockwise all along
+        final int samples = 200_000;
+        Point2D previous = spiral.worldToBezier(new Point2D.Double(0, 0));
+        double previousDx = 0, previousDy = -1;
+        double length = 0;
+        for (int i = 1; i <= samples; i++) {
+            final Point2D point = spiral.worldToBezier(new Point2D.Double(20_000.0 * i / samples, 0));
+            final double dx = point.getX() - previous.getX();
+            final double dy = point.getY() - previous.getY();
+            assertTrue(previousDx * dy - previousDy * dx > 0, "curls clockwise at " + i);
+            length += previous.distance(point);
+            previous = point;
+            previousDx = dx;
+            previousDy = dy;
+            if (i % 1000 == 0) {
+                assertEquals(20_000.0 * i / samples, length, 1e-3);
+            }
+        }
+
+        // positions outside of the path are clamped and the y coordinate moves along the normal
+        assertEquals(spiral.getPointOnPath(1), spiral.worldToBezier(new Point2D.Double(25_000, 0)));
+        final Point2D onPath = spiral.getPointOnPath(0.3);
+        final Point2D normal = spiral.getNormalOnPath(0.3);
+        final Point2D offset = spiral.worldToBezier(new Point2D.Double(6000, 40));
+        assertEquals(onPath.getX() + normal.getX() * 40, offset.getX(), 1e-9);
+        assertEquals(onPath.getY() + normal.getY() * 40, offset.getY(), 1e-9);
+
+        assertThrows(IllegalArgumentException.class, () -> new ArchimedeanSpiralCoordinateSystem(100, 0, 450));
+        assertThrows(IllegalArgumentException.class, () -> new ArchimedeanSpiralCoordinateSystem(Double.NaN, 450, 450));
+    }
+
+    @Test
+    public void archimedeanSpiralKeepsTurnSpacingTest() {
+        final ArchimedeanSpiralCoordinateSystem spiral = new ArchimedeanSpiralCoordinateSystem(1e7, 450, 450);
+
+        // the inverse of the closed form arc length stays exact far out on the spiral
+        for (double arcLength : new double[]{0.5, 100, 1e4, 1e6, 1e7}) {
+            assertEquals(arcLength, spiral.arcLength(spiral.thetaForArcLength(arcLength)), arcLength * 1e-12);
+        }
+
+        // without an inner radius the path ends in the center, from which every turn is one spacing further out than the next one
+        final ArchimedeanSpiralCoordinateSystem toCenter = new ArchimedeanSpiralCoordinateSystem(1e7, 450, 0);
+        final Point2D center = toCenter.getPointOnPath(1);
+        for (double x : new double[]{0, 5e6, 1e7 - 50_000}) {
+            final double theta = toCenter.thetaForArcLength(1e7 - x);
+            final double turnLength = toCenter.arcLength(theta) - toCenter.arcLength(theta - 2 * Math.PI);
+            final double radius = toCenter.worldToBezier(new Point2D.Double(x, 0)).distance(center);
+            final double nextRadius = toCenter.worldToBezier(new Point2D.Double(x + turnLength, 0)).distance(center);
+            assertEquals(450, radius - nextRadius, 1e-6);
+        }
+
+        // the inner radius cuts the same spiral short at one turn from the center, where its radius is one spacing
+        final ArchimedeanSpiralCoordinateSystem shortSpiral = new ArchimedeanSpiralCoordinateSystem(10_000, 450, 450);
+        final ArchimedeanSpiralCoordinateSystem fullSpiral = new ArchimedeanSpiralCoordinateSystem(10_000 + shortSpiral.arcLength(2 * Math.PI), 450, 0);
+        final Point2D endOnFullSpiral = fullSpiral.worldToBezier(new Point2D.Double(10_000, 0));
+        assertEquals(450, endOnFullSpiral.distance(fullSpiral.getPointOnPath(1)), 1e-6);
+        assertEquals(shortSpiral.getPointOnPath(1).distance(0, 0), endOnFullSpiral.distance(0, 0), 1e-6);
+    }
+
+    private static void assertDirection(double x, double y, Point2D direction) {
+        final double length = Math.sqrt(x * x + y * y);
+        assertEquals(x / length, direction.getX(), 1e-6);
+        assertEquals(y / length, direction.getY(), 1e-6);
+    }
+
+    private static Point2D deCasteljau(Point2D[] controlPoints, double t) {
+        final Point2D[] points = controlPoints.clone();
+        for (int level = points.length - 1; level > 0; level--) {
+            for (int i = 0; i < level; i++) {
+                points[i] = new Point2D.Double((1 - t) * points[i].getX() + t * points[i + 1].getX(), (1 - t) * points[i].getY() + t * points[i + 1].getY());
+            }
+        }
+        return points[0];
+    }
+
+    private static void assertArcLengthTableAccurate(BezierCurve curve) {
+        final ArcLengthTable table = curve.getArcLengthTable();
+        assertTrue(table.getMaxError() <= ArcLengthTable.TARGET_MAX_ERROR, "error estimate " + table.getMaxError());
+
+        // a much finer polyline as the reference for the arc length
+        final int samples = 200_000;
+        final double[] lengths = new double[samples + 1];
+        Point2D previous = curve.getPointOnCurve(0);
+        for (int i = 1; i <= samples; i++) {
+            final Point2D point = curve.getPointOnCurve((double) i / samples);
+            lengths[i] = lengths[i - 1] + previous.distance(point);
+            previous = point;
+        }
+        assertEquals(lengths[samples], table.getLength(), ArcLengthTable.TARGET_MAX_ERROR);
+
+        for (int i = 0; i <= 100; i++) {
+            final double length = lengths[samples] * i / 100;
+            final double t = curve.findTForLength(length);
+            final double position = t * samples;
+            final int index = Math.min(samples - 1, (int) position);
+            final double actualLength = lengths[index] + (lengths[index + 1] - lengths[index]) * (position - index);
+            assertEquals(length, actualLength, table.getMaxError() + 1e-6, "t " + t);
+        }
+    }
+}
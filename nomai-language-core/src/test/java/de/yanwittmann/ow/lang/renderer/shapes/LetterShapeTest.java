@@ -0,0 +1,66 @@
+package de.yanwittmann.ow.lang.renderer.shapes;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LetterShapeTest {
+
+    @Test
+    public void absoluteGeometryFollowsTransformationTest() {
+        final LetterShape letterShape = LetterShape.fromShapeDefinition(ShapeDefinitions.values()[0]);
+        assertAbsoluteGeometryMatchesTransformation(letterShape);
+
+        letterShape.getTransformation().setOffsetPosition(new Point2D.Double(12, -3));
+        assertAbsoluteGeometryMatchesTransformation(letterShape);
+
+        letterShape.getTransformation().setRotationAngle(1.3);
+        assertAbsoluteGeometryMatchesTransformation(letterShape);
+
+        letterShape.getTransformation().setScale(-0.8);
+        assertAbsoluteGeometryMatchesTransformation(letterShape);
+
+        final ShapeTransformation transformation = new ShapeTransformation(letterShape.getTransformation());
+        transformation.setRotationAngle(4);
+        letterShape.setTransformation(transformation);
+        assertAbsoluteGeometryMatchesTransformation(letterShape);
+
+        letterShape.setLinePositions(new Point2D[]{new Point2D.Double(1, 2), new Point2D.Double(3, 4), new Point2D.Double(5, 7)});
+        letterShape.setBranchPositions(new Point2D[]{new Point2D.Double(0, 1)});
+        assertAbsoluteGeometryMatchesTransformation(letterShape);
+    }
+
+    @Test
+    public void returnedGeometryIsCopiedTest() {
+        final LetterShape letterShape = LetterShape.fromShapeDefinition(ShapeDefinitions.values()[0]);
+        final Point2D[] linePositions = letterShape.getAbsoluteLinePositions();
+        final Point2D[] expected = linePositions.clone();
+
+        linePositions[0] = new Point2D.Double(1000, 1000);
+        letterShape.getAbsoluteLines()[0] = null;
+
+        assertArrayEquals(expected, letterShape.getAbsoluteLinePositions());
+        assertNotNull(letterShape.getAbsoluteLines()[0]);
+    }
+
+    private static void assertAbsoluteGeometryMatchesTransformation(LetterShape letterShape) {
+        final ShapeTransformation transformation = letterShape.getTransformation();
+        final Point2D[] expectedLinePositions = transformation.absolutePositions(letterShape.getRawLinePositions());
+
+        assertEquals(Arrays.asList(expectedLinePositions), Arrays.asList(letterShape.getAbsoluteLinePositions()));
+        assertEquals(expectedLinePositions.length - 1, letterShape.getAbsoluteLines().length);
+        assertEquals(expectedLinePositions[1], letterShape.getAbsoluteLines()[0].getP2());
+        assertArrayEquals(PackedGeometry.pack(expectedLinePositions), letterShape.getAbsoluteLineCoordinates());
+        assertArrayEquals(PackedGeometry.pack(letterShape.getAbsoluteBranchPositions()), letterShape.getAbsoluteBranchCoordinates());
+
+        // the precomputed rotation gives the same result as rotating with the angle directly
+        final double angle = transformation.getRotationAngle();
+        final Point2D relative = letterShape.getRawLinePositions()[0];
+        final double x = (relative.getX() * Math.cos(angle) - relative.getY() * Math.sin(angle)) * transformation.getScale() + transformation.getOffsetPosition().getX();
+        final double y = (relative.getX() * Math.sin(angle) + relative.getY() * Math.cos(angle)) * transformation.getScale() + transformation.getOffsetPosition().getY();
+        assertEquals(new Point2D.Double(x, y), letterShape.getAbsoluteLinePositions()[0]);
+    }
+}
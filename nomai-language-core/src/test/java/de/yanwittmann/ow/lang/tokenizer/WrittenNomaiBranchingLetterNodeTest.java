@@ -0,0 +1,81 @@
+package de.yanwittmann.ow.lang.tokenizer;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WrittenNomaiBranchingLetterNodeTest {
+
+    private static final List<List<WrittenNomaiTextLetter>> WORDS = Arrays.asList(
+            letters("n", "oh", "m", "ay"),
+            letters("aah", "t"),
+            letters("ah", "th", "eh", "r"),
+            letters("w", "ih", "l", "d", "z"),
+            letters("1", "10", "7")
+    );
+
+    @Test
+    public void buildTreeFromLongInputTest() {
+        final int wordCount = 100_000;
+        final List<List<WrittenNomaiTextLetter>> sentence = new ArrayList<>(wordCount);
+        for (int i = 0; i < wordCount; i++) {
+            sentence.add(WORDS.get(i % WORDS.size()));
+        }
+
+        final WrittenNomaiBranchingLetterNode root = assertTimeout(Duration.ofSeconds(2), () -> WrittenNomaiBranchingLetterNode.fromSentence(sentence));
+
+        // every word but the numbers is appended to the chain
+        int wordRoots = 1;
+        WrittenNomaiBranchingLetterNode current = root;
+        while (current.hasNextWord() || current.hasConsonant()) {
+            current = current.hasNextWord() ? current.getNextWord() : current.getConsonant();
+            if (current.isRoot()) wordRoots++;
+        }
+        assertEquals(wordCount / WORDS.size() * (WORDS.size() - 1), wordRoots);
+        assertFalse(current.hasNumber());
+    }
+
+    @Test
+    public void deepConsonantChainTest() {
+        final List<WrittenNomaiTextLetter> word = new ArrayList<>(Collections.nCopies(100_000, WrittenNomaiTextLetter.fromToken("k", true)));
+        final WrittenNomaiBranchingLetterNode root = WrittenNomaiBranchingLetterNode.fromSentence(Collections.singletonList(word));
+
+        final WrittenNomaiBranchingLetterNode deepestConsonant = root.getDeepestConsonant();
+        assertFalse(deepestConsonant.hasConsonant());
+        assertEquals(100_000, root.getDepth());
+        assertSame(root, root.getDeepestRoot());
+    }
+
+    @Test
+    public void toStringTest() {
+        final WrittenNomaiBranchingLetterNode root = WrittenNomaiBranchingLetterNode.fromSentence(Arrays.asList(WORDS.get(0), WORDS.get(4), WORDS.get(1)));
+
+        assertEquals("\n" +
+                "ROOT [C]\n" +
+                "  C [n => SQUARE SQUARE SQUARE_SQUARE]\n" +
+                "    V [oh => PENTAGON BEND BEND_PENTAGON]\n" +
+                "    C [m => SQUARE _ SQUARE]\n" +
+                "      V [ay => SQUARE SQUARE SQUARE_SQUARE]\n" +
+                "\n" +
+                "      ROOT [V C N]\n" +
+                "        V [aah => SQUARE LINE LINE_SQUARE]\n" +
+                "        N [1 => PENTAGON _ PENTAGON]\n" +
+                "          N [10 => HEXAGON HEXAGON HEXAGON_HEXAGON]\n" +
+                "            N [7 => PENTAGON PENTAGON PENTAGON_PENTAGON]\n" +
+                "        C [t => OCTAGON BEND BEND_OCTAGON]", root.toString());
+    }
+
+    private static List<WrittenNomaiTextLetter> letters(String... tokens) {
+        final List<WrittenNomaiTextLetter> letters = new ArrayList<>();
+        for (String token : tokens) {
+            letters.add(WrittenNomaiTextLetter.fromToken(token, true));
+        }
+        return letters;
+    }
+}
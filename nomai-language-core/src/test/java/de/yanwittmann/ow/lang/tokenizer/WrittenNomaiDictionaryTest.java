@@ -0,0 +1,273 @@
+package de.yanwittmann.ow.lang.tokenizer;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WrittenNomaiDictionaryTest {
+
+    private static final String DICTIONARY_RESOURCE = "/ow-lang/cmudict.dict";
+    private static final String CONVERSION_TABLE_RESOURCE = "/ow-lang/cmudict-to-ow.txt";
+
+    private static List<String> dictionaryLines;
+    private static List<String> conversionTableLines;
+    private static WrittenNomaiDictionaryEntries parsedDictionary;
+    private static Set<String> words;
+    private static WrittenNomaiHeapDictionary heapDictionary;
+
+    @BeforeAll
+    static void loadDictionary() throws IOException {
+        dictionaryLines = readResourceLines(DICTIONARY_RESOURCE);
+        conversionTableLines = readResourceLines(CONVERSION_TABLE_RESOURCE);
+        parsedDictionary = WrittenNomaiDictionaryEntries.parse(dictionaryLines, WrittenNomaiDictionaryEntries.parseConversionTable(conversionTableLines));
+        words = new HashSet<>(Arrays.asList(parsedDictionary.words));
+        heapDictionary = WrittenNomaiHeapDictionary.load(WrittenNomaiDictionaryTest.class, DICTIONARY_RESOURCE, CONVERSION_TABLE_RESOURCE);
+    }
+
+    private static List<String> readResourceLines(String resource) throws IOException {
+        try (InputStream inputStream = WrittenNomaiDictionaryTest.class.getResourceAsStream(resource)) {
+            return IOUtils.readLines(inputStream, StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void mappedSnapshotMatchesHeapDictionaryTest(@TempDir File tempDir) throws IOException {
+        final File snapshotFile = new File(tempDir, "cmudict.snapshot");
+        final WrittenNomaiMappedDictionary mappedDictionary = WrittenNomaiMappedDictionary.openOrCompile(snapshotFile, WrittenNomaiDictionaryTest.class, DICTIONARY_RESOURCE, CONVERSION_TABLE_RESOURCE);
+
+        assertEquals(heapDictionary.size(), mappedDictionary.size());
+        assertEquals(heapDictionary.getSymbols(), mappedDictionary.getSymbols());
+
+        for (String word : words) {
+            assertEquals(heapDictionary.lookup(word), mappedDictionary.lookup(word), word);
+            assertNull(mappedDictionary.lookup(word + "#"), word);
+        }
+        assertNull(mappedDictionary.lookup(""));
+        assertNull(mappedDictionary.lookup("ä€"));
+
+        // the tokens are a read-only view of the mapped code block
+        final List<String> tokens = mappedDictionary.lookup("apple");
+        assertThrows(UnsupportedOperationException.class, () -> tokens.set(0, "p"));
+        assertThrows(UnsupportedOperationException.class, () -> tokens.add("p"));
+        assertThrows(IndexOutOfBoundsException.class, () -> tokens.get(tokens.size()));
+    }
+
+    @Test
+    public void longestPrefixMatchesNaiveSearchTest(@TempDir File tempDir) throws IOException {
+        final WrittenNomaiMappedDictionary mappedDictionary = WrittenNomaiMappedDictionary.openOrCompile(new File(tempDir, "cmudict.snapshot"), WrittenNomaiDictionaryTest.class, DICTIONARY_RESOURCE, CONVERSION_TABLE_RESOURCE);
+        final String[] texts = {"nomaiwritingxyz", "https://www.reddit.com/r/outerwilds", "supercalifragilisticexpialidocious", "qqqq", "a", "", "thé"};
+
+        for (String text : texts) {
+            for (int start = 0; start <= text.length(); start++) {
+                final int expected = naiveLongestPrefixLength(text, start);
+                assertEquals(expected, heapDictionary.longestPrefixLength(text, start, text.length()), text + " at " + start);
+                assertEquals(expected, mappedDictionary.longestPrefixLength(text, start, text.length()), text + " at " + start);
+            }
+        }
+    }
+
+    private static int naiveLongestPrefixLength(String text, int start) {
+        for (int end = text.length(); end > start; end--) {
+            if (words.contains(text.substring(start, end))) {
+                return end - start;
+            }
+        }
+        return 0;
+    }
+
+    @Test
+    public void outdatedSnapshotIsRecompiledTest(@TempDir File tempDir) throws IOException {
+        final File snapshotFile = new File(tempDir, "cmudict.snapshot");
+        WrittenNomaiMappedDictionary.compile(WrittenNomaiDictionaryEntries.parse(dictionaryLines, Map.of()), 42, snapshotFile);
+        assertEquals(42, WrittenNomaiMappedDictionary.readSourceChecksum(snapshotFile));
+
+        final WrittenNomaiMappedDictionary recompiled = WrittenNomaiMappedDictionary.openOrCompile(snapshotFile, WrittenNomaiDictionaryTest.class, DICTIONARY_RESOURCE, CONVERSION_TABLE_RESOURCE);
+        assertNotEquals(42, recompiled.getSourceChecksum());
+        assertEquals(recompiled.getSourceChecksum(), WrittenNomaiMappedDictionary.readSourceChecksum(snapshotFile));
+        assertEquals(heapDictionary.lookup("nomai"), recompiled.lookup("nomai"));
+        assertArrayEquals(new String[]{"cmudict.snapshot"}, tempDir.list());
+
+        // the temporary file is removed if the snapshot cannot be replaced
+        final File blockedSnapshotFile = new File(tempDir, "blocked");
+        assertTrue(new File(blockedSnapshotFile, "content").mkdirs());
+        assertThrows(IOException.class, () -> WrittenNomaiMappedDictionary.compile(WrittenNomaiDictionaryEntries.parse(dictionaryLines, Map.of()), 42, blockedSnapshotFile));
+        assertEquals(2, tempDir.list().length);
+
+        final File notASnapshot = new File(tempDir, "text.txt");
+        Files.write(notASnapshot.toPath(), "nomai".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> WrittenNomaiMappedDictionary.readSourceChecksum(notASnapshot));
+    }
+
+    @Test
+    public void codedPronunciationsMatchConversionTableTest() {
+        final Map<String, List<List<String>>> legacyDictionary = parseLegacyDictionary(dictionaryLines);
+        final Map<String, String> conversionTable = WrittenNomaiDictionaryEntries.parseConversionTable(conversionTableLines);
+
+        assertEquals(legacyDictionary.size(), heapDictionary.size());
+        for (Map.Entry<String, List<List<String>>> entry : legacyDictionary.entrySet()) {
+            final List<String> expected = new ArrayList<>();
+            for (String phoneticSymbol : entry.getValue().get(0)) {
+                if (conversionTable.containsKey(phoneticSymbol)) {
+                    expected.add(conversionTable.get(phoneticSymbol));
+                }
+            }
+            assertEquals(expected, heapDictionary.lookup(entry.getKey()), entry.getKey());
+        }
+
+        // the tokens are a read-only view of the coded pronunciation
+        final List<String> tokens = heapDictionary.lookup("apple");
+        assertThrows(UnsupportedOperationException.class, () -> tokens.set(0, "p"));
+        assertThrows(UnsupportedOperationException.class, () -> tokens.add("p"));
+        assertEquals(tokens, heapDictionary.lookup("apple"));
+    }
+
+    /**
+     * Compares the retained heap of the loaded dictionary with the representation the tokenizer used to keep: a map from
+     * every word to all of its pronunciations as lists of phonetic symbol strings, plus the conversion table. Both are
+     * measured by walking their object graphs with the layout of a 64 bit JVM with compressed references, so the result
+     * does not depend on the garbage collector.
+     */
+    @Test
+    public void heapFootprintTest() throws IllegalAccessException {
+        final Map<String, List<List<String>>> legacyDictionary = parseLegacyDictionary(dictionaryLines);
+        final Map<String, String> legacyConversionTable = WrittenNomaiDictionaryEntries.parseConversionTable(conversionTableLines);
+        final Set<Object> legacyVisited = Collections.newSetFromMap(new IdentityHashMap<>());
+        final long legacyFootprint = HeapFootprint.of(legacyDictionary, legacyVisited) + HeapFootprint.of(legacyConversionTable, legacyVisited);
+
+        final long codedFootprint = HeapFootprint.of(heapDictionary, Collections.newSetFromMap(new IdentityHashMap<>()));
+        assertEquals(legacyDictionary.size(), heapDictionary.size());
+
+        assertTrue(codedFootprint * 4 < legacyFootprint, "Coded dictionary should be at least four times smaller: " + codedFootprint + " vs " + legacyFootprint + " bytes");
+    }
+
+    /**
+     * Estimates the retained size of the collections built by {@link #parseLegacyDictionary(List)} and of the fields
+     * of the dictionary classes, assuming 12 byte object headers, 16 byte array headers, 4 byte references and
+     * 8 byte alignment. Strings are counted with their compact Latin-1 encoding where possible.
+     */
+    private static class HeapFootprint {
+
+        private static long of(Object object, Set<Object> visited) throws IllegalAccessException {
+            if (object == null || !visited.add(object)) {
+                return 0;
+            }
+
+            if (object instanceof String) {
+                final String string = (String) object;
+                final boolean latin1 = string.chars().allMatch(c -> c <= 0xFF);
+                return align(24) + align(16 + (long) string.length() * (latin1 ? 1 : 2));
+            } else if (object instanceof HashMap) {
+                final Map<?, ?> map = (Map<?, ?>) object;
+                long size = align(48) + align(16 + 4L * hashMapCapacity(map.size()));
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    size += align(32) + of(entry.getKey(), visited) + of(entry.getValue(), visited);
+                }
+                return size;
+            } else if (object instanceof ArrayList) {
+                return align(24) + align(16 + 4L * arrayListCapacity(((List<?>) object).size())) + ofElements((List<?>) object, visited);
+            } else if (object instanceof List) {
+                // Arrays.asList, a wrapper around the array
+                return align(16) + align(16 + 4L * ((List<?>) object).size()) + ofElements((List<?>) object, visited);
+            } else if (object.getClass().isArray()) {
+                final int length = Array.getLength(object);
+                final Class<?> componentType = object.getClass().getComponentType();
+                if (!componentType.isPrimitive()) {
+                    long size = align(16 + 4L * length);
+                    for (int i = 0; i < length; i++) {
+                        size += of(Array.get(object, i), visited);
+                    }
+                    return size;
+                }
+                return align(16 + (long) length * primitiveSize(componentType));
+            }
+
+            long size = 12;
+            long referenced = 0;
+            for (Class<?> clazz = object.getClass(); clazz != Object.class; clazz = clazz.getSuperclass()) {
+                for (Field field : clazz.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    if (field.getType().isPrimitive()) {
+                        size += primitiveSize(field.getType());
+                    } else {
+                        field.setAccessible(true);
+                        size += 4;
+                        referenced += of(field.get(object), visited);
+                    }
+                }
+            }
+            return align(size) + referenced;
+        }
+
+        private static long ofElements(List<?> list, Set<Object> visited) throws IllegalAccessException {
+            long size = 0;
+            for (Object element : list) {
+                size += of(element, visited);
+            }
+            return size;
+        }
+
+        private static int hashMapCapacity(int size) {
+            int capacity = 16;
+            while (size > capacity * 3 / 4) {
+                capacity *= 2;
+            }
+            return capacity;
+        }
+
+        private static int arrayListCapacity(int size) {
+            int capacity = 10;
+            while (size > capacity) {
+                capacity += capacity >> 1;
+            }
+            return capacity;
+        }
+
+        private static int primitiveSize(Class<?> type) {
+            if (type == long.class || type == double.class) {
+                return 8;
+            } else if (type == int.class || type == float.class) {
+                return 4;
+            } else if (type == char.class || type == short.class) {
+                return 2;
+            }
+            return 1;
+        }
+
+        private static long align(long size) {
+            return (size + 7) & ~7L;
+        }
+    }
+
+    private static Map<String, List<List<String>>> parseLegacyDictionary(List<String> lines) {
+        final Map<String, List<List<String>>> dictionary = new HashMap<>();
+
+        for (String line : lines) {
+            line = line.split("#", 2)[0].trim();
+
+            if (!line.isEmpty()) {
+                final String[] parts = line.split(" ", 2);
+                final String word = parts[0].replaceAll("\\(\\d+\\)$", "");
+                final List<String> phonetic = Arrays.asList(parts[1].split(" "));
+
+                dictionary.computeIfAbsent(word, k -> new ArrayList<>()).add(phonetic);
+            }
+        }
+
+        return dictionary;
+    }
+}
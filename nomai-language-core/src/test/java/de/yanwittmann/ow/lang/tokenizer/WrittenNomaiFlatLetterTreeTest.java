@@ -0,0 +1,89 @@
+package de.yanwittmann.ow.lang.tokenizer;
+
+import de.yanwittmann.ow.lang.TestTrees;
+import de.yanwittmann.ow.lang.renderer.LetterToLineConverter;
+import de.yanwittmann.ow.lang.renderer.shapes.LetterShape;
+import org.junit.jupiter.api.Test;
+
+import java.awt.geom.Line2D;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WrittenNomaiFlatLetterTreeTest {
+
+    @Test
+    public void flatTreeMatchesNodeTreeTest() {
+        final Random random = new Random(42);
+
+        for (int i = 0; i < 500; i++) {
+            final List<List<WrittenNomaiTextLetter>> sentence = TestTrees.randomSentence(random, random.nextInt(30));
+            final WrittenNomaiBranchingLetterNode nodeTree = WrittenNomaiBranchingLetterNode.fromSentence(sentence);
+
+            assertSameStructure(nodeTree, WrittenNomaiFlatLetterTree.fromSentence(sentence));
+            assertSameStructure(nodeTree, WrittenNomaiFlatLetterTree.fromNodeTree(nodeTree));
+        }
+    }
+
+    @Test
+    public void flatTreeLayoutMatchesNodeTreeLayoutTest() {
+        final LetterToLineConverter lineGenerator = new LetterToLineConverter();
+        final Random random = new Random(7);
+
+        for (int i = 0; i < 20; i++) {
+            final List<List<WrittenNomaiTextLetter>> sentence = TestTrees.randomSentence(random, 1 + random.nextInt(15));
+
+            final List<Object> fromNodes = lineGenerator.generateShapes(new Random(i), WrittenNomaiBranchingLetterNode.fromSentence(sentence), null).getDrawables();
+            final List<Object> fromFlat = lineGenerator.generateShapes(new Random(i), WrittenNomaiFlatLetterTree.fromSentence(sentence), null).getDrawables();
+
+            assertEquals(describe(fromNodes), describe(fromFlat));
+        }
+    }
+
+    private static void assertSameStructure(WrittenNomaiBranchingLetterNode rootNode, WrittenNomaiFlatLetterTree tree) {
+        final Deque<WrittenNomaiBranchingLetterNode> nodes = new ArrayDeque<>();
+        final Deque<Integer> indices = new ArrayDeque<>();
+        nodes.push(rootNode);
+        indices.push(tree.getRoot());
+
+        while (!nodes.isEmpty()) {
+            final WrittenNomaiBranchingLetterNode node = nodes.pop();
+            final int index = indices.pop();
+
+            assertSame(node.getLetter(), tree.getLetter(index));
+            assertEquals(node.getLetterType(), tree.getLetterType(index));
+            assertEquals(node.isRoot(), tree.isRoot(index));
+
+            pushChild(node.getConsonant(), tree.getConsonant(index), nodes, indices);
+            pushChild(node.getVowel(), tree.getVowel(index), nodes, indices);
+            pushChild(node.getNumber(), tree.getNumber(index), nodes, indices);
+            pushChild(node.getNextWord(), tree.getNextWord(index), nodes, indices);
+        }
+
+        assertEquals(rootNode.getDepth(), tree.getDepth());
+    }
+
+    private static void pushChild(WrittenNomaiBranchingLetterNode child, int childIndex, Deque<WrittenNomaiBranchingLetterNode> nodes, Deque<Integer> indices) {
+        if (child == null) {
+            assertEquals(WrittenNomaiFlatLetterTree.NONE, childIndex);
+        } else {
+            assertNotEquals(WrittenNomaiFlatLetterTree.NONE, childIndex);
+            nodes.push(child);
+            indices.push(childIndex);
+        }
+    }
+
+    private static List<String> describe(List<Object> drawables) {
+        final List<String> descriptions = new ArrayList<>();
+        for (Object drawable : drawables) {
+            if (drawable instanceof LetterShape) {
+                final LetterShape letterShape = (LetterShape) drawable;
+                descriptions.add(letterShape.getSourceLetter() + " " + Arrays.toString(letterShape.getAbsoluteLinePositions()) + " " + Arrays.toString(letterShape.getAbsoluteBranchPositions()));
+            } else {
+                final Line2D line = (Line2D) drawable;
+                descriptions.add(line.getP1() + " " + line.getP2());
+            }
+        }
+        return descriptions;
+    }
+}
@@ -0,0 +1,116 @@
+package de.yanwittmann.ow.lang.tokenizer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WrittenNomaiSnippetReaderTest {
+
+    private static final String[] PARTS = {"nomai", "ash", "twin", "a", "quantum", "moon", "supercalifragilisticexpialidocious",
+            " ", " ", " ", "  ", "\t", "\n", "   \t  ", ".", "!", "?", ":", ",", "42"};
+
+    @Test
+    public void snippetsMatchSubstringSplittingTest() {
+        final Random random = new Random(3);
+
+        for (int i = 0; i < 2000; i++) {
+            final StringBuilder text = new StringBuilder();
+            final int partCount = random.nextInt(120);
+            for (int p = 0; p < partCount; p++) {
+                text.append(PARTS[random.nextInt(PARTS.length)]);
+                if (random.nextInt(40) == 0) {
+                    // long runs of whitespace are shortened internally
+                    text.append(random.nextBoolean() ? " " : "\t".repeat(60 + random.nextInt(80)));
+                    text.append(" ".repeat(random.nextInt(120)));
+                }
+            }
+
+            for (boolean splitSentences : new boolean[]{false, true}) {
+                final List<String> expected;
+                try {
+                    expected = substringSplitting(text.toString(), splitSentences);
+                } catch (StringIndexOutOfBoundsException e) {
+                    // the old implementation cannot split sentences without a space in their first 50 characters
+                    continue;
+                }
+                assertEquals(expected, readAll(new StringReader(text.toString()), splitSentences), text.toString());
+            }
+        }
+    }
+
+    @Test
+    public void longSentencesWithoutSpacesAreCutTest() {
+        final String word = "a".repeat(120);
+        assertEquals(List.of("a".repeat(50), "a".repeat(50), "a".repeat(20)), readAll(new StringReader(word), true));
+        assertEquals(List.of(word), readAll(new StringReader(word), false));
+    }
+
+    @Test
+    public void streamLargeInputTest() {
+        // about 100 million characters, without ever holding the text in memory
+        final long length = 100_000_000L;
+        final Reader reader = new Reader() {
+            private final char[] pattern = "the nomai   wrote on the walls\t ".toCharArray();
+            private long position;
+
+            @Override
+            public int read(char[] buffer, int offset, int count) {
+                if (position >= length) return -1;
+                final int read = (int) Math.min(count, length - position);
+                for (int i = 0; i < read; i++) {
+                    buffer[offset + i] = pattern[(int) ((position + i) % pattern.length)];
+                }
+                position += read;
+                return read;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        final WrittenNomaiSnippetReader snippetReader = new WrittenNomaiSnippetReader(reader, true);
+        long snippetCount = 0;
+        while (snippetReader.hasNext()) {
+            final String snippet = snippetReader.next();
+            assertTrue(snippet.length() <= WrittenNomaiSnippetReader.MAX_SNIPPET_LENGTH, snippet);
+            snippetCount++;
+        }
+        assertTrue(snippetCount > length / WrittenNomaiSnippetReader.MAX_SNIPPET_LENGTH);
+    }
+
+    private static List<String> readAll(Reader reader, boolean splitSentences) {
+        final List<String> snippets = new ArrayList<>();
+        final WrittenNomaiSnippetReader snippetReader = new WrittenNomaiSnippetReader(reader, splitSentences);
+        while (snippetReader.hasNext()) {
+            snippets.add(snippetReader.next());
+        }
+        return snippets;
+    }
+
+    private static List<String> substringSplitting(String text, boolean splitSentences) {
+        final List<String> snippets = new ArrayList<>();
+
+        for (String sentence : text.split("[.!?:]")) {
+            sentence = sentence.trim();
+            if (splitSentences) {
+                while (sentence.length() > 50) {
+                    final int lastSpace = sentence.substring(0, 50).lastIndexOf(" ");
+                    snippets.add(sentence.substring(0, lastSpace));
+                    sentence = sentence.substring(lastSpace + 1).trim();
+                }
+            }
+            if (!sentence.isEmpty()) {
+                snippets.add(sentence);
+            }
+        }
+
+        return snippets;
+    }
+}
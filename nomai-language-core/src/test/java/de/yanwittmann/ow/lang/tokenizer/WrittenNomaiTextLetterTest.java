@@ -0,0 +1,59 @@
+package de.yanwittmann.ow.lang.tokenizer;
+
+import de.yanwittmann.ow.lang.renderer.shapes.ShapeDefinitions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WrittenNomaiTextLetterTest {
+
+    @Test
+    public void knownTokensReturnSharedLettersTest() {
+        for (String token : new String[]{"p", "th", "ih", "aah", "oy", "0", "10"}) {
+            assertSame(WrittenNomaiTextLetter.fromToken(token, true), WrittenNomaiTextLetter.fromToken(token, false), token);
+        }
+
+        // punctuation is shared, but still no valid letter
+        for (String token : new String[]{",", " ", "!"}) {
+            assertSame(WrittenNomaiTextLetter.fromToken(token, false), WrittenNomaiTextLetter.fromToken(token, false), token);
+            assertTrue(WrittenNomaiTextLetter.fromToken(token, false).isSpecialCharacter());
+            assertThrows(IllegalArgumentException.class, () -> WrittenNomaiTextLetter.fromToken(token, true), token);
+        }
+
+        final WrittenNomaiTextLetter unknown = WrittenNomaiTextLetter.fromToken("xyz", false);
+        assertTrue(unknown.isSpecialCharacter());
+        assertEquals(WrittenNomaiLetterType.OTHER, unknown.getType());
+        assertThrows(IllegalArgumentException.class, () -> WrittenNomaiTextLetter.fromToken("xyz", true));
+    }
+
+    @Test
+    public void shapeLookupMatchesLinearSearchTest() {
+        final List<WrittenNomaiTextSymbolType> types = new ArrayList<>(Arrays.asList(WrittenNomaiTextSymbolType.values()));
+        types.add(null);
+
+        for (WrittenNomaiTextSymbolType a : types) {
+            for (WrittenNomaiTextSymbolType b : types) {
+                final ShapeDefinitions expected = linearSearch(a, b);
+                if (expected == null) {
+                    assertThrows(IllegalArgumentException.class, () -> ShapeDefinitions.fromCombinationOfTypes(a, b));
+                } else {
+                    assertEquals(expected, ShapeDefinitions.fromCombinationOfTypes(a, b), a + " " + b);
+                }
+            }
+        }
+    }
+
+    private static ShapeDefinitions linearSearch(WrittenNomaiTextSymbolType a, WrittenNomaiTextSymbolType b) {
+        for (ShapeDefinitions shapeDefinition : ShapeDefinitions.values()) {
+            final String name = shapeDefinition.name();
+            final String expectedName = a == null ? (b == null ? null : b.name()) : (b == null ? a.name() : null);
+            if (expectedName != null && name.equals(expectedName)) return shapeDefinition;
+            if (a != null && b != null && (name.equals(a.name() + "_" + b.name()) || name.equals(b.name() + "_" + a.name()))) return shapeDefinition;
+        }
+        return null;
+    }
+}
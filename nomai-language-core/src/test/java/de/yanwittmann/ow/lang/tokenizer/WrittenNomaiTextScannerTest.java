@@ -0,0 +1,75 @@
+package de.yanwittmann.ow.lang.tokenizer;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WrittenNomaiTextScannerTest {
+
+    @Test
+    public void scannerMatchesRegexSplitOnDictionaryTest() throws IOException {
+        final List<String> lines;
+        try (InputStream inputStream = WrittenNomaiTextScannerTest.class.getResourceAsStream("/ow-lang/cmudict.dict")) {
+            lines = IOUtils.readLines(inputStream, StandardCharsets.UTF_8);
+        }
+
+        final StringBuilder paragraph = new StringBuilder();
+        for (int i = 0; i < lines.size(); i++) {
+            final String line = lines.get(i);
+            assertScannerMatchesRegexSplit(line);
+            assertScannerMatchesRegexSplit(line.toLowerCase());
+
+            paragraph.append(line).append(i % 3 == 0 ? ". " : " ");
+            if (i % 100 == 99) {
+                assertScannerMatchesRegexSplit(paragraph.toString());
+                paragraph.setLength(0);
+            }
+        }
+    }
+
+    @Test
+    public void scannerMatchesRegexSplitOnUnicodeTest() {
+        final String[] texts = {
+                "", " ", "a", "_", "1", "10", "a_b", "__init__", "hello, 10 worlds!", "https://www.reddit.com/r/outerwilds?x=1",
+                "don't stop-believing", "  leading and trailing  ", "tabs\tand\nnewlines\r\n",
+                "thé café naïve", "été", "́́a", "á́ b", "straße", "ǅemal", "İstanbul",
+                "日本語のテキスト", "١٢٣ arabic digits", "emoji 😀 face", "😀😀", "𝐀bold",
+                "lone \uD83D surrogate", "lone \uDE00 low", "x𝅧y", "Ⅻ roman", "½ half", "a‍b"
+        };
+
+        for (String text : texts) {
+            assertScannerMatchesRegexSplit(text);
+            assertScannerMatchesRegexSplit(text.toLowerCase());
+        }
+    }
+
+    private static void assertScannerMatchesRegexSplit(String text) {
+        final List<String> expected = new ArrayList<>();
+        for (String word : text.split("(?<=\\b|[^a-zA-Z0-9])")) {
+            final String type;
+            if (word.length() == 1 && "!?,.;: ".contains(word)) {
+                type = "PUNCTUATION";
+            } else if (word.matches("[0-9]+")) {
+                type = "NUMBER";
+            } else {
+                type = "WORD";
+            }
+            expected.add(word + " " + type);
+        }
+
+        final List<String> actual = new ArrayList<>();
+        final WrittenNomaiTextScanner scanner = new WrittenNomaiTextScanner(text);
+        while (scanner.next()) {
+            actual.add(scanner.getToken() + " " + scanner.getType());
+        }
+
+        assertEquals(expected, actual, text);
+    }
+}
@@ -28,6 +28,8 @@ import java.io.IOException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -37,6 +39,10 @@ import java.util.stream.Collectors;
 public class RedditBotMain {
 
     private static WrittenNomaiConverter converter;
+    /**
+     * The time all branches of a comment may take to be laid out, which is shared equally between the branches.
+     */
+    private final static Duration LAYOUT_TIME_BUDGET = Duration.ofSeconds(3);
 
     // input parameters
     private final static File GENERATED_IMAGES_DIR = new File("");
@@ -80,13 +86,15 @@ public class RedditBotMain {
 
     public static void main(String[] args) throws IOException, AuthenticationException, InterruptedException {
         converter = new WrittenNomaiConverter();
-        converter.setTokenizer(new WrittenNomaiTextTokenizer(
+        converter.setTokenizer(WrittenNomaiTextTokenizer.fromSnapshot(
+                new File(System.getProperty("java.io.tmpdir"), "nomai-language/cmudict.snapshot"),
                 WrittenNomaiTextTokenizer.class,
                 "/ow-lang/cmudict.dict",
                 "/ow-lang/cmudict-to-ow.txt"
         ));
         converter.setLineGenerator(new LetterToLineConverter());
         converter.setTransformAlongCurveProvider(WrittenNomaiConverter::lengthDependantUpwardsSpiralBezierCurveProvider);
+        converter.setRepairEvaluations(2000);
 
         runBot();
 
@@ -358,11 +366,18 @@ public class RedditBotMain {
         final Map<String, List<List<WrittenNomaiTextLetter>>> snippetWordsTrees = new LinkedHashMap<>();
         final Map<String, WrittenNomaiConverter.DrawablesResult> snippetShapes = new LinkedHashMap<>();
 
-        for (String snippet : snippets) {
+        final Instant layoutDeadline = Instant.now().plus(LAYOUT_TIME_BUDGET);
+        for (int i = 0; i < snippets.size(); i++) {
+            final String snippet = snippets.get(i);
             final List<List<String>> tokens = converter.getTokenizer().tokenizeToStringTokens(snippet);
             final List<List<WrittenNomaiTextLetter>> words = converter.getTokenizer().convertStringTokensToLetters(tokens);
             final WrittenNomaiBranchingLetterNode tree = WrittenNomaiBranchingLetterNode.fromSentence(words);
-            final WrittenNomaiConverter.DrawablesResult shapes = converter.convertNodeTreeToDrawables(random, 10, tree);
+
+            final Duration remainingTime = Duration.between(Instant.now(), layoutDeadline);
+            final Instant snippetDeadline = Instant.now().plus(remainingTime.dividedBy(snippets.size() - i));
+            final WrittenNomaiConverter.LayoutSearchResult layout = converter.convertNodeTreeToDrawables(random, snippetDeadline, tree);
+            final WrittenNomaiConverter.DrawablesResult shapes = layout.getShapes();
+            System.out.println("Laid out [" + snippet + "] with [" + layout.getIntersectionCount() + "] intersections after [" + layout.getAttempts() + "] attempts in [" + layout.getElapsed().toMillis() + "ms]");
 
             snippetTrees.put(snippet, tree);
             snippetShapes.put(snippet, shapes);